@@ -0,0 +1,104 @@
+package com.bdas_dva.backend.Benchmark;
+
+import com.bdas_dva.backend.Model.OrderProduct.BasketQuote;
+import com.bdas_dva.backend.Model.OrderProduct.CheckoutResult;
+import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
+import com.bdas_dva.backend.Service.OrderService;
+import com.bdas_dva.backend.Service.OrderSummaryService;
+import com.bdas_dva.backend.Service.PriceService;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Латентность OrderService.createOrder для оплаты картой: один анонимный PL/SQL блок
+ * (checkout.single-round-trip=true) против proc_process_order + proc_platba_cud + proc_karta_cud.
+ * Цены и кэш заказов заменены заглушками, поэтому разница — это число round trip и работа JDBC слоя.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final int PRODUCTS = 5;
+
+    // Задержка одного round trip до БД
+    @Param({"0", "500", "2000"})
+    public long roundTripMicros;
+
+    @Param({"true", "false"})
+    public boolean singleRoundTrip;
+
+    private SimulatedOracle oracle;
+    private OrderService orderService;
+
+    @Setup
+    public void setUp() throws Exception {
+        SimulatedOracle.quietLogging();
+        oracle = new SimulatedOracle(roundTripMicros);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(oracle.dataSource());
+        ProcedureCallRegistry procedures = new ProcedureCallRegistry(jdbcTemplate);
+        procedures.compileAll();
+        orderService = new OrderService(jdbcTemplate, new ObjectMapper(), procedures);
+
+        PriceService priceService = mock(PriceService.class);
+        when(priceService.quote(any())).thenReturn(
+                new BasketQuote(1, 1249.90, List.of(), List.of(), List.of(), List.of()));
+        ReflectionTestUtils.setField(orderService, "priceService", priceService);
+        ReflectionTestUtils.setField(orderService, "orderSummaryService", mock(OrderSummaryService.class));
+        ReflectionTestUtils.setField(orderService, "eventPublisher", (ApplicationEventPublisher) event -> {
+        });
+        ReflectionTestUtils.setField(orderService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(orderService, "singleRoundTripCheckout", singleRoundTrip);
+
+        // Контроль режима: одно оформление заказа должно стоить 1 или 3 round trip
+        long before = oracle.roundTrips();
+        orderService.createOrder(cardOrder());
+        System.out.println("Round trips per checkout: " + (oracle.roundTrips() - before));
+    }
+
+    private static OrderRequest cardOrder() {
+        OrderRequest request = new OrderRequest();
+        request.setCustomerId(7L);
+        request.setFirstName("Jan");
+        request.setLastName("Novák");
+        request.setEmail("jan.novak@gmail.com");
+        request.setPhone("777123456");
+        request.setStreet("Hlavní");
+        request.setStreetNumber("12");
+        request.setPostCode("53002");
+        request.setCity("Pardubice");
+        request.setPaymentType("card");
+        request.setCardNumber("4111111111111111");
+        List<OrderRequest.ProductItem> products = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            OrderRequest.ProductItem item = new OrderRequest.ProductItem();
+            item.setId(id);
+            item.setQuantity(2);
+            item.setPrice(124.99);
+            products.add(item);
+        }
+        request.setProducts(products);
+        return request;
+    }
+
+    @Benchmark
+    public CheckoutResult createOrder() throws Exception {
+        return orderService.createOrder(cardOrder());
+    }
+}
@@ -0,0 +1,116 @@
+package com.bdas_dva.backend.Benchmark;
+
+import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
+import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON столбца PRODUCTS в истории заказов и JSON корзины для proc_process_order:
+ * ObjectMapper.readValue(String, TypeReference) / writeValueAsString (как было в OrderService)
+ * против заранее построенных ObjectReader / ObjectWriter с потоковым чтением элементов массива.
+ * Время приводится к одному заказу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(OrderProductsJsonBenchmark.ORDERS)
+public class OrderProductsJsonBenchmark {
+
+    static final int ORDERS = 200;
+
+    private static final TypeReference<List<Product>> PRODUCT_LIST_TYPE = new TypeReference<>() {};
+
+    // Число позиций в заказе
+    @Param({"3", "20"})
+    public int productsPerOrder;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectReader productReader;
+    private ObjectWriter productItemsWriter;
+
+    private final String[] productsJson = new String[ORDERS];
+    private final List<List<OrderRequest.ProductItem>> baskets = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        productReader = objectMapper.readerFor(Product.class);
+        productItemsWriter = objectMapper.writerFor(new TypeReference<List<OrderRequest.ProductItem>>() {});
+
+        for (int order = 0; order < ORDERS; order++) {
+            List<Product> products = new ArrayList<>();
+            List<OrderRequest.ProductItem> basket = new ArrayList<>();
+            for (int i = 0; i < productsPerOrder; i++) {
+                long id = order * 31L + i + 1;
+                Product product = new Product();
+                product.setId(id);
+                product.setName("Produkt " + id);
+                product.setPrice(19.90 + i);
+                product.setDescription("Popis produktu " + id + " s delším textem pro realistickou délku řádku.");
+                product.setCategoryId(1L + i % 8);
+                product.setSkladId(1L + i % 3);
+                product.setImage(null);
+                product.setQuantity(1 + i % 4);
+                products.add(product);
+
+                OrderRequest.ProductItem item = new OrderRequest.ProductItem();
+                item.setId(id);
+                item.setQuantity(1 + i % 4);
+                item.setPrice(19.90 + i);
+                basket.add(item);
+            }
+            productsJson[order] = objectMapper.writeValueAsString(products);
+            baskets.add(basket);
+        }
+    }
+
+    @Benchmark
+    public void readWithTypeReference(Blackhole blackhole) throws JsonProcessingException {
+        for (String json : productsJson) {
+            blackhole.consume(objectMapper.readValue(json, PRODUCT_LIST_TYPE));
+        }
+    }
+
+    // Как OrderService.mapUserOrder: поток символов столбца, элементы массива по одному
+    @Benchmark
+    public void readWithPrebuiltReader(Blackhole blackhole) throws IOException {
+        for (String json : productsJson) {
+            List<Product> products = new ArrayList<>();
+            try (MappingIterator<Product> iterator = productReader.readValues(new StringReader(json))) {
+                while (iterator.hasNextValue()) {
+                    products.add(iterator.nextValue());
+                }
+            }
+            blackhole.consume(products);
+        }
+    }
+
+    @Benchmark
+    public void writeWithObjectMapper(Blackhole blackhole) throws JsonProcessingException {
+        for (List<OrderRequest.ProductItem> basket : baskets) {
+            blackhole.consume(objectMapper.writeValueAsString(basket));
+        }
+    }
+
+    @Benchmark
+    public void writeWithPrebuiltWriter(Blackhole blackhole) throws JsonProcessingException {
+        for (List<OrderRequest.ProductItem> basket : baskets) {
+            blackhole.consume(productItemsWriter.writeValueAsString(basket));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bdas_dva.backend.Benchmark;
+
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlInOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcCall;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вызов proc_platba_cud: новый SimpleJdbcCall на каждый запрос (как было в сервисах до реестра)
+ * против вызова, скомпилированного один раз в ProcedureCallRegistry.
+ * С метаданными каждый новый SimpleJdbcCall добавляет два round trip (getProcedures, getProcedureColumns).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcedureCallBenchmark {
+
+    private static final SqlParameter[] PLATBA_PARAMETERS = {
+            new SqlParameter("p_action", Types.VARCHAR),
+            new SqlInOutParameter("p_id_platby", Types.NUMERIC),
+            new SqlParameter("p_suma", Types.NUMERIC),
+            new SqlParameter("p_datum", Types.TIMESTAMP),
+            new SqlParameter("p_typ", Types.VARCHAR),
+            new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC)
+    };
+
+    // Задержка одного round trip до БД
+    @Param({"0", "500"})
+    public long roundTripMicros;
+
+    private JdbcTemplate jdbcTemplate;
+    private ProcedureCallRegistry.ProcedureCall registryCall;
+
+    @Setup
+    public void setUp() {
+        SimulatedOracle.quietLogging();
+        SimulatedOracle oracle = new SimulatedOracle(roundTripMicros).procedure("proc_platba_cud", PLATBA_PARAMETERS);
+        jdbcTemplate = new JdbcTemplate(oracle.dataSource());
+        ProcedureCallRegistry registry = new ProcedureCallRegistry(jdbcTemplate);
+        registry.compileAll();
+        registryCall = registry.get("proc_platba_cud");
+    }
+
+    // Те же параметры, что передает OrderService.insertPayment
+    private static MapSqlParameterSource paymentParams() {
+        return new MapSqlParameterSource()
+                .addValue("p_action", "INSERT")
+                .addValue("p_id_platby", null)
+                .addValue("p_suma", 1249.90)
+                .addValue("p_datum", new Timestamp(System.currentTimeMillis() - 1000))
+                .addValue("p_typ", "cc")
+                .addValue("p_objednavka_id_objednavky", 42L);
+    }
+
+    @Benchmark
+    public Map<String, Object> perRequestWithMetaData() {
+        SimpleJdbcCall call = new SimpleJdbcCall(jdbcTemplate)
+                .withProcedureName("proc_platba_cud")
+                .declareParameters(PLATBA_PARAMETERS);
+        return call.execute(paymentParams());
+    }
+
+    @Benchmark
+    public Map<String, Object> perRequestWithoutMetaData() {
+        SimpleJdbcCall call = new SimpleJdbcCall(jdbcTemplate)
+                .withProcedureName("proc_platba_cud")
+                .withoutProcedureColumnMetaDataAccess()
+                .declareParameters(PLATBA_PARAMETERS);
+        return call.execute(paymentParams());
+    }
+
+    @Benchmark
+    public Map<String, Object> registry() {
+        return registryCall.execute(paymentParams());
+    }
+}
@@ -0,0 +1,72 @@
+package com.bdas_dva.backend.Benchmark;
+
+import com.bdas_dva.backend.Model.Rows.SkladRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение строк SKLAD: queryForList (ColumnMapRowMapper, карта на строку) против SkladRow.ROW_MAPPER
+ * по индексам столбцов, отдельно и вместе с сериализацией ответа в JSON.
+ * Время и аллокации приводятся к одной строке; аллокации — с профайлером: -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(RowMapperBenchmark.ROWS)
+public class RowMapperBenchmark {
+
+    static final int ROWS = 500;
+
+    private static final String[] LABELS = {"ID_SKLADU", "NAZEV", "TELEFON", "EMAIL", "ADRESA_ID_ADRESY"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Object[][] rows = new Object[ROWS][];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{
+                    BigDecimal.valueOf(i + 1),
+                    "Sklad " + (i + 1),
+                    BigDecimal.valueOf(600_000_000L + i),
+                    // Часть строк с NULL, как в реальной таблице
+                    i % 7 == 0 ? null : "sklad" + (i + 1) + "@supermarket.cz",
+                    i % 5 == 0 ? null : BigDecimal.valueOf(1000 + i)
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> columnMap() throws SQLException {
+        return new RowMapperResultSetExtractor<>(new ColumnMapRowMapper())
+                .extractData(SimulatedOracle.resultSet(LABELS, rows));
+    }
+
+    @Benchmark
+    public List<SkladRow> typedRecord() throws SQLException {
+        return new RowMapperResultSetExtractor<>(SkladRow.ROW_MAPPER)
+                .extractData(SimulatedOracle.resultSet(LABELS, rows));
+    }
+
+    @Benchmark
+    public String columnMapJson() throws SQLException, JsonProcessingException {
+        return objectMapper.writeValueAsString(columnMap());
+    }
+
+    @Benchmark
+    public String typedRecordJson() throws SQLException, JsonProcessingException {
+        return objectMapper.writeValueAsString(typedRecord());
+    }
+}
@@ -0,0 +1,306 @@
+package com.bdas_dva.backend.Benchmark;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.SqlInOutParameter;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Заглушка JDBC драйвера Oracle для бенчмарков без базы данных.
+ * Каждый execute и каждое чтение метаданных процедуры (getProcedures / getProcedureColumns) — один round trip:
+ * поток ждет roundTripMicros, как при обращении к удаленной БД. OUT параметры возвращают возрастающие ID.
+ * Интерфейсы JDBC реализованы через java.lang.reflect.Proxy, поэтому каждый JDBC вызов стоит одинаковую
+ * небольшую добавку — сравнивать имеет смысл варианты одного бенчмарка, а не абсолютные числа.
+ */
+final class SimulatedOracle {
+
+    private static final String[] PROCEDURE_LABELS = {"PROCEDURE_CAT", "PROCEDURE_SCHEM", "PROCEDURE_NAME"};
+    private static final String[] COLUMN_LABELS = {"COLUMN_NAME", "COLUMN_TYPE", "DATA_TYPE", "TYPE_NAME", "NULLABLE"};
+
+    private interface Handler {
+        Object call(Method method, Object[] args) throws SQLException;
+    }
+
+    private final long roundTripNanos;
+    // Имя процедуры в верхнем регистре -> строки getProcedureColumns
+    private final Map<String, List<Object[]>> procedureColumns = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder roundTrips = new LongAdder();
+    private final DataSource dataSource;
+
+    SimulatedOracle(long roundTripMicros) {
+        this.roundTripNanos = roundTripMicros * 1_000;
+        this.dataSource = proxy(DataSource.class, (method, args) -> "getConnection".equals(method.getName())
+                ? proxy(Connection.class, this::connection)
+                : defaultValue(method.getReturnType()));
+    }
+
+    /**
+     * Сигнатура процедуры для чтения метаданных (SimpleJdbcCall без withoutProcedureColumnMetaDataAccess).
+     * У незарегистрированных процедур метаданные пустые.
+     */
+    SimulatedOracle procedure(String name, SqlParameter... parameters) {
+        List<Object[]> columns = new ArrayList<>();
+        for (SqlParameter parameter : parameters) {
+            int columnType = parameter instanceof SqlInOutParameter ? DatabaseMetaData.procedureColumnInOut
+                    : parameter instanceof SqlOutParameter ? DatabaseMetaData.procedureColumnOut
+                    : DatabaseMetaData.procedureColumnIn;
+            columns.add(new Object[]{parameter.getName().toUpperCase(Locale.ROOT), columnType,
+                    parameter.getSqlType(), null, DatabaseMetaData.procedureNullable});
+        }
+        procedureColumns.put(name.toUpperCase(Locale.ROOT), columns);
+        return this;
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    long roundTrips() {
+        return roundTrips.sum();
+    }
+
+    /**
+     * ResultSet в памяти: значения читаются по индексу (с 1) или по метке столбца без учета регистра.
+     */
+    static ResultSet resultSet(String[] labels, Object[][] rows) {
+        return proxy(ResultSet.class, new Rows(labels, rows));
+    }
+
+    /**
+     * Сервисы логируют каждый вызов на уровне INFO — в бенчмарке это измеряло бы вывод в консоль.
+     */
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.bdas_dva")).setLevel(Level.WARN);
+    }
+
+    private Object connection(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "prepareCall":
+                return proxy(CallableStatement.class, this::statement);
+            case "prepareStatement":
+                return proxy(PreparedStatement.class, this::statement);
+            case "createStatement":
+                return proxy(Statement.class, this::statement);
+            case "getMetaData":
+                return proxy(DatabaseMetaData.class, this::metaData);
+            case "getAutoCommit":
+            case "isValid":
+                return true;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private Object metaData(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getDatabaseProductName":
+                return "Oracle";
+            case "getDatabaseProductVersion":
+                return "Oracle Database 19c";
+            case "getDriverName":
+                return "SimulatedOracle";
+            case "getUserName":
+                return "BENCH";
+            case "storesUpperCaseIdentifiers":
+            case "supportsSchemasInProcedureCalls":
+                return true;
+            case "getProcedures":
+                roundTrip();
+                return resultSet(PROCEDURE_LABELS, new Object[][]{{null, "BENCH", args[2]}});
+            case "getProcedureColumns":
+                roundTrip();
+                String name = String.valueOf(args[2]).toUpperCase(Locale.ROOT);
+                return resultSet(COLUMN_LABELS, procedureColumns.getOrDefault(name, List.of()).toArray(new Object[0][]));
+            case "getFunctions":
+            case "getFunctionColumns":
+                return resultSet(new String[0], new Object[0][]);
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private Object statement(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "execute":
+                roundTrip();
+                return false;
+            case "executeUpdate":
+                roundTrip();
+                return 1;
+            case "executeQuery":
+                roundTrip();
+                return resultSet(new String[0], new Object[0][]);
+            case "executeBatch":
+                roundTrip();
+                return new int[0];
+            case "getUpdateCount":
+                return -1;
+            case "getObject":
+            case "getBigDecimal":
+                return BigDecimal.valueOf(sequence.incrementAndGet());
+            case "getLong":
+                return sequence.incrementAndGet();
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private void roundTrip() {
+        roundTrips.increment();
+        long deadline = System.nanoTime() + roundTripNanos;
+        for (long left = roundTripNanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private static final class Rows implements Handler {
+        private final String[] labels;
+        private final Object[][] rows;
+        private int row = -1;
+        private boolean lastWasNull;
+
+        private Rows(String[] labels, Object[][] rows) {
+            this.labels = labels;
+            this.rows = rows;
+        }
+
+        @Override
+        public Object call(Method method, Object[] args) throws SQLException {
+            String name = method.getName();
+            switch (name) {
+                case "next":
+                    return ++row < rows.length;
+                case "wasNull":
+                    return lastWasNull;
+                case "findColumn":
+                    return column(args[0]);
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, this::columns);
+                default:
+                    break;
+            }
+            if (name.startsWith("get") && args != null
+                    && (args[0] instanceof Integer || args[0] instanceof String)) {
+                Object value = rows[row][column(args[0]) - 1];
+                lastWasNull = value == null;
+                return convert(value, method.getReturnType());
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private Object columns(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return labels.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return labels[(Integer) args[0] - 1];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private int column(Object key) throws SQLException {
+            if (key instanceof Integer index) {
+                return index;
+            }
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equalsIgnoreCase((String) key)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("Invalid column name: " + key);
+        }
+
+        private static Object convert(Object value, Class<?> type) {
+            if (value == null) {
+                return defaultValue(type);
+            }
+            if (type == long.class) {
+                return ((Number) value).longValue();
+            }
+            if (type == int.class) {
+                return ((Number) value).intValue();
+            }
+            if (type == double.class) {
+                return ((Number) value).doubleValue();
+            }
+            if (type == String.class) {
+                return value.toString();
+            }
+            if (type == BigDecimal.class) {
+                return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+            }
+            if (type == java.io.Reader.class) {
+                return new StringReader(value.toString());
+            }
+            return value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(SimulatedOracle.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "toString":
+                            return type.getSimpleName() + "@simulated";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "isWrapperFor":
+                            return ((Class<?>) args[0]).isInstance(proxy);
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                            throw new SQLException("Not a wrapper for " + args[0]);
+                        default:
+                            return handler.call(method, args);
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+}
@@ -80,6 +80,8 @@ public class WebSecurityConfig {
                 "Content-Type",
                 "Accept",
                 "X-Requested-With",
+                "Idempotency-Key",
+                "Last-Event-ID",
                 "multipart/form-data",
                 "application/octet-stream",
                 "headers"));
@@ -88,7 +90,7 @@ public class WebSecurityConfig {
         configuration.setAllowCredentials(true);
 
         // Разрешенные заголовки для ответа (опционально)
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Idempotent-Replayed"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 
@@ -112,6 +114,8 @@ public class WebSecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/orders/**").authenticated()
                         .requestMatchers("/", "/home").permitAll()
+                        // Метрики для Prometheus; порт management.server.port не публикуется наружу
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/api/categories/**", "/api/products/**").permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/employee/**").hasRole("EMPLOYEE")
@@ -5,6 +5,7 @@ import com.bdas_dva.backend.Model.Zakaznik;
 import com.bdas_dva.backend.Service.UserService;
 import com.bdas_dva.backend.Service.ZakaznikService;
 import com.bdas_dva.backend.Util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -150,21 +151,16 @@ public class AuthController {
     public ResponseEntity<?> getUserRole(HttpServletRequest request) {
         String roleName = "ROLE_PUBLIC"; // Роль по умолчанию
         try {
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                if (jwtUtil.validateToken(token)) {
-                    String email = jwtUtil.getUserNameFromJwtToken(token);
-                    User user = userService.getUserWithRoleByEmail(email);
-                    if (user != null && user.getRoleName() != null) {
-                        roleName = user.getRoleName();
-                    }
-                    System.out.println("user.getRoleName() = " + user.getRoleName());
+            Claims claims = JwtUtil.getRequestClaims(request);
+            if (claims != null) {
+                User user = userService.getUserWithRoleByEmail(claims.getSubject());
+                if (user != null && user.getRoleName() != null) {
+                    roleName = user.getRoleName();
                 }
             }
         } catch (Exception e) {
+            // Пользователь не прочитан - остается роль по умолчанию
         }
-        System.out.println("roleName.toLowerCase(Locale.ROOT).substring(5) = " + roleName.toLowerCase(Locale.ROOT).substring(5));
 
         Map<String, String> response = new HashMap<>();
         response.put("role", roleName.toLowerCase(Locale.ROOT).substring(5));
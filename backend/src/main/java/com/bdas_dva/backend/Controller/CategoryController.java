@@ -3,12 +3,12 @@ package com.bdas_dva.backend.Controller;
 
 import com.bdas_dva.backend.Model.OrderProduct.Product.Category;
 import com.bdas_dva.backend.Service.CategoryService;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/categories")
 public class CategoryController {
@@ -16,9 +16,13 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    // Список категорий из снимка справочников (ETag, 304 при If-None-Match)
     @GetMapping
-    public List<Category> getCategories() {
-        return categoryService.getCategories();
+    public ResponseEntity<byte[]> getCategories() {
+        return referenceData.response(ReferenceDataCache.Dataset.CATEGORIES);
     }
 
     @PostMapping
@@ -1,5 +1,7 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.ImageMeta;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Service.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -9,7 +11,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/images")
@@ -25,7 +26,7 @@ public class ImageController {
     @GetMapping()
     public ResponseEntity<?> getAllImages() {
         try {
-            List<Map<String, Object>> images = imageService.getAllImages();
+            List<ImageMeta> images = imageService.getAllImages();
             if (images.isEmpty()) {
                 return ResponseEntity.status(404).body("Изображения не найдены.");
             }
@@ -38,13 +39,32 @@ public class ImageController {
     }
 
 
+    /**
+     * Страница метаданных изображений с keyset-пагинацией по ID_OBRAZKU.
+     * Пример: GET /api/images/page?limit=100, далее /api/images/page?cursor=<nextCursor>&limit=100
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getImagesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<ImageMeta> page = imageService.getImagesPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Ошибка сервера при получении изображений: " + e.getMessage());
+        }
+    }
+
     /**
      * Получение метаданных изображения по ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getImageById(@PathVariable("id") Long id) {
+    public ResponseEntity<ImageMeta> getImageById(@PathVariable("id") Long id) {
         try {
-            Map<String, Object> image = imageService.getImageById(id);
+            ImageMeta image = imageService.getImageById(id);
             return ResponseEntity.ok(image);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
@@ -55,11 +75,11 @@ public class ImageController {
      * Фильтрация изображений по продукту или формату
      */
     @GetMapping("/filter")
-    public ResponseEntity<List<Map<String, Object>>> getImagesByFilters(
+    public ResponseEntity<List<ImageMeta>> getImagesByFilters(
             @RequestParam(value = "productId", required = false) Long productId,
             @RequestParam(value = "formatId", required = false) Integer formatId
     ) {
-        List<Map<String, Object>> images = imageService.getImagesByFilters(productId, formatId);
+        List<ImageMeta> images = imageService.getImagesByFilters(productId, formatId);
         return ResponseEntity.ok(images);
     }
 
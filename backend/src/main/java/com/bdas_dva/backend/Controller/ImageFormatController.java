@@ -1,11 +1,11 @@
 package com.bdas_dva.backend.Controller;
 
 import com.bdas_dva.backend.Service.ImageFormatService;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,13 +16,15 @@ public class ImageFormatController {
     @Autowired
     private ImageFormatService imageFormatService;
 
+    @Autowired
+    private ReferenceDataCache referenceData;
+
     /**
-     * Получение всех форматов изображений
+     * Получение всех форматов изображений (из снимка справочников, с ETag)
      */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllImageFormats() {
-        List<Map<String, Object>> formats = imageFormatService.getAllImageFormats();
-        return ResponseEntity.ok(formats);
+    public ResponseEntity<byte[]> getAllImageFormats() {
+        return referenceData.response(ReferenceDataCache.Dataset.IMAGE_FORMATS);
     }
 
     /**
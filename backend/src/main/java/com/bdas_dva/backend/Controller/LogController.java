@@ -1,13 +1,17 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.LogEntry;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Service.LogService;
+import com.bdas_dva.backend.Util.ResultSetExporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/logs")
@@ -22,19 +26,60 @@ public class LogController {
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getAllLogs() {
-        List<Map<String, Object>> logs = logService.getAllLogs();
+    public ResponseEntity<List<LogEntry>> getAllLogs() {
+        List<LogEntry> logs = logService.getAllLogs();
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * Страница логов с keyset-пагинацией по ID_LOGU.
+     * Пример: GET ...?limit=100, далее ...&cursor=<nextCursor из предыдущего ответа>
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLogsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<LogEntry> page = logService.getLogsPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Ошибка при получении логов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Потоковый экспорт всех логов в NDJSON или CSV.
+     * Пример: GET /api/logs/export?format=csv
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ResultSetExporter.Format exportFormat;
+        try {
+            exportFormat = ResultSetExporter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"logs." + exportFormat.getExtension() + "\"")
+                .body(out -> logService.exportLogs(exportFormat, out));
+    }
+
     /**
      * Получение записи лога по ID
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getLogById(@PathVariable("id") Long id) {
+    public ResponseEntity<LogEntry> getLogById(@PathVariable("id") Long id) {
         try {
-            Map<String, Object> log = logService.getLogById(id);
+            LogEntry log = logService.getLogById(id);
             return ResponseEntity.ok(log);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
@@ -46,12 +91,12 @@ public class LogController {
      */
     @GetMapping("/filter")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getLogsByFilters(
+    public ResponseEntity<List<LogEntry>> getLogsByFilters(
             @RequestParam(value = "operation", required = false) String operation,
             @RequestParam(value = "tableName", required = false) String tableName,
             @RequestParam(value = "modificationDate", required = false) String modificationDate
     ) {
-        List<Map<String, Object>> logs = logService.getLogsByFilters(operation, tableName, modificationDate);
+        List<LogEntry> logs = logService.getLogsByFilters(operation, tableName, modificationDate);
         return ResponseEntity.ok(logs);
     }
 }
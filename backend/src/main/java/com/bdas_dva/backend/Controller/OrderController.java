@@ -1,21 +1,32 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.KeysetPage;
+import com.bdas_dva.backend.Model.OrderProduct.CheckoutResult;
 import com.bdas_dva.backend.Model.OrderProduct.Order;
 import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
 import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import com.bdas_dva.backend.Model.Rows.OrderSummaryRow;
 import com.bdas_dva.backend.Model.User;
+import com.bdas_dva.backend.Service.OrderIntakeService;
 import com.bdas_dva.backend.Service.OrderService;
 import com.bdas_dva.backend.Service.UserService;
+import com.bdas_dva.backend.Util.IdempotencyStore;
 import com.bdas_dva.backend.Util.JwtUtil;
+import com.bdas_dva.backend.Util.ResultSetExporter;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.dao.DataAccessException;
 import org.springframework.security.core.GrantedAuthority;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,15 +42,44 @@ public class OrderController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
 
 
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (orderIntakeService.isEnabled()) {
+            return submitOrderAsync(orderRequest, idempotencyKey);
+        }
         try {
-            orderService.createOrder(orderRequest);
-            return ResponseEntity.ok().body("Order created successfully!");
+            CheckoutResult result;
+            boolean replayed = false;
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                // Ключ действует в рамках пользователя, повтор возвращает исходный результат без обращения к БД
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                String scopedKey = authentication.getName() + ":" + idempotencyKey.trim();
+                IdempotencyStore.Outcome<CheckoutResult> outcome = idempotencyStore.execute(scopedKey,
+                        idempotencyStore.fingerprint(orderRequest), () -> orderService.createOrder(orderRequest));
+                result = outcome.value();
+                replayed = outcome.replayed();
+            } else {
+                result = orderService.createOrder(orderRequest);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Order created successfully!");
+            response.put("orderId", result.orderId());
+            response.put("paymentId", result.paymentId());
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(replayed))
+                    .body(response);
+        } catch (IdempotencyStore.KeyReuseException e) {
+            return ResponseEntity.status(422).body(e.getMessage());
+        } catch (IdempotencyStore.InProgressException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
         } catch (DataAccessException dae) {
             // Обработка ошибок базы данных
             dae.printStackTrace();
@@ -51,25 +91,74 @@ public class OrderController {
         }
     }
 
+    /**
+     * Расчет корзины по серверным ценам: итог, позиции с изменившейся ценой и недоступные товары.
+     */
+    @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @PostMapping("/quote")
+    public ResponseEntity<?> quoteBasket(@RequestBody List<OrderRequest.ProductItem> items) {
+        try {
+            return ResponseEntity.ok(orderService.quoteBasket(items));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка расчета корзины: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Асинхронный прием заказа: проверенный заказ ставится в очередь, клиент получает 202 и status URL.
+     */
+    private ResponseEntity<?> submitOrderAsync(OrderRequest orderRequest, String idempotencyKey) {
+        try {
+            orderService.validateOrderRequest(orderRequest);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        try {
+            String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+            OrderIntakeService.Ticket ticket;
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                ticket = idempotencyStore.execute(owner + ":" + idempotencyKey.trim(),
+                        idempotencyStore.fingerprint(orderRequest),
+                        () -> orderIntakeService.submit(orderRequest, owner)).value();
+            } else {
+                ticket = orderIntakeService.submit(orderRequest, owner);
+            }
+
+            String statusUrl = "/api/order-statuses/intake/" + ticket.getId();
+            Map<String, Object> response = new HashMap<>();
+            response.put("ticketId", ticket.getId());
+            response.put("state", ticket.getState());
+            response.put("statusUrl", statusUrl);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, statusUrl)
+                    .body(response);
+        } catch (OrderIntakeService.QueueFullException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        } catch (IdempotencyStore.KeyReuseException e) {
+            return ResponseEntity.status(422).body(e.getMessage());
+        } catch (IdempotencyStore.InProgressException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("An error occurred while queueing the order.");
+        }
+    }
+
     @GetMapping("/user")
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
     public ResponseEntity<?> getUserOrders(@RequestParam(required = false) Long userId,
                                            @RequestParam(required = false) Long zakaznikId,
-                                           @RequestHeader(value = "Authorization", required = false) String authHeader) {
+                                           @RequestHeader(value = "Authorization", required = false) String authHeader,
+                                           HttpServletRequest request) {
         try {
-            // Если userId не передан в параметрах запроса, берем его из JWT токена
-            if (userId == null && authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                if (jwtUtil.validateToken(token)) {
-                    String email = jwtUtil.getUserNameFromJwtToken(token);
-                    User user = userService.getUserWithRoleByEmail(email);
-                    if (user != null) {
-                        userId = user.getIdUser(); // Получаем ID пользователя из токена
-                    }
-                } else {
-                    return ResponseEntity.status(401).body("Invalid or expired token");
-                }
+            if (!isStaff()) {
+                zakaznikId = null;
             }
+            userId = resolveUserId(userId, authHeader, request);
 
             // Если userId все еще null, возвращаем ошибку
             if (userId == null) {
@@ -80,12 +169,86 @@ public class OrderController {
             List<Order> orders = orderService.getUserOrders(userId, zakaznikId);
             return ResponseEntity.ok(orders);
 
+        } catch (InvalidTokenException e) {
+            return ResponseEntity.status(401).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка получения заказов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * История заказов пользователя по страницам (от новых к старым) вместе с товарами.
+     * Заголовки и все позиции страницы читаются двумя запросами независимо от числа заказов.
+     * Пример: GET /api/orders/user/history?limit=20, далее ?cursor=<nextCursor>&limit=20
+     */
+    @GetMapping("/user/history")
+    @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public ResponseEntity<?> getUserOrderHistory(@RequestParam(required = false) Long userId,
+                                                 @RequestParam(required = false) Long zakaznikId,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "limit", required = false) Integer limit,
+                                                 @RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                 HttpServletRequest request) {
+        try {
+            if (!isStaff()) {
+                zakaznikId = null;
+            }
+            userId = resolveUserId(userId, authHeader, request);
+            if (userId == null) {
+                return ResponseEntity.status(400).body("User ID is required or must be provided in JWT token");
+            }
+            KeysetPage<Order> page = orderService.getOrderHistory(userId, zakaznikId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (InvalidTokenException e) {
+            return ResponseEntity.status(401).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Ошибка получения заказов: " + e.getMessage());
         }
     }
 
+    /**
+     * Токен в заголовке есть, но AuthTokenFilter его не принял — ответ 401.
+     */
+    private static class InvalidTokenException extends RuntimeException {
+        private InvalidTokenException() {
+            super("Invalid or expired token");
+        }
+    }
+
+    // Сотрудник или администратор могут смотреть заказы любого пользователя
+    private static boolean isStaff() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(role -> role.equals("ROLE_EMPLOYEE") || role.equals("ROLE_ADMIN"));
+    }
+
+    // userId из параметров запроса принимается только от сотрудника; иначе он берется из JWT токена
+    // (проверен в AuthTokenFilter). null — токена нет; InvalidTokenException — токен недействителен
+    private Long resolveUserId(Long userId, String authHeader, HttpServletRequest request) {
+        if (userId != null && isStaff()) {
+            return userId;
+        }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        Claims claims = JwtUtil.getRequestClaims(request);
+        if (claims == null) {
+            throw new InvalidTokenException();
+        }
+        Number uid = claims.get("uid", Number.class);
+        if (uid != null) {
+            return uid.longValue();
+        }
+        // Токены, выпущенные до появления claim uid
+        User user = userService.getUserWithRoleByEmail(claims.getSubject());
+        return user != null ? user.getIdUser() : null;
+    }
+
     @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
     @PostMapping("/filter")
     public ResponseEntity<?> filterOrders(@RequestBody Map<String, String> filters) {
@@ -95,24 +258,13 @@ public class OrderController {
             String email = filters.get("email");
             Long statusId = filters.get("statusId") != null ? Long.valueOf(filters.get("statusId")) : null;
 
-            List<Map<String, Object>> orders = orderService.filterOrders(name, phone, email, statusId);
-
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             boolean isEmployee = authentication.getAuthorities().stream()
                     .map(GrantedAuthority::getAuthority)
                     .anyMatch(role -> role.equals("ROLE_EMPLOYEE"));
 
-            if (isEmployee) {
-                orders.forEach(order -> {
-                    if (order.containsKey("CUSTOMER_PHONE")) {
-                        String originalPhone = order.get("CUSTOMER_PHONE").toString();
-                        if (originalPhone != null && !originalPhone.isEmpty()) {
-                            order.put("CUSTOMER_PHONE", maskPhoneNumber(originalPhone));
-                        }
-                    }
-                });
-            }
-
+            // Телефон маскируется при сериализации ответа, строки проекции не изменяются
+            List<OrderSummaryRow> orders = orderService.filterOrders(name, phone, email, statusId, isEmployee);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             e.printStackTrace();
@@ -121,15 +273,6 @@ public class OrderController {
     }
 
 
-    private String maskPhoneNumber(String phoneNumber) {
-        if (phoneNumber.length() > 4) {
-            return phoneNumber.substring(0, phoneNumber.length() - 4).replaceAll("[0-9]", "*")
-                    + phoneNumber.substring(phoneNumber.length() - 4);
-        }
-        return phoneNumber.replaceAll("[0-9]", "*");
-    }
-
-
     @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
     @GetMapping("/{orderId}/products")
     public ResponseEntity<?> getProductsByOrderId(@PathVariable("orderId") Long orderId) {
@@ -178,6 +321,47 @@ public class OrderController {
         }
     }
 
+    /**
+     * Streamovaný export všech objednávek do NDJSON nebo CSV.
+     * Příklad: GET /api/orders/admin/export?format=csv
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ResultSetExporter.Format exportFormat;
+        try {
+            exportFormat = ResultSetExporter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(out -> orderService.exportObjednavky(exportFormat, out));
+    }
+
+    /**
+     * Stránka objednávek s keyset stránkováním podle ID_OBJEDNAVKY.
+     * Příklad: GET /api/orders/admin/page?limit=100, dále /api/orders/admin/page?cursor=<nextCursor>&limit=100
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/page")
+    public ResponseEntity<?> getOrdersPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<Map<String, Object>> page = orderService.getObjednavkyPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error retrieving orders: " + e.getMessage());
+        }
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin")
     public ResponseEntity<?> getAllOrders() {
@@ -3,6 +3,7 @@
 package com.bdas_dva.backend.Controller;
 
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.OrderProduct;
 import com.bdas_dva.backend.Service.OrderProductService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,25 @@ public class OrderProductController {
         }
     }
 
+    /**
+     * Страница связей заказ-продукт с keyset-пагинацией по (objednavka_id_objednavky, produkt_id_produktu).
+     * Пример: GET /api/order-products/page?limit=100, далее /api/order-products/page?cursor=<nextCursor>&limit=100
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getOrderProductsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<OrderProduct> page = orderProductService.getOrderProductsPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Ошибка при получении списка связей заказ-продукт: " + e.getMessage());
+        }
+    }
+
     /**
      * Получение связи заказ-продукт по составному ключу.
      * Пример: GET /api/order-products?objednavkaIdObjednavky=1&produktIdProduktu=2
@@ -1,9 +1,20 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.OrderProduct.BulkStatusRequest;
+import com.bdas_dva.backend.Model.OrderProduct.BulkStatusResult;
+import com.bdas_dva.backend.Model.User;
+import com.bdas_dva.backend.Service.OrderEventStreamService;
+import com.bdas_dva.backend.Service.OrderIntakeService;
 import com.bdas_dva.backend.Service.OrderStatusService;
+import com.bdas_dva.backend.Service.UserService;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,6 +28,15 @@ public class OrderStatusController {
     @Autowired
     private OrderStatusService orderStatusService;
 
+    @Autowired
+    private OrderEventStreamService orderEventStreamService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
     /**
      * Создание нового статуса заказа.
      */
@@ -79,6 +99,55 @@ public class OrderStatusController {
         }
     }
 
+    /**
+     * Состояние заказа, принятого асинхронно (status URL из ответа 202 на POST /api/orders).
+     * Пользователь видит только свои заявки, сотрудники и администраторы — все.
+     */
+    @GetMapping("/intake/{ticketId}")
+    @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public ResponseEntity<?> getIntakeStatus(@PathVariable String ticketId) {
+        OrderIntakeService.Ticket ticket = orderStatusService.getIntakeStatus(ticketId);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean staff = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_EMPLOYEE".equals(a.getAuthority()) || "ROLE_ADMIN".equals(a.getAuthority()));
+        if (ticket == null || (!staff && !authentication.getName().equals(ticket.getOwner()))) {
+            return ResponseEntity.status(404).body("Заявка " + ticketId + " не найдена.");
+        }
+        return ResponseEntity.ok(ticket);
+    }
+
+    /**
+     * Поток событий изменения заказов (Server-Sent Events, событие "order-status") вместо опроса.
+     * Пользователь получает события своих заказов, сотрудники и администраторы — всех.
+     * При переподключении пропущенные события дочитываются по заголовку Last-Event-ID.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public ResponseEntity<?> streamOrderEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            boolean staff = authentication.getAuthorities().stream()
+                    .anyMatch(a -> "ROLE_EMPLOYEE".equals(a.getAuthority()) || "ROLE_ADMIN".equals(a.getAuthority()));
+            Long customerId = null;
+            if (!staff) {
+                User user = userService.getUserWithRoleByEmail(authentication.getName());
+                customerId = user.getZakaznikIdZakazniku();
+            }
+            return ResponseEntity.ok(orderEventStreamService.subscribe(
+                    authentication.getName(), customerId, staff, lastEventId));
+        } catch (ResourceNotFoundException e) {
+            // Пользователь удален после выдачи токена
+            return ResponseEntity.status(403).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (OrderEventStreamService.SubscriberLimitException e) {
+            return ResponseEntity.status(503).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).contentType(MediaType.TEXT_PLAIN)
+                    .body("Ошибка подписки на события заказов: " + e.getMessage());
+        }
+    }
+
     /**
      * Получение всех статусов заказов.
      */
@@ -86,8 +155,7 @@ public class OrderStatusController {
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
     public ResponseEntity<?> getAllStatuses() {
         try {
-            List<Map<String, Object>> statuses = orderStatusService.executeReadAll();
-            return ResponseEntity.ok(statuses);
+            return referenceData.response(ReferenceDataCache.Dataset.ORDER_STATUSES);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Ошибка при получении статусов: " + e.getMessage());
@@ -113,4 +181,22 @@ public class OrderStatusController {
             return ResponseEntity.status(500).body("Ошибка при обновлении статуса заказа: " + e.getMessage());
         }
     }
+
+    /**
+     * Массовое изменение статуса: {"orderIds": [1, 2, 3], "status": 5}.
+     * Возвращает результат для каждого ID (UPDATED, NOT_FOUND, FAILED) и число обращений к БД.
+     */
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @PutMapping("/bulk/status")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody BulkStatusRequest request) {
+        try {
+            BulkStatusResult result = orderStatusService.updateOrderStatuses(request.orderIds(), request.status());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка массового обновления статуса: " + e.getMessage());
+        }
+    }
 }
@@ -1,13 +1,18 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.PaymentRow;
 import com.bdas_dva.backend.Service.PaymentService;
+import com.bdas_dva.backend.Util.ResultSetExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.Platba.Payment;
 
 import java.time.LocalDate;
@@ -34,6 +39,47 @@ public class PaymentController {
         return ResponseEntity.ok(payments);
     }
 
+    /**
+     * Страница платежей с keyset-пагинацией по id_platby.
+     * Пример: GET /api/payments/page?limit=100, далее /api/payments/page?cursor=<nextCursor>&limit=100
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public ResponseEntity<?> getPaymentsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<Payment> page = paymentService.getPaymentsPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Ошибка при получении платежей: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Потоковый экспорт всех платежей в NDJSON или CSV.
+     * Пример: GET /api/payments/export?format=csv
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        ResultSetExporter.Format exportFormat;
+        try {
+            exportFormat = ResultSetExporter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments." + exportFormat.getExtension() + "\"")
+                .body(out -> paymentService.exportPayments(exportFormat, out));
+    }
+
     // Добавление нового платежа
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -102,13 +148,13 @@ public class PaymentController {
      */
     @GetMapping("/filter")
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getPaymentsByFilters(
+    public ResponseEntity<List<PaymentRow>> getPaymentsByFilters(
             @RequestParam(value = "type", required = false) String type,
             @RequestParam(value = "date", required = false) String date,
             @RequestParam(value = "minAmount", required = false) Double minAmount,
             @RequestParam(value = "maxAmount", required = false) Double maxAmount
     ) {
-        List<Map<String, Object>> payments = paymentService.getPaymentsByFilters(type, date, minAmount, maxAmount);
+        List<PaymentRow> payments = paymentService.getPaymentsByFilters(type, date, minAmount, maxAmount);
         return ResponseEntity.ok(payments);
     }
 
@@ -117,9 +163,9 @@ public class PaymentController {
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getPaymentById(@PathVariable("id") Long id) {
+    public ResponseEntity<PaymentRow> getPaymentById(@PathVariable("id") Long id) {
         try {
-            Map<String, Object> payment = paymentService.getPaymentById(id);
+            PaymentRow payment = paymentService.getPaymentById(id);
             return ResponseEntity.ok(payment);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
@@ -1,19 +1,29 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.OrderProduct.Product.ImageBlobInfo;
 import com.bdas_dva.backend.Model.OrderProduct.Product.ImageData;
 import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import com.bdas_dva.backend.Model.OrderProduct.Product.ProductSearchPage;
 import com.bdas_dva.backend.Service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/products")
@@ -67,12 +77,34 @@ public class ProductController {
             "webp", 6
     );
 
+    /**
+     * Список продуктов. По умолчанию вместо Base64 изображения продукт содержит imageUrl и imageEtag;
+     * inlineImages=true возвращает прежний формат со встроенным изображением.
+     */
     @GetMapping
     public List<Product> getProducts(
             @RequestParam(required = false) String searchQuery,
-            @RequestParam(defaultValue = "all") String category
+            @RequestParam(defaultValue = "all") String category,
+            @RequestParam(defaultValue = "false") boolean inlineImages
+    ) {
+        if (inlineImages) {
+            return productService.getProductsImage(searchQuery, category);
+        }
+        return productService.getProductsWithImageRefs(searchQuery, category);
+    }
+
+    /**
+     * Полнотекстовый поиск по названию и описанию: без учета диакритики, по префиксам слов,
+     * с ранжированием и постраничной выдачей (page с нуля, size не больше 100).
+     */
+    @GetMapping("/search")
+    public ProductSearchPage searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
     ) {
-        return productService.getProductsImage(searchQuery, category);
+        return productService.searchProducts(query, categoryId, page, size);
     }
 
     @GetMapping("/list")
@@ -105,6 +137,87 @@ public class ProductController {
         }
     }
 
+    /**
+     * Отдача изображения продукта как бинарного потока прямо из BLOB.
+     * Поддерживает ETag (If-None-Match), Content-Length и одиночный диапазон Range / If-Range.
+     * Ссылка с актуальной версией (?v=...) из списка продуктов кешируется браузером без перепроверки.
+     */
+    @GetMapping("/{id}/image/raw")
+    public ResponseEntity<StreamingResponseBody> getProductImageRaw(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpMethod method,
+            WebRequest webRequest,
+            HttpServletResponse servletResponse
+    ) {
+        ImageBlobInfo info = productService.getProductImageInfo(id);
+        if (info == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = info.getETag();
+        long total = info.getLength();
+
+        // Сравнение If-None-Match по правилам RFC 9110: "*", слабые W/"..." и списки значений
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        MediaType contentType = info.getExtension() != null
+                ? MediaTypeFactory.getMediaType("image." + info.getExtension().toLowerCase())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                : MediaType.APPLICATION_OCTET_STREAM;
+
+        // Range учитываем только для одного диапазона и только если If-Range совпадает с текущим ETag
+        long start = 0;
+        long end = total - 1;
+        boolean partial = false;
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.equals(etag)) {
+            try {
+                List<HttpRange> ranges = requestHeaders.getRange();
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(total);
+                    end = ranges.get(0).getRangeEnd(total);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                        .build();
+            }
+        }
+
+        long offset = start;
+        long length = total > 0 ? end - start + 1 : 0;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(contentType)
+                .contentLength(length)
+                .eTag(etag)
+                .cacheControl(info.getVersion().equals(version)
+                        ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                        : CacheControl.noCache())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + total);
+        }
+
+        if (HttpMethod.HEAD.equals(method) || length == 0) {
+            return response.build();
+        }
+        return response.body(out -> {
+            if (!productService.streamProductImage(info, offset, length, out) && !servletResponse.isCommitted()) {
+                // Изображение заменено или удалено после чтения метаданных: вместо тела с чужими ETag и длиной — 409,
+                // повторный запрос получит новую версию
+                servletResponse.reset();
+                servletResponse.setStatus(HttpStatus.CONFLICT.value());
+                servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            }
+        });
+    }
+
     @PostMapping("/image")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<String> addProductImage(
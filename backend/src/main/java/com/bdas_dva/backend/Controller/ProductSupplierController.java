@@ -3,6 +3,7 @@
 package com.bdas_dva.backend.Controller;
 
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.Product.ProductSupplier;
 import com.bdas_dva.backend.Service.ProductSupplierService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,25 @@ public class ProductSupplierController {
         }
     }
 
+    /**
+     * Страница связей продукт-поставщик с keyset-пагинацией по (PRODUKT_ID_PRODUKTU, DODAVATEL_ID_DODAVATELU).
+     * Пример: GET /api/product-suppliers/page?limit=100, далее /api/product-suppliers/page?cursor=<nextCursor>&limit=100
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getProductSuppliersPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            KeysetPage<ProductSupplier> page = productSupplierService.getProductSuppliersPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Ошибка при получении списка связей продукт-поставщик: " + e.getMessage());
+        }
+    }
+
     /**
      * Получение связи продукт-поставщик по составному ключу.
      * Пример: GET /api/product-suppliers?produktIdProduktu=1&DodavatelIdDodavatelyu=2
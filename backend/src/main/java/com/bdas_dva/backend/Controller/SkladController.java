@@ -1,5 +1,6 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.SkladRow;
 import com.bdas_dva.backend.Service.SkladService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -50,12 +51,12 @@ public class SkladController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllSklady() {
+    public ResponseEntity<List<SkladRow>> getAllSklady() {
         return ResponseEntity.ok(skladService.getAllSklady());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getSkladById(@PathVariable("id") Long id) {
+    public ResponseEntity<SkladRow> getSkladById(@PathVariable("id") Long id) {
         return ResponseEntity.ok(skladService.getSkladById(id));
     }
 }
@@ -1,5 +1,6 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.SupermarketRow;
 import com.bdas_dva.backend.Model.Supermarket;
 import com.bdas_dva.backend.Service.SupermarketService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,7 +8,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/supermarkets")
@@ -18,22 +18,22 @@ public class SupermarketController {
     private SupermarketService supermarketService;
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllSupermarkets() {
-        List<Map<String, Object>> supermarkets = supermarketService.getAllSupermarkets();
+    public ResponseEntity<List<SupermarketRow>> getAllSupermarkets() {
+        List<SupermarketRow> supermarkets = supermarketService.getAllSupermarkets();
         return ResponseEntity.ok(supermarkets);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getSupermarketById(@PathVariable("id") Long id) {
-        Map<String, Object> supermarket = supermarketService.getSupermarketById(id);
+    public ResponseEntity<SupermarketRow> getSupermarketById(@PathVariable("id") Long id) {
+        SupermarketRow supermarket = supermarketService.getSupermarketById(id);
         return ResponseEntity.ok(supermarket);
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<List<Map<String, Object>>> getFilteredSupermarkets(
+    public ResponseEntity<List<SupermarketRow>> getFilteredSupermarkets(
             @RequestParam(value = "name", required = false) String name,
             @RequestParam(value = "city", required = false) String city) {
-        List<Map<String, Object>> supermarkets = supermarketService.getFilteredSupermarkets(name, city);
+        List<SupermarketRow> supermarkets = supermarketService.getFilteredSupermarkets(name, city);
         return ResponseEntity.ok(supermarkets);
     }
 
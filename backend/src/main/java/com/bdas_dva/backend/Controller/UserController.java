@@ -8,6 +8,8 @@ import com.bdas_dva.backend.Service.UserService;
 import com.bdas_dva.backend.Service.ZakaznikService;
 import com.bdas_dva.backend.Service.AddressService;
 import com.bdas_dva.backend.Util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -39,20 +41,20 @@ public class UserController {
      */
     @GetMapping("/customer")
     @PreAuthorize("hasRole('USER') or hasRole('EMPLOYEE') or hasRole('ADMIN')")
-    public ResponseEntity<?> getUserAndCustomer(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+    public ResponseEntity<?> getUserAndCustomer(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                                HttpServletRequest request) {
         try {
             // Проверяем наличие токена в заголовке
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
                 return ResponseEntity.status(401).body("Отсутствует или некорректный заголовок Authorization");
             }
 
-            String token = authHeader.substring(7);
-
-            // Валидируем токен
-            if (!jwtUtil.validateToken(token)) {
+            // Токен уже проверен в AuthTokenFilter
+            Claims claims = JwtUtil.getRequestClaims(request);
+            if (claims == null) {
                 return ResponseEntity.status(401).body("Недействительный или просроченный JWT токен");
             }
-            String email = jwtUtil.getUserNameFromJwtToken(token);
+            String email = claims.getSubject();
 
             User user = userService.getUserByEmail(email);
 
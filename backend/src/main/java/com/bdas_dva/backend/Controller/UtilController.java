@@ -2,7 +2,21 @@
 package com.bdas_dva.backend.Controller;
 
 import com.bdas_dva.backend.Model.Log;
+import com.bdas_dva.backend.Security.PrincipalCache;
+import com.bdas_dva.backend.Service.EmployeeHierarchyService;
+import com.bdas_dva.backend.Service.OrderEventStreamService;
+import com.bdas_dva.backend.Service.OrderIntakeService;
+import com.bdas_dva.backend.Service.OrderSummaryService;
+import com.bdas_dva.backend.Service.PriceService;
 import com.bdas_dva.backend.Service.UtilService;
+import com.bdas_dva.backend.Service.ZamestnanecService;
+import com.bdas_dva.backend.Util.EmployeeDirectoryCache;
+import com.bdas_dva.backend.Util.IdempotencyStore;
+import com.bdas_dva.backend.Util.JwtUtil;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.bdas_dva.backend.Util.ProductCatalogCache;
+import com.bdas_dva.backend.Util.ProductSearchIndex;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +34,48 @@ public class UtilController {
     @Autowired
     private UtilService utilService;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    @Autowired
+    private ProductCatalogCache catalogCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private PriceService priceService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private OrderEventStreamService orderEventStreamService;
+
+    @Autowired
+    private EmployeeHierarchyService employeeHierarchyService;
+
+    @Autowired
+    private ZamestnanecService zamestnanecService;
+
+    @Autowired
+    private EmployeeDirectoryCache employeeDirectoryCache;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
     /**
      * Получить объекты для указанного владельца.
      * @return Список объектов и их типов.
@@ -43,9 +99,8 @@ public class UtilController {
     @GetMapping("/roles")
     public ResponseEntity<?> getUserRoles(HttpServletRequest request) {
         try {
-            // Получить роли через UtilService
-            List<Map<String, Object>> roles = utilService.getAllRoles();
-            return ResponseEntity.ok(roles);
+            // Роли из снимка справочников (ETag, 304 при If-None-Match)
+            return referenceData.response(ReferenceDataCache.Dataset.ROLES);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Ошибка при получении ролей: " + e.getMessage());
@@ -122,4 +177,167 @@ public class UtilController {
         }
     }
 
+    /**
+     * Статистика вызовов хранимых процедур: количество, ошибки и латентность.
+     * @return Список записей по каждой зарегистрированной процедуре.
+     */
+    @GetMapping("/procedures")
+    public ResponseEntity<?> getProcedureStatistics() {
+        return ResponseEntity.ok(procedures.getStatistics());
+    }
+
+    /**
+     * Статистика кеша каталога продуктов (hits / misses / evictions).
+     */
+    @GetMapping("/catalog-cache")
+    public ResponseEntity<?> getCatalogCacheStatistics() {
+        return ResponseEntity.ok(catalogCache.getStatistics());
+    }
+
+    /**
+     * Статистика поискового индекса продуктов (документы, термы, среднее время запроса).
+     */
+    @GetMapping("/search-index")
+    public ResponseEntity<?> getSearchIndexStatistics() {
+        return ResponseEntity.ok(searchIndex.getStatistics());
+    }
+
+    /**
+     * Ручной сброс кеша каталога продуктов.
+     */
+    @DeleteMapping("/catalog-cache")
+    public ResponseEntity<?> invalidateCatalogCache() {
+        catalogCache.invalidate();
+        return ResponseEntity.ok("Кеш каталога сброшен.");
+    }
+
+    /**
+     * Статистика кеша принципалов AuthTokenFilter.
+     */
+    @GetMapping("/principal-cache")
+    public ResponseEntity<?> getPrincipalCacheStatistics() {
+        return ResponseEntity.ok(principalCache.getStatistics());
+    }
+
+    /**
+     * Статистика кеша проверенных JWT токенов.
+     */
+    @GetMapping("/jwt-cache")
+    public ResponseEntity<?> getJwtCacheStatistics() {
+        return ResponseEntity.ok(jwtUtil.getVerificationStatistics());
+    }
+
+    /**
+     * Статистика ключей идемпотентности оформления заказов.
+     */
+    @GetMapping("/idempotency")
+    public ResponseEntity<?> getIdempotencyStatistics() {
+        return ResponseEntity.ok(idempotencyStore.getStatistics());
+    }
+
+    /**
+     * Метрики асинхронного приема заказов (глубина очереди, скорость разбора, отказы).
+     */
+    @GetMapping("/order-intake")
+    public ResponseEntity<?> getOrderIntakeStatistics() {
+        return ResponseEntity.ok(orderIntakeService.getStatistics());
+    }
+
+    /**
+     * Состояние серверной таблицы цен (версия, число товаров).
+     */
+    @GetMapping("/price-table")
+    public ResponseEntity<?> getPriceTableStatistics() {
+        return ResponseEntity.ok(priceService.getStatistics());
+    }
+
+    /**
+     * Состояние проекции заказов для фильтра администратора.
+     */
+    @GetMapping("/order-summary")
+    public ResponseEntity<?> getOrderSummaryStatistics() {
+        return ResponseEntity.ok(orderSummaryService.getStatistics());
+    }
+
+    /**
+     * Подписчики и счетчики потока событий заказов (SSE).
+     */
+    @GetMapping("/order-events")
+    public ResponseEntity<?> getOrderEventStatistics() {
+        return ResponseEntity.ok(orderEventStreamService.getStatistics());
+    }
+
+    /**
+     * Состояние графа оргструктуры сотрудников.
+     */
+    @GetMapping("/employee-hierarchy")
+    public ResponseEntity<?> getEmployeeHierarchyStatistics() {
+        return ResponseEntity.ok(employeeHierarchyService.getStatistics());
+    }
+
+    /**
+     * Состояние кеша справочника сотрудников.
+     */
+    @GetMapping("/employee-directory")
+    public ResponseEntity<?> getEmployeeDirectoryStatistics() {
+        return ResponseEntity.ok(employeeDirectoryCache.getStatistics());
+    }
+
+    /**
+     * Состояние снимка справочников (роли, позиции, статусы, форматы, категории).
+     */
+    @GetMapping("/reference-data")
+    public ResponseEntity<?> getReferenceDataStatistics() {
+        return ResponseEntity.ok(referenceData.getStatistics());
+    }
+
+    /**
+     * Сверка средних зарплат подчиненных из графа с proc_average_subordinate_salary.
+     */
+    @GetMapping("/employee-hierarchy/salary-check")
+    public ResponseEntity<?> checkEmployeeSalaries(@RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(zamestnanecService.verifySubordinateSalaries(limit));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка при сверке зарплат: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ручной сброс проекции заказов (например, после правок данных клиентов в обход API).
+     */
+    @DeleteMapping("/order-summary")
+    public ResponseEntity<?> invalidateOrderSummary() {
+        orderSummaryService.invalidate();
+        return ResponseEntity.ok("Проекция заказов сброшена.");
+    }
+
+    /**
+     * Ручной сброс графа оргструктуры (после правок ZAMNESTNANEC в обход API).
+     */
+    @DeleteMapping("/employee-hierarchy")
+    public ResponseEntity<?> invalidateEmployeeHierarchy() {
+        employeeHierarchyService.invalidate();
+        return ResponseEntity.ok("Граф оргструктуры сброшен.");
+    }
+
+    /**
+     * Ручной сброс справочника сотрудников.
+     */
+    @DeleteMapping("/employee-directory")
+    public ResponseEntity<?> invalidateEmployeeDirectory() {
+        employeeDirectoryCache.invalidate();
+        return ResponseEntity.ok("Справочник сотрудников сброшен.");
+    }
+
+    /**
+     * Ручной сброс кеша принципалов.
+     */
+    @DeleteMapping("/principal-cache")
+    public ResponseEntity<?> invalidatePrincipalCache() {
+        principalCache.invalidateAll();
+        return ResponseEntity.ok("Кеш принципалов сброшен.");
+    }
+
 }
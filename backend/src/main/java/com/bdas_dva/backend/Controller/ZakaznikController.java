@@ -1,5 +1,6 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.UserViewRow;
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
 import com.bdas_dva.backend.Model.Zakaznik;
 import com.bdas_dva.backend.Service.ZakaznikService;
@@ -23,7 +24,7 @@ public class ZakaznikController {
      * Получить всех пользователей.
      */
     @GetMapping("/all")
-    public List<Map<String, Object>> getAllUsers() {
+    public List<UserViewRow> getAllUsers() {
         return zakaznikService.getAllUsers();
     }
 
@@ -1,11 +1,16 @@
 package com.bdas_dva.backend.Controller;
 
+import com.bdas_dva.backend.Model.Rows.EmployeeSalaryRow;
 import com.bdas_dva.backend.Model.Zamestnanec.*;
+import com.bdas_dva.backend.Service.SalaryIndexationService;
 import com.bdas_dva.backend.Service.UtilService;
 import com.bdas_dva.backend.Service.ZamestnanecService;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.dao.DataAccessException;
 
@@ -22,6 +27,12 @@ public class ZamestnanecController {
     @Autowired
     private UtilService utilService;
 
+    @Autowired
+    private SalaryIndexationService salaryIndexationService;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
 
     /**
      * Získá detail zaměstnanca podle jeho ID.
@@ -73,6 +84,50 @@ public class ZamestnanecController {
         }
     }
 
+    /**
+     * Získá řetězec nadřízených zaměstnance (od vrcholu organizační struktury).
+     *
+     * @param idZamestnance ID zaměstnance.
+     * @return Seznam nadřízených včetně zaměstnance.
+     */
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @GetMapping("/hierarchy/{idZamestnance}/chain")
+    public ResponseEntity<?> getZamestnanecManagementChain(@PathVariable Long idZamestnance) {
+        try {
+            List<Zamestnanec> chain = zamestnanecService.getManagementChain(idZamestnance);
+            if (!chain.isEmpty()) {
+                return ResponseEntity.ok(chain);
+            } else {
+                return ResponseEntity.status(404).body("Zaměstnanec s tímto ID nebyl nalezen.");
+            }
+        } catch (DataAccessException dae) {
+            dae.printStackTrace();
+            return ResponseEntity.status(500).body("Databázová chyba při získávání zaměstnance.");
+        }
+    }
+
+    /**
+     * Získá pozici zaměstnance v organizační struktuře (nadřízený, hloubka, počet podřízených).
+     *
+     * @param idZamestnance ID zaměstnance.
+     * @return Údaje o pozici ve formátu JSON.
+     */
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @GetMapping("/hierarchy/{idZamestnance}/position")
+    public ResponseEntity<?> getZamestnanecHierarchyPosition(@PathVariable Long idZamestnance) {
+        try {
+            Map<String, Object> position = zamestnanecService.getHierarchyPosition(idZamestnance);
+            if (position != null) {
+                return ResponseEntity.ok(position);
+            } else {
+                return ResponseEntity.status(404).body("Zaměstnanec s tímto ID nebyl nalezen.");
+            }
+        } catch (DataAccessException dae) {
+            dae.printStackTrace();
+            return ResponseEntity.status(500).body("Databázová chyba při získávání zaměstnance.");
+        }
+    }
+
     /**
      * Získá seznam zaměstnanců s možností filtrování.
      * @return Seznam zaměstnanců ve formátu JSON.
@@ -92,6 +147,32 @@ public class ZamestnanecController {
         }
     }
 
+    /**
+     * Vyhledá zaměstnance v adresáři v paměti (jméno a příjmení podle začátku, ostatní přesně).
+     * Podmínky se liší od /filter, který vždy volá proc_zamnestnanec_r.
+     *
+     * @return Seznam zaměstnanců ve formátu JSON.
+     */
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @GetMapping("/search")
+    public ResponseEntity<?> searchZamestnanci(@RequestParam(required = false) Long idZamestnance,
+                                               @RequestParam(required = false) String jmeno,
+                                               @RequestParam(required = false) String prijmeni,
+                                               @RequestParam(required = false) Long supermarketId,
+                                               @RequestParam(required = false) Long skladId,
+                                               @RequestParam(required = false) Long poziceId) {
+        try {
+            return ResponseEntity.ok(zamestnanecService.searchZamestnanci(
+                    idZamestnance, jmeno, prijmeni, supermarketId, skladId, poziceId));
+        } catch (DataAccessException dae) {
+            dae.printStackTrace();
+            return ResponseEntity.status(500).body("Databázová chyba při získávání zaměstnanců.");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Chyba při získávání zaměstnanců: " + e.getMessage());
+        }
+    }
+
     /**
      * Vytvoří nového zaměstnance.
      *
@@ -188,8 +269,7 @@ public class ZamestnanecController {
     @GetMapping("/pozice")
     public ResponseEntity<?> getAllPozice() {
         try {
-            List<Map<String, Object>> pozice = zamestnanecService.getAllPozice();
-            return ResponseEntity.ok(pozice);
+            return referenceData.response(ReferenceDataCache.Dataset.POSITIONS);
         } catch (DataAccessException dae) {
             dae.printStackTrace();
             return ResponseEntity.status(500).body("Ошибка базы данных при получении списка позиций.");
@@ -299,6 +379,28 @@ public class ZamestnanecController {
         }
     }
 
+    /**
+     * Фонд оплаты отдела руководителя (он сам и все подчиненные).
+     *
+     * @param idZamestnance ID руководителя.
+     * @return Количество, сумма, минимум, максимум и средние зарплаты.
+     */
+    @PreAuthorize("hasRole('EMPLOYEE') or hasRole('ADMIN')")
+    @GetMapping("/{id}/salary-summary")
+    public ResponseEntity<?> getSalarySummary(@PathVariable("id") Long idZamestnance) {
+        try {
+            Map<String, Object> summary = zamestnanecService.getSalarySummary(idZamestnance);
+            if (summary != null) {
+                return ResponseEntity.ok(summary);
+            } else {
+                return ResponseEntity.status(404).body("Zaměstnanec s tímto ID nebyl nalezen.");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка при получении фонда оплаты: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/apply-salary-indexation")
     public ResponseEntity<?> applySalaryIndexation(@RequestBody Map<String, Double> indexationData) {
         try {
@@ -317,10 +419,80 @@ public class ZamestnanecController {
         }
     }
 
+    /**
+     * Запуск фонового задания индексации зарплат (чанками по супермаркетам и складам).
+     * Каждый чанк индексируется процедурой proc_apply_salary_indexation_ids по тому же правилу, что и /apply-salary-indexation.
+     *
+     * @param indexationData minPercentage и maxPercentage.
+     * @return 202 с ID задания и status URL.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/salary-indexation/jobs")
+    public ResponseEntity<?> startSalaryIndexationJob(@RequestBody Map<String, Double> indexationData) {
+        Double minPercentage = indexationData.get("minPercentage");
+        Double maxPercentage = indexationData.get("maxPercentage");
+        if (minPercentage == null || maxPercentage == null) {
+            return ResponseEntity.badRequest().body("Missing minPercentage or maxPercentage.");
+        }
+
+        try {
+            String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+            SalaryIndexationService.Job job = salaryIndexationService.startJob(minPercentage, maxPercentage, owner);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/zamestnanci/salary-indexation/jobs/" + job.getId())
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (SalaryIndexationService.JobRunningException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка при запуске индексации: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Прогресс и throughput задания индексации.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/salary-indexation/jobs/{jobId}")
+    public ResponseEntity<?> getSalaryIndexationJob(@PathVariable String jobId) {
+        SalaryIndexationService.Job job = salaryIndexationService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body("Задание индексации не найдено.");
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Последние задания индексации.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/salary-indexation/jobs")
+    public ResponseEntity<?> getSalaryIndexationJobs() {
+        return ResponseEntity.ok(salaryIndexationService.getJobs());
+    }
+
+    /**
+     * Продолжение упавшего задания индексации с незакоммиченных чанков.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/salary-indexation/jobs/{jobId}/resume")
+    public ResponseEntity<?> resumeSalaryIndexationJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.accepted().body(salaryIndexationService.resumeJob(jobId));
+        } catch (SalaryIndexationService.JobStateException | SalaryIndexationService.JobRunningException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Ошибка при продолжении индексации: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/all-salaries")
     public ResponseEntity<?> getAllEmployeesFromView() {
         try {
-            List<Map<String, Object>> employees = zamestnanecService.getAllEmployeesFromView();
+            List<EmployeeSalaryRow> employees = zamestnanecService.getAllEmployeesFromView();
             return ResponseEntity.ok(employees);
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,43 @@
+package com.bdas_dva.backend.Model;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации: элементы, упорядоченные по первичному ключу,
+ * и непрозрачный курсор для запроса следующей страницы (null — страниц больше нет).
+ */
+public class KeysetPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private int limit;
+
+    public KeysetPage(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bdas_dva.backend.Model.OrderProduct;
+
+import java.util.List;
+
+/**
+ * Kalkulace košíku podle serverových cen.
+ *
+ * @param priceVersion               verze ceníku, ze které byla kalkulace spočítána
+ * @param total                      celková částka podle serverových cen
+ * @param lines                      položky košíku s jednotkovou cenou a mezisoučtem
+ * @param unknownProductIds          produkty, které neexistují (nebo byly smazány)
+ * @param invalidQuantityProductIds  produkty s neplatným množstvím (null nebo menší než 1)
+ * @param unavailableProductIds      produkty bez přiřazeného skladu
+ */
+public record BasketQuote(long priceVersion,
+                          double total,
+                          List<Line> lines,
+                          List<Long> unknownProductIds,
+                          List<Long> invalidQuantityProductIds,
+                          List<Long> unavailableProductIds) {
+
+    /**
+     * Položka košíku. clientPrice je cena, kterou poslal klient (pro zobrazení změny ceny).
+     */
+    public record Line(Long productId, int quantity, double unitPrice, double lineTotal,
+                       Double clientPrice, boolean priceChanged) {
+    }
+
+    public boolean isValid() {
+        return unknownProductIds.isEmpty() && invalidQuantityProductIds.isEmpty() && unavailableProductIds.isEmpty();
+    }
+}
@@ -0,0 +1,9 @@
+package com.bdas_dva.backend.Model.OrderProduct;
+
+import java.util.List;
+
+/**
+ * Hromadná změna stavu: ID objednávek a cílový stav.
+ */
+public record BulkStatusRequest(List<Long> orderIds, Long status) {
+}
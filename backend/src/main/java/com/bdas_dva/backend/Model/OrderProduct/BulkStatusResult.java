@@ -0,0 +1,17 @@
+package com.bdas_dva.backend.Model.OrderProduct;
+
+import java.util.List;
+
+/**
+ * Výsledek hromadné změny stavu s výsledkem pro každé ID objednávky (v pořadí požadavku).
+ */
+public record BulkStatusResult(Long statusId, int requested, int updated, int notFound, int failed,
+                               int roundTrips, List<Item> results) {
+
+    public enum Outcome {
+        UPDATED, NOT_FOUND, FAILED
+    }
+
+    public record Item(Long orderId, Outcome outcome, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.bdas_dva.backend.Model.OrderProduct;
+
+/**
+ * Výsledek vytvoření objednávky: ID objednávky a ID platby.
+ */
+public record CheckoutResult(Long orderId, Long paymentId) {
+}
@@ -0,0 +1,18 @@
+package com.bdas_dva.backend.Model.OrderProduct;
+
+import java.time.Instant;
+
+/**
+ * Událost změny objednávky pro proud /api/order-statuses/stream.
+ * customerId může chybět — doplní se při doručení, pokud je potřeba pro filtrování odběratelů.
+ */
+public record OrderStatusEvent(Type type, Long orderId, Long statusId, Long customerId, Instant occurredAt) {
+
+    public enum Type {
+        CREATED, STATUS_CHANGED, UPDATED, DELETED
+    }
+
+    public OrderStatusEvent withCustomerId(Long customerId) {
+        return new OrderStatusEvent(type, orderId, statusId, customerId, occurredAt);
+    }
+}
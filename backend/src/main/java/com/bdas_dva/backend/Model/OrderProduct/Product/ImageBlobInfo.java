@@ -0,0 +1,62 @@
+// ImageBlobInfo.java
+package com.bdas_dva.backend.Model.OrderProduct.Product;
+
+import java.sql.Timestamp;
+
+/**
+ * Метаданные изображения продукта без самого BLOB — для потоковой отдачи.
+ */
+public class ImageBlobInfo {
+    private Long imageId;
+    private Long productId;
+    private long length;
+    private Timestamp modified;
+    private String extension; // ROZIRENI из FORMAT_OBRAZKU, например "png"
+
+    /**
+     * Сильный ETag: меняется при любой замене изображения (ID, размер или дата модификации).
+     */
+    public String getETag() {
+        return "\"" + getVersion() + "\"";
+    }
+
+    /**
+     * Версия изображения без кавычек — используется как параметр v в ссылке на изображение.
+     */
+    public String getVersion() {
+        long modifiedMillis = modified != null ? modified.getTime() : 0L;
+        return Long.toHexString(imageId) + "-" + Long.toHexString(length) + "-" + Long.toHexString(modifiedMillis);
+    }
+
+    // Getters and setters
+    public Long getImageId() {
+        return imageId;
+    }
+    public void setImageId(Long imageId) {
+        this.imageId = imageId;
+    }
+    public Long getProductId() {
+        return productId;
+    }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    public long getLength() {
+        return length;
+    }
+    public void setLength(long length) {
+        this.length = length;
+    }
+    public Timestamp getModified() {
+        return modified;
+    }
+    public void setModified(Timestamp modified) {
+        this.modified = modified;
+    }
+    public String getExtension() {
+        return extension;
+    }
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+}
@@ -8,6 +8,8 @@ public class Product {
     private Long categoryId;
     private Long skladId;
     private String image;
+    private String imageUrl;  // ссылка на /api/products/{id}/image/raw вместо Base64 в списке
+    private String imageEtag;
     private Integer quantity;
     private String description;
 
@@ -83,4 +85,20 @@ public class Product {
         this.image = image;
     }
 
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public String getImageEtag() {
+        return imageEtag;
+    }
+
+    public void setImageEtag(String imageEtag) {
+        this.imageEtag = imageEtag;
+    }
+
 }
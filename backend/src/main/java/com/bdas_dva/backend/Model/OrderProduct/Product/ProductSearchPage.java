@@ -0,0 +1,52 @@
+package com.bdas_dva.backend.Model.OrderProduct.Product;
+
+import java.util.List;
+
+/**
+ * Страница результатов полнотекстового поиска продуктов.
+ */
+public class ProductSearchPage {
+    private List<Product> items;
+    private int total;
+    private int page;
+    private int size;
+
+    public ProductSearchPage(List<Product> items, int total, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Product> items) {
+        this.items = items;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
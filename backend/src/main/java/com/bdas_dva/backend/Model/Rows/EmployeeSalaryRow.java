@@ -0,0 +1,25 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Строка представления vw_employee_details (ставка и отработанные часы).
+ */
+public record EmployeeSalaryRow(
+        @JsonProperty("EMPLOYEE_ID") Long employeeId,
+        @JsonProperty("FIRST_NAME") String firstName,
+        @JsonProperty("LAST_NAME") String lastName,
+        @JsonProperty("HOURLY_WAGE") Double hourlyWage,
+        @JsonProperty("WORKING_HOURS") Double workingHours) {
+
+    public static final String COLUMNS = "EMPLOYEE_ID, FIRST_NAME, LAST_NAME, HOURLY_WAGE, WORKING_HOURS";
+
+    public static final RowMapper<EmployeeSalaryRow> ROW_MAPPER = (rs, rowNum) -> new EmployeeSalaryRow(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            rs.getString(3),
+            ResultSetValues.getDouble(rs, 4),
+            ResultSetValues.getDouble(rs, 5));
+}
@@ -0,0 +1,29 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+
+/**
+ * Метаданные изображения из таблицы OBRAZEK (без BLOB).
+ */
+public record ImageMeta(
+        @JsonProperty("ID_OBRAZKU") Long idObrazku,
+        @JsonProperty("NAZEV") String nazev,
+        @JsonProperty("DATUMNAHRANI") Timestamp datumNahrani,
+        @JsonProperty("DATUMMODIFIKACE") Timestamp datumModifikace,
+        @JsonProperty("PRODUKT_ID_PRODUKTU") Long produktIdProduktu,
+        @JsonProperty("FORMAT_ID_FORMATU") Long formatIdFormatu) {
+
+    public static final String COLUMNS = "ID_OBRAZKU, NAZEV, DATUMNAHRANI, DATUMMODIFIKACE, PRODUKT_ID_PRODUKTU, FORMAT_ID_FORMATU";
+
+    public static final RowMapper<ImageMeta> ROW_MAPPER = (rs, rowNum) -> new ImageMeta(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            rs.getTimestamp(3),
+            rs.getTimestamp(4),
+            ResultSetValues.getLong(rs, 5),
+            ResultSetValues.getLong(rs, 6));
+}
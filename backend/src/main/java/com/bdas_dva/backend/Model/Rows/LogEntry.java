@@ -0,0 +1,29 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+
+/**
+ * Запись таблицы LOG.
+ */
+public record LogEntry(
+        @JsonProperty("ID_LOGU") Long idLogu,
+        @JsonProperty("OPERACE") String operace,
+        @JsonProperty("NAZEVTABULKY") String nazevTabulky,
+        @JsonProperty("DATUMMODIFIKACE") Timestamp datumModifikace,
+        @JsonProperty("OLDVALUES") String oldValues,
+        @JsonProperty("NEWVALUES") String newValues) {
+
+    public static final String COLUMNS = "ID_LOGU, OPERACE, NAZEVTABULKY, DATUMMODIFIKACE, OLDVALUES, NEWVALUES";
+
+    public static final RowMapper<LogEntry> ROW_MAPPER = (rs, rowNum) -> new LogEntry(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getTimestamp(4),
+            rs.getString(5),
+            rs.getString(6));
+}
@@ -0,0 +1,53 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Строка ORDER_DETAILS_VIEW для фильтра заказов администратора.
+ * Столбцы сериализуются как есть (ключи в верхнем регистре), а при maskPhone телефон клиента
+ * маскируется во время сериализации — общая строка проекции не копируется и не изменяется.
+ */
+@JsonSerialize(using = OrderSummaryRow.Serializer.class)
+public record OrderSummaryRow(Map<String, Object> columns, boolean maskPhone) {
+
+    public static final String PHONE_COLUMN = "CUSTOMER_PHONE";
+
+    /**
+     * Маскирование всех цифр, кроме последних четырех.
+     */
+    public static String maskPhoneNumber(String phoneNumber) {
+        if (phoneNumber.length() > 4) {
+            return phoneNumber.substring(0, phoneNumber.length() - 4).replaceAll("[0-9]", "*")
+                    + phoneNumber.substring(phoneNumber.length() - 4);
+        }
+        return phoneNumber.replaceAll("[0-9]", "*");
+    }
+
+    public static class Serializer extends StdSerializer<OrderSummaryRow> {
+
+        public Serializer() {
+            super(OrderSummaryRow.class);
+        }
+
+        @Override
+        public void serialize(OrderSummaryRow row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            for (Map.Entry<String, Object> column : row.columns().entrySet()) {
+                Object value = column.getValue();
+                if (row.maskPhone() && PHONE_COLUMN.equals(column.getKey()) && value != null
+                        && !value.toString().isEmpty()) {
+                    gen.writeStringField(column.getKey(), maskPhoneNumber(value.toString()));
+                } else {
+                    provider.defaultSerializeField(column.getKey(), value, gen);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+
+/**
+ * Строка таблицы PLATBA для фильтров и поиска по ID.
+ */
+public record PaymentRow(
+        @JsonProperty("ID_PLATBY") Long idPlatby,
+        @JsonProperty("SUMA") Double suma,
+        @JsonProperty("DATUM") Timestamp datum,
+        @JsonProperty("TYP") String typ,
+        @JsonProperty("OBJEDNAVKA_ID_OBJEDNAVKY") Long objednavkaIdObjednavky) {
+
+    public static final String COLUMNS = "ID_PLATBY, SUMA, DATUM, TYP, OBJEDNAVKA_ID_OBJEDNAVKY";
+
+    public static final RowMapper<PaymentRow> ROW_MAPPER = (rs, rowNum) -> new PaymentRow(
+            ResultSetValues.getLong(rs, 1),
+            ResultSetValues.getDouble(rs, 2),
+            rs.getTimestamp(3),
+            rs.getString(4),
+            ResultSetValues.getLong(rs, 5));
+}
@@ -0,0 +1,25 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Строка таблицы SKLAD.
+ */
+public record SkladRow(
+        @JsonProperty("ID_SKLADU") Long idSkladu,
+        @JsonProperty("NAZEV") String nazev,
+        @JsonProperty("TELEFON") Long telefon,
+        @JsonProperty("EMAIL") String email,
+        @JsonProperty("ADRESA_ID_ADRESY") Long adresaIdAdresy) {
+
+    public static final String COLUMNS = "ID_SKLADU, NAZEV, TELEFON, EMAIL, ADRESA_ID_ADRESY";
+
+    public static final RowMapper<SkladRow> ROW_MAPPER = (rs, rowNum) -> new SkladRow(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            ResultSetValues.getLong(rs, 3),
+            rs.getString(4),
+            ResultSetValues.getLong(rs, 5));
+}
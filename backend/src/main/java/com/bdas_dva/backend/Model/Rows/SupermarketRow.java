@@ -0,0 +1,26 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Строка таблицы SUPERMARKET.
+ */
+public record SupermarketRow(
+        @JsonProperty("ID_SUPERMARKETU") Long idSupermarketu,
+        @JsonProperty("NAZEV") String nazev,
+        @JsonProperty("TELEFON") Long telefon,
+        @JsonProperty("EMAIL") String email,
+        @JsonProperty("ADRESA_ID_ADRESY") Long adresaIdAdresy) {
+
+    // С алиасом sm: фильтр по городу соединяет SUPERMARKET с ADRESA
+    public static final String COLUMNS = "sm.ID_SUPERMARKETU, sm.NAZEV, sm.TELEFON, sm.EMAIL, sm.ADRESA_ID_ADRESY";
+
+    public static final RowMapper<SupermarketRow> ROW_MAPPER = (rs, rowNum) -> new SupermarketRow(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            ResultSetValues.getLong(rs, 3),
+            rs.getString(4),
+            ResultSetValues.getLong(rs, 5));
+}
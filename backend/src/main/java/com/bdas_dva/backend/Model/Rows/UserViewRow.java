@@ -0,0 +1,37 @@
+package com.bdas_dva.backend.Model.Rows;
+
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Строка представления USER_VIEW (заказчик с пользователем и адресом).
+ */
+public record UserViewRow(
+        @JsonProperty("ID_ZAKAZNIKU") Long idZakazniku,
+        @JsonProperty("JMENO") String jmeno,
+        @JsonProperty("PRIJMENI") String prijmeni,
+        @JsonProperty("ID_USER") Long idUser,
+        @JsonProperty("TELEFON") Long telefon,
+        @JsonProperty("EMAIL") String email,
+        @JsonProperty("ID_ADRESY") Long idAdresy,
+        @JsonProperty("ULICE") String ulice,
+        @JsonProperty("CISLOPOPISNE") String cisloPopisne,
+        @JsonProperty("MESTO") String mesto,
+        @JsonProperty("PSC") String psc) {
+
+    public static final String COLUMNS = "ID_ZAKAZNIKU, JMENO, PRIJMENI, ID_USER, TELEFON, EMAIL, ID_ADRESY, ULICE, CISLOPOPISNE, MESTO, PSC";
+
+    public static final RowMapper<UserViewRow> ROW_MAPPER = (rs, rowNum) -> new UserViewRow(
+            ResultSetValues.getLong(rs, 1),
+            rs.getString(2),
+            rs.getString(3),
+            ResultSetValues.getLong(rs, 4),
+            ResultSetValues.getLong(rs, 5),
+            rs.getString(6),
+            ResultSetValues.getLong(rs, 7),
+            rs.getString(8),
+            rs.getString(9),
+            rs.getString(10),
+            rs.getString(11));
+}
@@ -0,0 +1,6 @@
+/**
+ * Типизированные строки для списков, которые раньше отдавались через queryForList.
+ * JSON ключи записей — имена столбцов, поэтому формат ответов не изменился.
+ * COLUMNS — список столбцов для SELECT в том порядке, в котором их читает ROW_MAPPER по индексам.
+ */
+package com.bdas_dva.backend.Model.Rows;
@@ -1,7 +1,10 @@
 package com.bdas_dva.backend.Security;
 
 import com.bdas_dva.backend.Util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -24,6 +27,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    // true — принципал строится только из проверенных claims токена (role, uid), без БД.
+    // Изменение роли или удаление пользователя тогда вступает в силу только с новым токеном.
+    @Value("${auth.principal.from-claims:false}")
+    private boolean principalFromClaims;
+
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -34,10 +45,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                String email = jwtUtil.getUserNameFromJwtToken(jwt);
+            Claims claims = jwt != null ? jwtUtil.verifyToken(jwt) : null;
+            if (claims != null) {
+                // Контроллеры берут проверенные claims отсюда, не разбирая заголовок повторно
+                request.setAttribute(JwtUtil.CLAIMS_ATTRIBUTE, claims);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                UserDetails userDetails = resolvePrincipal(claims);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -57,6 +70,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(Claims claims) {
+        String email = claims.getSubject();
+        String role = claims.get("role", String.class);
+        Number uid = claims.get("uid", Number.class);
+        if (principalFromClaims && role != null && uid != null) {
+            return new CustomUserDetails(uid.longValue(), email, null, new SimpleGrantedAuthority(role));
+        }
+
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        return principalCache.get(email, issuedAt,
+                () -> (CustomUserDetails) userDetailsService.loadUserByUsername(email));
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
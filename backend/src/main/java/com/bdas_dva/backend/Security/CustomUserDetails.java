@@ -25,7 +25,7 @@ public class CustomUserDetails implements UserDetails {
     }
 
     public static CustomUserDetails build(User user) {
-        String roleName = getRoleNameById(user.getRoleIdRole());
+        String roleName = roleAuthority(user.getRoleIdRole());
         GrantedAuthority authority = new SimpleGrantedAuthority(roleName);
 
         return new CustomUserDetails(
@@ -35,7 +35,11 @@ public class CustomUserDetails implements UserDetails {
                 authority);
     }
 
-    private static String getRoleNameById(Long roleId) {
+    /**
+     * Authority по ID роли. Сопоставление фиксированное и общее для принципала и claim "role" в JWT:
+     * ROLE.ROLENAME редактируется через proc_role_cud и для прав доступа не используется.
+     */
+    public static String roleAuthority(Long roleId) {
         switch (roleId.intValue()) {
             case 1:
                 return "ROLE_USER";
@@ -0,0 +1,118 @@
+package com.bdas_dva.backend.Security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU кеш принципалов для AuthTokenFilter, чтобы не читать пользователя из БД на каждый запрос.
+ * Ключ — email и время выпуска токена (iat): новый логин дает новый ключ,
+ * а старые записи вытесняются по размеру или истекают по TTL.
+ * UserService и UtilService сбрасывают записи после коммита изменения пользователя или ролей.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Key(String email, long issuedAt) {
+    }
+
+    private record Entry(CustomUserDetails principal, long expiresAtNanos) {
+    }
+
+    @Value("${auth.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    // access-order LinkedHashMap: get() перемещает запись в конец, первая запись — самая старая
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Увеличивается при каждом сбросе (под блокировкой entries): принципал, загруженный до сброса, не кешируется
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Принципал из кеша или из loader при промахе / истекшей записи.
+     * loader вызывается вне блокировки, поэтому медленная БД не блокирует другие запросы.
+     * Если во время загрузки был сброс (evictUser / invalidateAll), результат возвращается, но не кешируется.
+     */
+    public CustomUserDetails get(String email, long issuedAt, Supplier<CustomUserDetails> loader) {
+        Key key = new Key(email.toLowerCase(), issuedAt);
+        long now = System.nanoTime();
+        long startGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.expiresAtNanos() < 0) {
+                hits.increment();
+                return entry.principal();
+            }
+            startGeneration = generation;
+        }
+
+        misses.increment();
+        CustomUserDetails principal = loader.get();
+        synchronized (entries) {
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(principal, now + ttlSeconds * 1_000_000_000L));
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Сброс записей пользователя (после UPDATE / DELETE). Email может измениться при UPDATE,
+     * поэтому записи ищутся и по ID, и по email.
+     */
+    public void evictUser(Long idUser, String email) {
+        synchronized (entries) {
+            generation++;
+            entries.values().removeIf(entry ->
+                    (idUser != null && idUser.equals(entry.principal().getId()))
+                            || (email != null && email.equalsIgnoreCase(entry.principal().getUsername())));
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Полный сброс (изменение ролей затрагивает всех пользователей).
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
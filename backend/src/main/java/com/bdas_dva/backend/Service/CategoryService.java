@@ -2,6 +2,9 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Model.OrderProduct.Product.Category;
+import com.bdas_dva.backend.Util.ProductCatalogCache;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.CallableStatementCallback;
@@ -18,9 +21,23 @@ public class CategoryService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    // Получение списка категорий
-    @Transactional(rollbackFor = Exception.class)
+    @Autowired
+    private ProductCatalogCache catalogCache;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    @PostConstruct
+    public void setUp() {
+        referenceData.register(ReferenceDataCache.Dataset.CATEGORIES, this::loadCategories);
+    }
+
+    // Получение списка категорий (из снимка справочников, неизменяемый список)
     public List<Category> getCategories() {
+        return referenceData.get(ReferenceDataCache.Dataset.CATEGORIES);
+    }
+
+    private List<Category> loadCategories() {
         List<Category> categories = jdbcTemplate.execute("{call proc_kategorie_produktu_r(?, ?, ?)}",
                 (CallableStatementCallback<List<Category>>) cs -> {
                     cs.setNull(1, Types.NUMERIC); // p_id_kategorie
@@ -59,6 +76,7 @@ public class CategoryService {
             cs.execute();
             return null;
         });
+        referenceData.refresh(ReferenceDataCache.Dataset.CATEGORIES);
     }
 
     // Обновление существующей категории
@@ -71,6 +89,8 @@ public class CategoryService {
             cs.execute();
             return null;
         });
+        catalogCache.renameCategory(id, name);
+        referenceData.refresh(ReferenceDataCache.Dataset.CATEGORIES);
     }
 
     // Удаление категории
@@ -83,5 +103,7 @@ public class CategoryService {
             cs.execute();
             return null;
         });
+        catalogCache.removeCategory(id);
+        referenceData.refresh(ReferenceDataCache.Dataset.CATEGORIES);
     }
 }
@@ -1,9 +1,8 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,20 +21,19 @@ public class DodavatelService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    private ProcedureCallRegistry.ProcedureCall procDodavatelCud;
+
+    @Autowired
+    public void setUp() {
+        this.procDodavatelCud = procedures.get("proc_dodavatel_cud");
+    }
+
     @Transactional(rollbackFor = Exception.class)
     public void addDodavatel(String name, String contactPerson, Long phone, String email) {
         try {
-            SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                    .withProcedureName("proc_dodavatel_cud")
-                    .declareParameters(
-                            new SqlParameter("p_action", Types.VARCHAR),
-                            new SqlParameter("p_id_dodavatelu", Types.NUMERIC),
-                            new SqlParameter("p_nazev", Types.VARCHAR),
-                            new SqlParameter("p_kontaktni_osoba", Types.VARCHAR),
-                            new SqlParameter("p_telefon", Types.NUMERIC),
-                            new SqlParameter("p_email", Types.VARCHAR)
-                    );
-
             Map<String, Object> inParams = new HashMap<>();
             inParams.put("p_action", "INSERT");
             inParams.put("p_id_dodavatelu", null);
@@ -44,7 +42,7 @@ public class DodavatelService {
             inParams.put("p_telefon", phone);
             inParams.put("p_email", email);
 
-            jdbcCall.execute(inParams);
+            procDodavatelCud.execute(inParams);
         } catch (Exception e) {
             throw new RuntimeException("Error adding supplier: " + e.getMessage(), e);
         }
@@ -53,17 +51,6 @@ public class DodavatelService {
 
     @Transactional(rollbackFor = Exception.class)
     public void updateDodavatel(Long dodavatelId, String name, String contactPerson, Long phone, String email) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_dodavatel_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_dodavatelu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_kontaktni_osoba", Types.VARCHAR),
-                        new SqlParameter("p_telefon", Types.NUMERIC),
-                        new SqlParameter("p_email", Types.VARCHAR)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_dodavatelu", dodavatelId);
@@ -72,23 +59,20 @@ public class DodavatelService {
         inParams.put("p_telefon", phone);
         inParams.put("p_email", email);
 
-        jdbcCall.execute(inParams);
+        procDodavatelCud.execute(inParams);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void deleteDodavatel(Long dodavatelId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_dodavatel_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_dodavatelu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
         inParams.put("p_id_dodavatelu", dodavatelId);
+        inParams.put("p_nazev", null);
+        inParams.put("p_kontaktni_osoba", null);
+        inParams.put("p_telefon", null);
+        inParams.put("p_email", null);
 
-        jdbcCall.execute(inParams);
+        procDodavatelCud.execute(inParams);
     }
 
     public List<Map<String, Object>> getAllDodavatele() {
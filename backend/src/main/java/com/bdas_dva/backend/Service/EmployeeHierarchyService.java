@@ -0,0 +1,624 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.Zamestnanec.Zamestnanec;
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Оргструктура сотрудников в памяти (ZAMNESTNANEC.ZAMNESTNANEC_ID_ZAMNESTNANCE — ID руководителя).
+ * Граф хранится в примитивных массивах: индекс родителя, списки подчиненных (CSR) и интервалы
+ * обхода в глубину [tin, tout), поэтому поддерево — непрерывный отрезок массива order,
+ * число подчиненных и глубина считаются за O(1), а путь до корня — за O(глубины).
+ * Снимок графа неизменяемый: читатели не блокируются, изменения собирают новый снимок и подменяют ссылку.
+ * Для каждого узла хранятся агрегаты MZDA по поддереву (число, сумма, минимум, максимум), поэтому
+ * средняя зарплата подчиненных и фонд оплаты отдела руководителя не требуют обхода дерева в БД.
+ * Загрузка целиком — при первом обращении и по истечении employee-hierarchy.refresh-seconds,
+ * записи через proc_zamnestnanec_cud и proc_zamestnanec_register перечитывают только свои строки.
+ */
+@Service
+public class EmployeeHierarchyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeHierarchyService.class);
+
+    private static final String EMPLOYEE_QUERY = "SELECT ID_ZAMNESTNANCE, ZAMNESTNANEC_ID_ZAMNESTNANCE, JMENO, PRIJMENI, "
+            + "POZICE_ID_POZICE, MZDA, SUPERMARKET_ID_SUPERMARKETU, SKLAD_ID_SKLADU, PRACOVNIDOBA FROM ZAMNESTNANEC";
+
+    /**
+     * Атрибуты сотрудника, нужные для ответа /api/zamestnanci/hierarchy/{id}.
+     */
+    public record EmployeeNode(long id, Long managerId, String jmeno, String prijmeni, Long poziceId,
+                               Double mzda, Long supermarketId, Long skladId, Integer pracovnidoba) {
+    }
+
+    private static final double SALARY_TOLERANCE = 0.01;
+
+    private static final RowMapper<EmployeeNode> NODE_MAPPER = (rs, rowNum) -> {
+        Double pracovnidoba = ResultSetValues.getDouble(rs, 9);
+        return new EmployeeNode(
+                rs.getLong(1),
+                ResultSetValues.getLong(rs, 2),
+                rs.getString(3),
+                rs.getString(4),
+                ResultSetValues.getLong(rs, 5),
+                ResultSetValues.getDouble(rs, 6),
+                ResultSetValues.getLong(rs, 7),
+                ResultSetValues.getLong(rs, 8),
+                pracovnidoba != null ? pracovnidoba.intValue() : null);
+    };
+
+    /**
+     * Неизменяемый снимок графа. Все массивы индексируются позицией сотрудника в ids (по возрастанию ID).
+     */
+    static final class Graph {
+        final long[] ids;
+        final EmployeeNode[] nodes;
+        final int[] parent;       // -1 у корней
+        final int[] childStart;   // подчиненные v: children[childStart[v] .. childStart[v + 1])
+        final int[] children;
+        final int[] tin;          // позиция v в order
+        final int[] tout;         // конец поддерева v в order (не включительно)
+        final int[] order;        // прямой порядок обхода, order[tin[v]] == v
+        final int[] depth;        // 0 у корней
+        final int brokenCycles;
+
+        // Агрегаты MZDA по поддереву v включая самого v; сотрудники без MZDA не учитываются
+        final int[] salaried;
+        final double[] salarySum;
+        final double[] salaryMin;  // +Infinity, если в поддереве нет зарплат
+        final double[] salaryMax;  // -Infinity, если в поддереве нет зарплат
+
+        private Graph(long[] ids, EmployeeNode[] nodes, int[] parent, int[] childStart, int[] children,
+                      int[] tin, int[] tout, int[] order, int[] depth, int brokenCycles,
+                      int[] salaried, double[] salarySum, double[] salaryMin, double[] salaryMax) {
+            this.ids = ids;
+            this.nodes = nodes;
+            this.parent = parent;
+            this.childStart = childStart;
+            this.children = children;
+            this.tin = tin;
+            this.tout = tout;
+            this.order = order;
+            this.depth = depth;
+            this.brokenCycles = brokenCycles;
+            this.salaried = salaried;
+            this.salarySum = salarySum;
+            this.salaryMin = salaryMin;
+            this.salaryMax = salaryMax;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int indexOf(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? index : -1;
+        }
+
+        int subordinates(int v) {
+            return tout[v] - tin[v] - 1;
+        }
+
+        /**
+         * Та же структура с другими атрибутами сотрудников (руководители не менялись).
+         * Агрегаты пересчитываются только на пути от измененных сотрудников к корню.
+         */
+        Graph withNodes(EmployeeNode[] replaced, Collection<Integer> changed) {
+            int[] newSalaried = salaried;
+            double[] newSum = salarySum;
+            double[] newMin = salaryMin;
+            double[] newMax = salaryMax;
+            for (int v : changed) {
+                if (Objects.equals(nodes[v].mzda(), replaced[v].mzda())) {
+                    continue;
+                }
+                if (newSum == salarySum) {
+                    newSalaried = salaried.clone();
+                    newSum = salarySum.clone();
+                    newMin = salaryMin.clone();
+                    newMax = salaryMax.clone();
+                }
+                for (int u = v; u >= 0; u = parent[u]) {
+                    aggregate(u, replaced, childStart, children, newSalaried, newSum, newMin, newMax);
+                }
+            }
+            return new Graph(ids, replaced, parent, childStart, children, tin, tout, order, depth, brokenCycles,
+                    newSalaried, newSum, newMin, newMax);
+        }
+
+        // Агрегаты v из собственной зарплаты и уже посчитанных агрегатов прямых подчиненных, O(подчиненных)
+        private static void aggregate(int v, EmployeeNode[] nodes, int[] childStart, int[] children,
+                                      int[] salaried, double[] sum, double[] min, double[] max) {
+            Double own = nodes[v].mzda();
+            int count = own != null ? 1 : 0;
+            double total = own != null ? own : 0.0;
+            double low = own != null ? own : Double.POSITIVE_INFINITY;
+            double high = own != null ? own : Double.NEGATIVE_INFINITY;
+            for (int i = childStart[v]; i < childStart[v + 1]; i++) {
+                int child = children[i];
+                count += salaried[child];
+                total += sum[child];
+                low = Math.min(low, min[child]);
+                high = Math.max(high, max[child]);
+            }
+            salaried[v] = count;
+            sum[v] = total;
+            min[v] = low;
+            max[v] = high;
+        }
+
+        static Graph build(Collection<EmployeeNode> source) {
+            EmployeeNode[] nodes = source.toArray(new EmployeeNode[0]);
+            Arrays.sort(nodes, Comparator.comparingLong(EmployeeNode::id));
+            int n = nodes.length;
+            long[] ids = new long[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = nodes[i].id();
+            }
+
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) {
+                Long managerId = nodes[i].managerId();
+                int p = managerId != null ? Arrays.binarySearch(ids, managerId) : -1;
+                parent[i] = p >= 0 && p != i ? p : -1;
+            }
+            int brokenCycles = breakCycles(parent);
+
+            // Подчиненные в CSR: сначала количество, затем префиксные суммы и заполнение (порядок по ID)
+            int[] childStart = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                if (parent[i] >= 0) {
+                    childStart[parent[i] + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                childStart[i + 1] += childStart[i];
+            }
+            int[] children = new int[childStart[n]];
+            int[] fill = Arrays.copyOf(childStart, n);
+            for (int i = 0; i < n; i++) {
+                if (parent[i] >= 0) {
+                    children[fill[parent[i]]++] = i;
+                }
+            }
+
+            // Итеративный обход в глубину: рекурсия упала бы на длинной цепочке руководителей
+            int[] tin = new int[n];
+            int[] tout = new int[n];
+            int[] order = new int[n];
+            int[] depth = new int[n];
+            int[] stack = new int[n];
+            int[] cursor = new int[n];
+            int position = 0;
+            for (int root = 0; root < n; root++) {
+                if (parent[root] >= 0) {
+                    continue;
+                }
+                int top = 0;
+                stack[0] = root;
+                cursor[root] = childStart[root];
+                tin[root] = position;
+                order[position++] = root;
+                while (top >= 0) {
+                    int v = stack[top];
+                    if (cursor[v] < childStart[v + 1]) {
+                        int child = children[cursor[v]++];
+                        depth[child] = depth[v] + 1;
+                        cursor[child] = childStart[child];
+                        tin[child] = position;
+                        order[position++] = child;
+                        stack[++top] = child;
+                    } else {
+                        tout[v] = position;
+                        top--;
+                    }
+                }
+            }
+
+            // Обратный прямой порядок: подчиненные обрабатываются раньше руководителя
+            int[] salaried = new int[n];
+            double[] salarySum = new double[n];
+            double[] salaryMin = new double[n];
+            double[] salaryMax = new double[n];
+            for (int i = n - 1; i >= 0; i--) {
+                aggregate(order[i], nodes, childStart, children, salaried, salarySum, salaryMin, salaryMax);
+            }
+            return new Graph(ids, nodes, parent, childStart, children, tin, tout, order, depth, brokenCycles,
+                    salaried, salarySum, salaryMin, salaryMax);
+        }
+
+        // Цикл в данных (A руководит B, B руководит A) рвется: первый найденный узел цикла становится корнем
+        private static int breakCycles(int[] parent) {
+            int n = parent.length;
+            byte[] state = new byte[n]; // 0 — не посещен, 1 — на текущем пути, 2 — проверен
+            int broken = 0;
+            for (int start = 0; start < n; start++) {
+                int v = start;
+                while (v >= 0 && state[v] == 0) {
+                    state[v] = 1;
+                    v = parent[v];
+                }
+                // Связь рвется после пометки пути, иначе остальные узлы цикла остались бы "на пути"
+                int cycleAt = v >= 0 && state[v] == 1 ? v : -1;
+                for (int u = start; u >= 0 && state[u] == 1; u = parent[u]) {
+                    state[u] = 2;
+                }
+                if (cycleAt >= 0) {
+                    parent[cycleAt] = -1;
+                    broken++;
+                }
+            }
+            return broken;
+        }
+    }
+
+    @Value("${employee-hierarchy.enabled:true}")
+    private boolean enabled;
+
+    @Value("${employee-hierarchy.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Граф, построенный до точечного обновления, не должен заменить уже обновленный
+    private final Object loadMonitor = new Object();
+    private volatile Graph graph;
+    private volatile long loadedAtNanos;
+    // Увеличивается при сбросе (под stateLock): граф, прочитанный до сброса, не публикуется
+    private final Object stateLock = new Object();
+    private long generation;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder attributePatches = new LongAdder();
+    private final LongAdder structuralRebuilds = new LongAdder();
+    private final LongAdder salaryChecks = new LongAdder();
+    private final LongAdder salaryMismatches = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Сотрудник и все его подчиненные в порядке обхода в глубину, как у CONNECT BY в P_SHOW_HIERARCHY_BY_ID.
+     * Уровень считается от запрошенного сотрудника (у него 1).
+     *
+     * @return пустой список, если сотрудник не найден
+     */
+    public List<Zamestnanec> getSubtree(Long idZamestnance) {
+        Graph current = ensureLoaded();
+        queries.increment();
+        int v = idZamestnance != null ? current.indexOf(idZamestnance) : -1;
+        if (v < 0) {
+            return Collections.emptyList();
+        }
+        List<Zamestnanec> result = new ArrayList<>(current.tout[v] - current.tin[v]);
+        int baseDepth = current.depth[v];
+        for (int i = current.tin[v]; i < current.tout[v]; i++) {
+            int u = current.order[i];
+            result.add(toZamestnanec(current, u, current.depth[u] - baseDepth + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Цепочка руководителей от вершины оргструктуры до сотрудника включительно (уровень 1 — вершина).
+     */
+    public List<Zamestnanec> getManagementChain(Long idZamestnance) {
+        Graph current = ensureLoaded();
+        queries.increment();
+        int v = idZamestnance != null ? current.indexOf(idZamestnance) : -1;
+        if (v < 0) {
+            return Collections.emptyList();
+        }
+        Zamestnanec[] chain = new Zamestnanec[current.depth[v] + 1];
+        for (int u = v; u >= 0; u = current.parent[u]) {
+            chain[current.depth[u]] = toZamestnanec(current, u, current.depth[u] + 1);
+        }
+        return Arrays.asList(chain);
+    }
+
+    /**
+     * Положение сотрудника в оргструктуре: руководитель, глубина, прямые и все подчиненные.
+     *
+     * @return null, если сотрудник не найден
+     */
+    public Map<String, Object> getPosition(Long idZamestnance) {
+        Graph current = ensureLoaded();
+        queries.increment();
+        int v = idZamestnance != null ? current.indexOf(idZamestnance) : -1;
+        if (v < 0) {
+            return null;
+        }
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("idZamestnance", current.ids[v]);
+        position.put("managerId", current.parent[v] >= 0 ? current.ids[current.parent[v]] : null);
+        position.put("depth", current.depth[v]);
+        position.put("directReports", current.childStart[v + 1] - current.childStart[v]);
+        position.put("subordinates", current.subordinates(v));
+        return position;
+    }
+
+    /**
+     * Средняя MZDA всех (прямых и непрямых) подчиненных, как proc_average_subordinate_salary. O(1).
+     *
+     * @return null, если сотрудник не найден или у подчиненных нет зарплат
+     */
+    public Double getAverageSubordinateSalary(Long idZamestnance) {
+        Graph current = ensureLoaded();
+        queries.increment();
+        int v = idZamestnance != null ? current.indexOf(idZamestnance) : -1;
+        if (v < 0) {
+            return null;
+        }
+        Double own = current.nodes[v].mzda();
+        int count = current.salaried[v] - (own != null ? 1 : 0);
+        if (count == 0) {
+            return null;
+        }
+        return (current.salarySum[v] - (own != null ? own : 0.0)) / count;
+    }
+
+    /**
+     * Фонд оплаты отдела руководителя (руководитель и все его подчиненные).
+     *
+     * @return null, если сотрудник не найден
+     */
+    public Map<String, Object> getSalarySummary(Long idZamestnance) {
+        Graph current = ensureLoaded();
+        queries.increment();
+        int v = idZamestnance != null ? current.indexOf(idZamestnance) : -1;
+        if (v < 0) {
+            return null;
+        }
+        int count = current.salaried[v];
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("idZamestnance", current.ids[v]);
+        summary.put("employees", current.subordinates(v) + 1);
+        summary.put("salaried", count);
+        summary.put("payrollTotal", current.salarySum[v]);
+        summary.put("minSalary", count > 0 ? current.salaryMin[v] : null);
+        summary.put("maxSalary", count > 0 ? current.salaryMax[v] : null);
+        summary.put("averageSalary", count > 0 ? current.salarySum[v] / count : null);
+        summary.put("averageSubordinateSalary", getAverageSubordinateSalary(idZamestnance));
+        return summary;
+    }
+
+    /**
+     * Учет сверки с proc_average_subordinate_salary. Значения сравниваются с точностью до копейки,
+     * так как процедура может округлять результат.
+     *
+     * @return true, если значения совпали
+     */
+    public boolean recordSalaryCheck(Double cached, Double expected) {
+        salaryChecks.increment();
+        boolean match = cached == null ? expected == null
+                : expected != null && Math.abs(cached - expected) < SALARY_TOLERANCE;
+        if (!match) {
+            salaryMismatches.increment();
+        }
+        return match;
+    }
+
+    /**
+     * ID сотрудников, у которых есть подчиненные (руководители), по возрастанию.
+     */
+    public List<Long> getManagerIds() {
+        Graph current = ensureLoaded();
+        List<Long> managers = new ArrayList<>();
+        for (int v = 0; v < current.size(); v++) {
+            if (current.childStart[v + 1] > current.childStart[v]) {
+                managers.add(current.ids[v]);
+            }
+        }
+        return managers;
+    }
+
+    /**
+     * Является ли employeeId (прямым или непрямым) подчиненным managerId. Проверка интервалов, O(1).
+     */
+    public boolean isSubordinate(Long employeeId, Long managerId) {
+        Graph current = ensureLoaded();
+        int e = employeeId != null ? current.indexOf(employeeId) : -1;
+        int m = managerId != null ? current.indexOf(managerId) : -1;
+        return e >= 0 && m >= 0 && e != m && current.tin[m] <= current.tin[e] && current.tin[e] < current.tout[m];
+    }
+
+    /**
+     * Перечитать сотрудника после INSERT / UPDATE через proc_zamnestnanec_cud или регистрации.
+     */
+    public void refreshEmployee(Long idZamestnance) {
+        if (idZamestnance != null) {
+            TransactionCallbacks.afterCommit(() -> reload(" WHERE ID_ZAMNESTNANCE = ?", new Object[]{idZamestnance}, Set.of(idZamestnance)));
+        }
+    }
+
+    /**
+     * Дочитать сотрудников, созданных после последней загрузки (proc_zamnestnanec_cud не возвращает ID).
+     */
+    public void refreshNewEmployees() {
+        TransactionCallbacks.afterCommit(() -> {
+            Graph current = graph;
+            if (current == null) {
+                return;
+            }
+            long maxId = current.size() > 0 ? current.ids[current.size() - 1] : 0L;
+            reload(" WHERE ID_ZAMNESTNANCE > ?", new Object[]{maxId}, Collections.emptySet());
+        });
+    }
+
+    /**
+     * Сброс графа — следующий запрос загрузит его заново.
+     */
+    public void invalidate() {
+        synchronized (stateLock) {
+            generation++;
+            graph = null;
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Graph current = graph;
+        stats.put("enabled", enabled);
+        stats.put("loaded", current != null);
+        if (current != null) {
+            int roots = 0;
+            int maxDepth = 0;
+            for (int v = 0; v < current.size(); v++) {
+                if (current.parent[v] < 0) {
+                    roots++;
+                }
+                maxDepth = Math.max(maxDepth, current.depth[v]);
+            }
+            stats.put("employees", current.size());
+            stats.put("roots", roots);
+            stats.put("maxDepth", maxDepth);
+            stats.put("brokenCycles", current.brokenCycles);
+        }
+        stats.put("refreshSeconds", refreshSeconds);
+        stats.put("queries", queries.sum());
+        stats.put("loads", loads.sum());
+        stats.put("attributePatches", attributePatches.sum());
+        stats.put("structuralRebuilds", structuralRebuilds.sum());
+        stats.put("salaryChecks", salaryChecks.sum());
+        stats.put("salaryMismatches", salaryMismatches.sum());
+        return stats;
+    }
+
+    private Graph ensureLoaded() {
+        Graph current = graph;
+        if (current != null && System.nanoTime() - loadedAtNanos < refreshSeconds * 1_000_000_000L) {
+            return current;
+        }
+        synchronized (loadMonitor) {
+            current = graph;
+            if (current != null && System.nanoTime() - loadedAtNanos < refreshSeconds * 1_000_000_000L) {
+                return current;
+            }
+            long start = System.nanoTime();
+            long startGeneration = currentGeneration();
+            current = Graph.build(jdbcTemplate.query(EMPLOYEE_QUERY, NODE_MAPPER));
+            if (current.brokenCycles > 0) {
+                logger.warn("В оргструктуре найдено циклов подчинения: {}", current.brokenCycles);
+            }
+            loads.increment();
+            if (!publish(current, startGeneration, true)) {
+                // Сброс во время загрузки (например, коммит индексации зарплат): граф отдается, но не кешируется
+                logger.info("Оргструктура загружена до сброса и не закеширована");
+                return current;
+            }
+            logger.info("Оргструктура загружена: {} сотрудников за {} ms", current.size(), (System.nanoTime() - start) / 1_000_000);
+            return current;
+        }
+    }
+
+    // Заменяет сотрудников affected и найденных по условию where
+    private void reload(String where, Object[] params, Set<Long> affected) {
+        if (graph == null) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            long startGeneration = currentGeneration();
+            Graph current = graph;
+            if (current == null) {
+                return;
+            }
+            List<EmployeeNode> fresh = jdbcTemplate.query(EMPLOYEE_QUERY + where, NODE_MAPPER, params);
+            Set<Long> freshIds = new HashSet<>();
+            boolean structural = false;
+            EmployeeNode[] nodes = current.nodes.clone();
+            List<Integer> changed = new ArrayList<>();
+            for (EmployeeNode node : fresh) {
+                freshIds.add(node.id());
+                int v = current.indexOf(node.id());
+                if (v < 0 || !Objects.equals(nodes[v].managerId(), node.managerId())) {
+                    structural = true;
+                } else {
+                    nodes[v] = node;
+                    changed.add(v);
+                }
+            }
+            for (Long id : affected) {
+                if (!freshIds.contains(id) && current.indexOf(id) >= 0) {
+                    structural = true; // сотрудник удален
+                }
+            }
+
+            if (!structural) {
+                // Руководители не изменились — интервалы и списки подчиненных переиспользуются
+                if (publish(current.withNodes(nodes, changed), startGeneration, false)) {
+                    attributePatches.increment();
+                }
+                return;
+            }
+            // Новый сотрудник или смена руководителя: граф пересобирается в памяти, без запроса всей таблицы
+            Map<Long, EmployeeNode> merged = new HashMap<>(current.size() + fresh.size());
+            for (EmployeeNode node : current.nodes) {
+                merged.put(node.id(), node);
+            }
+            for (Long id : affected) {
+                merged.remove(id);
+            }
+            for (EmployeeNode node : fresh) {
+                merged.put(node.id(), node);
+            }
+            if (publish(Graph.build(merged.values()), startGeneration, false)) {
+                structuralRebuilds.increment();
+            }
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (stateLock) {
+            return generation;
+        }
+    }
+
+    // Публикация графа, если с начала его чтения не было сброса
+    private boolean publish(Graph next, long startGeneration, boolean fullLoad) {
+        synchronized (stateLock) {
+            if (generation != startGeneration) {
+                return false;
+            }
+            if (fullLoad) {
+                loadedAtNanos = System.nanoTime();
+            }
+            graph = next;
+            return true;
+        }
+    }
+
+    // Те же поля, что заполнялись из курсора P_SHOW_HIERARCHY_BY_ID
+    private static Zamestnanec toZamestnanec(Graph graph, int v, int level) {
+        EmployeeNode node = graph.nodes[v];
+        Zamestnanec zamestnanec = new Zamestnanec();
+        zamestnanec.setLevel(level);
+        zamestnanec.setEmployeeName(fullName(node));
+        zamestnanec.setIdZamestnance(node.id());
+        zamestnanec.setPoziceIdPozice(node.poziceId());
+        zamestnanec.setMzda(node.mzda());
+        zamestnanec.setSupermarketIdSupermarketu(node.supermarketId());
+        zamestnanec.setSkladIdSkladu(node.skladId());
+        zamestnanec.setPracovnidoba(node.pracovnidoba());
+        zamestnanec.setZamestnanecIdZamestnance(node.managerId());
+        return zamestnanec;
+    }
+
+    private static String fullName(EmployeeNode node) {
+        String jmeno = node.jmeno() != null ? node.jmeno() : "";
+        String prijmeni = node.prijmeni() != null ? node.prijmeni() : "";
+        return (jmeno + " " + prijmeni).trim();
+    }
+}
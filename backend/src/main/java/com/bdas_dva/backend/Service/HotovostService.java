@@ -3,13 +3,12 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Model.OrderProduct.Platba.Hotovost;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.*;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Types;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
@@ -20,6 +19,16 @@ public class HotovostService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    private ProcedureCallRegistry.ProcedureCall procHotovostCud;
+
+    @Autowired
+    public void setUp() {
+        this.procHotovostCud = procedures.get("proc_hotovost_cud");
+    }
+
     // Получение всех платежей наличными
     @Transactional(readOnly = true)
     public List<Hotovost> getAllHotovosts() {
@@ -40,15 +49,6 @@ public class HotovostService {
     // Добавление нового платежа наличными
     @Transactional(rollbackFor = Exception.class)
     public Long addHotovost(Double prijato, Double vraceno) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_hotovost_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_prijato", Types.NUMERIC),
-                        new SqlParameter("p_vraceno", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "INSERT");
         inParams.put("p_id_platby", null); // Предполагается, что ID генерируется автоматически
@@ -56,7 +56,7 @@ public class HotovostService {
         inParams.put("p_vraceno", vraceno);
 
         try {
-            Map<String, Object> result = jdbcCall.execute(inParams);
+            Map<String, Object> result = procHotovostCud.execute(inParams);
             // Предполагается, что процедура возвращает ID_PLATBY, если необходимо
             // Если нет, можно изменить процедуру или вернуть актуальное значение
             // Здесь предполагается, что ID_PLATBY генерируется в базе данных и возвращается
@@ -72,15 +72,6 @@ public class HotovostService {
     // Обновление платежа наличными
     @Transactional(rollbackFor = Exception.class)
     public void updateHotovost(Long id, Double prijato, Double vraceno) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_hotovost_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_prijato", Types.NUMERIC),
-                        new SqlParameter("p_vraceno", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_platby", id);
@@ -88,7 +79,7 @@ public class HotovostService {
         inParams.put("p_vraceno", vraceno);
 
         try {
-            jdbcCall.execute(inParams);
+            procHotovostCud.execute(inParams);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при обновлении платежа наличными: " + e.getMessage());
         }
@@ -97,15 +88,6 @@ public class HotovostService {
     // Удаление платежа наличными
     @Transactional(rollbackFor = Exception.class)
     public void deleteHotovost(Long id) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_hotovost_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_prijato", Types.NUMERIC),
-                        new SqlParameter("p_vraceno", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
         inParams.put("p_id_platby", id);
@@ -113,7 +95,7 @@ public class HotovostService {
         inParams.put("p_vraceno", null);
 
         try {
-            jdbcCall.execute(inParams);
+            procHotovostCud.execute(inParams);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при удалении платежа наличными: " + e.getMessage());
         }
@@ -1,5 +1,7 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -13,10 +15,22 @@ public class ImageFormatService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    @PostConstruct
+    public void setUp() {
+        referenceData.register(ReferenceDataCache.Dataset.IMAGE_FORMATS, this::loadAllImageFormats);
+    }
+
     /**
-     * Получение всех форматов изображений
+     * Получение всех форматов изображений (из снимка справочников)
      */
     public List<Map<String, Object>> getAllImageFormats() {
+        return referenceData.get(ReferenceDataCache.Dataset.IMAGE_FORMATS);
+    }
+
+    private List<Map<String, Object>> loadAllImageFormats() {
         String sql = "SELECT ID_FORMATU, ROZIRENI FROM FORMAT_OBRAZKU";
         return jdbcTemplate.queryForList(sql);
     }
@@ -1,15 +1,17 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.KeysetPage;
+import com.bdas_dva.backend.Model.Rows.ImageMeta;
+import com.bdas_dva.backend.Util.KeysetPagination;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.bdas_dva.backend.Util.ProductCatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.support.SqlLobValue;
 import org.springframework.jdbc.support.lob.DefaultLobHandler;
 import org.springframework.stereotype.Service;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 
-
-import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -21,14 +23,29 @@ public class ImageService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCatalogCache catalogCache;
+
+    private ProcedureCallRegistry.ProcedureCall procObrazekCud;
+
+    @Autowired
+    public void setUp() {
+        this.procObrazekCud = procedures.get("proc_obrazek_cud");
+    }
+
     /**
      * Получение всех изображений (только метаданные)
      */
-    public List<Map<String, Object>> getAllImages() {
-        String sql = "SELECT ID_OBRAZKU, NAZEV, DATUMNAHRANI, DATUMMODIFIKACE, PRODUKT_ID_PRODUKTU, FORMAT_ID_FORMATU " +
-                "FROM OBRAZEK";
+    public List<ImageMeta> getAllImages() {
+        String sql = "SELECT " + ImageMeta.COLUMNS + " FROM OBRAZEK";
         try {
-            return jdbcTemplate.queryForList(sql);
+            return jdbcTemplate.query(sql, ImageMeta.ROW_MAPPER);
         } catch (Exception e) {
             // Логируем ошибки для анализа
             System.err.println("Ошибка при выполнении запроса: " + e.getMessage());
@@ -37,22 +54,42 @@ public class ImageService {
     }
 
 
+    /**
+     * Страница метаданных изображений (keyset-пагинация по ID_OBRAZKU)
+     */
+    public KeysetPage<ImageMeta> getImagesPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 1);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT " + ImageMeta.COLUMNS + " FROM OBRAZEK"
+        );
+        if (after != null) {
+            sqlBuilder.append(" WHERE ID_OBRAZKU > ?");
+            params.add(after[0]);
+        }
+        sqlBuilder.append(" ORDER BY ID_OBRAZKU FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<ImageMeta> rows = jdbcTemplate.query(sqlBuilder.toString(), ImageMeta.ROW_MAPPER, params.toArray());
+        return KeysetPagination.page(rows, pageSize, row -> new long[]{row.idObrazku()});
+    }
+
     /**
      * Получение метаданных изображения по ID
      */
-    public Map<String, Object> getImageById(Long imageId) {
-        String sql = "SELECT ID_OBRAZKU, NAZEV, DATUMNAHRANI, DATUMMODIFIKACE, PRODUKT_ID_PRODUKTU, FORMAT_ID_FORMAT " +
-                "FROM OBRAZEK WHERE ID_OBRAZKU = ?";
-        return jdbcTemplate.queryForMap(sql, imageId);
+    public ImageMeta getImageById(Long imageId) {
+        String sql = "SELECT " + ImageMeta.COLUMNS + " FROM OBRAZEK WHERE ID_OBRAZKU = ?";
+        return jdbcTemplate.queryForObject(sql, ImageMeta.ROW_MAPPER, imageId);
     }
 
     /**
      * Фильтрация изображений по продукту или формату
      */
-    public List<Map<String, Object>> getImagesByFilters(Long productId, Integer formatId) {
+    public List<ImageMeta> getImagesByFilters(Long productId, Integer formatId) {
         StringBuilder sqlBuilder = new StringBuilder(
-                "SELECT ID_OBRAZKU, NAZEV, DATUMNAHRANI, DATUMMODIFIKACE, PRODUKT_ID_PRODUKTU, FORMAT_ID_FORMAT " +
-                        "FROM OBRAZEK WHERE 1=1"
+                "SELECT " + ImageMeta.COLUMNS + " FROM OBRAZEK WHERE 1=1"
         );
 
         List<Object> params = new java.util.ArrayList<>();
@@ -61,28 +98,17 @@ public class ImageService {
             params.add(productId);
         }
         if (formatId != null) {
-            sqlBuilder.append(" AND FORMAT_ID_FORMAT = ?");
+            sqlBuilder.append(" AND FORMAT_ID_FORMATU = ?");
             params.add(formatId);
         }
 
-        return jdbcTemplate.queryForList(sqlBuilder.toString(), params.toArray());
+        return jdbcTemplate.query(sqlBuilder.toString(), ImageMeta.ROW_MAPPER, params.toArray());
     }
 
     /**
      * Создание нового изображения
      */
     public void createImage(byte[] obrazek, String nazev, Integer formatId, Long productId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.INTEGER),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.INTEGER),
-                        new SqlParameter("p_produkt_id_produktu", Types.INTEGER)
-                );
-
         Map<String, Object> params = new HashMap<>();
         params.put("p_action", "CREATE");
         params.put("p_id_obrazku", null);
@@ -91,24 +117,14 @@ public class ImageService {
         params.put("p_format_id_formatu", formatId);
         params.put("p_produkt_id_produktu", productId);
 
-        jdbcCall.execute(params);
+        procObrazekCud.execute(params);
+        catalogCache.updateImage(productId, productService.getProductImageInfo(productId));
     }
 
     /**
      * Обновление изображения
      */
     public void updateImage(Long id, byte[] obrazek, String nazev, Integer formatId, Long productId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.INTEGER),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.INTEGER),
-                        new SqlParameter("p_produkt_id_produktu", Types.INTEGER)
-                );
-
         Map<String, Object> params = new HashMap<>();
         params.put("p_action", "UPDATE");
         params.put("p_id_obrazku", id);
@@ -117,24 +133,15 @@ public class ImageService {
         params.put("p_format_id_formatu", formatId);
         params.put("p_produkt_id_produktu", productId);
 
-        jdbcCall.execute(params);
+        procObrazekCud.execute(params);
+        // Изображение могло перейти к другому продукту — каталог перечитывается целиком
+        catalogCache.invalidate();
     }
 
     /**
      * Удаление изображения
      */
     public void deleteImage(Long id) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.INTEGER),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.INTEGER),
-                        new SqlParameter("p_produkt_id_produktu", Types.INTEGER)
-                );
-
         Map<String, Object> params = new HashMap<>();
         params.put("p_action", "DELETE");
         params.put("p_id_obrazku", id);
@@ -143,6 +150,7 @@ public class ImageService {
         params.put("p_format_id_formatu", null);
         params.put("p_produkt_id_produktu", null);
 
-        jdbcCall.execute(params);
+        procObrazekCud.execute(params);
+        catalogCache.invalidate();
     }
 }
\ No newline at end of file
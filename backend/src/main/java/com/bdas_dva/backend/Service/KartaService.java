@@ -3,13 +3,12 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Model.OrderProduct.Platba.Karta;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.*;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Types;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
@@ -20,17 +19,14 @@ public class KartaService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private SimpleJdbcCall procKartaCud;
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    private ProcedureCallRegistry.ProcedureCall procKartaCud;
 
     @Autowired
     public void setUp() {
-        this.procKartaCud = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_karta_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_cislo_karty", Types.VARCHAR)
-                );
+        this.procKartaCud = procedures.get("proc_karta_cud");
     }
 
     // Получение всех карт
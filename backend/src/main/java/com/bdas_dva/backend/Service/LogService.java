@@ -1,12 +1,16 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.KeysetPage;
+import com.bdas_dva.backend.Model.Rows.LogEntry;
+import com.bdas_dva.backend.Util.KeysetPagination;
+import com.bdas_dva.backend.Util.ResultSetExporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class LogService {
@@ -14,28 +18,61 @@ public class LogService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ResultSetExporter exporter;
+
     /**
      * Получение всех записей логов
      */
-    public List<Map<String, Object>> getAllLogs() {
-        String sql = "SELECT ID_LOGU, OPERACE, NAZEVTABULKY, DATUMMODIFIKACE, OLDVALUES, NEWVALUES FROM LOG";
-        return jdbcTemplate.queryForList(sql);
+    public List<LogEntry> getAllLogs() {
+        String sql = "SELECT " + LogEntry.COLUMNS + " FROM LOG";
+        return jdbcTemplate.query(sql, LogEntry.ROW_MAPPER);
+    }
+
+    /**
+     * Страница логов (keyset-пагинация по ID_LOGU)
+     */
+    public KeysetPage<LogEntry> getLogsPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 1);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sqlBuilder = new StringBuilder(
+                "SELECT " + LogEntry.COLUMNS + " FROM LOG"
+        );
+        if (after != null) {
+            sqlBuilder.append(" WHERE ID_LOGU > ?");
+            params.add(after[0]);
+        }
+        sqlBuilder.append(" ORDER BY ID_LOGU FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<LogEntry> rows = jdbcTemplate.query(sqlBuilder.toString(), LogEntry.ROW_MAPPER, params.toArray());
+        return KeysetPagination.page(rows, pageSize, row -> new long[]{row.idLogu()});
+    }
+
+    /**
+     * Потоковый экспорт всех логов (по возрастанию ID_LOGU)
+     */
+    public long exportLogs(ResultSetExporter.Format format, OutputStream out) {
+        String sql = "SELECT ID_LOGU, OPERACE, NAZEVTABULKY, DATUMMODIFIKACE, OLDVALUES, NEWVALUES FROM LOG ORDER BY ID_LOGU";
+        return exporter.export(sql, format, out);
     }
 
     /**
      * Получение записи лога по ID
      */
-    public Map<String, Object> getLogById(Long logId) {
-        String sql = "SELECT ID_LOGU, OPERACE, NAZEVTABULKY, DATUMMODIFIKACE, OLDVALUES, NEWVALUES FROM LOG WHERE ID_LOGU = ?";
-        return jdbcTemplate.queryForMap(sql, logId);
+    public LogEntry getLogById(Long logId) {
+        String sql = "SELECT " + LogEntry.COLUMNS + " FROM LOG WHERE ID_LOGU = ?";
+        return jdbcTemplate.queryForObject(sql, LogEntry.ROW_MAPPER, logId);
     }
 
     /**
      * Фильтрация записей логов
      */
-    public List<Map<String, Object>> getLogsByFilters(String operation, String tableName, String modificationDate) {
+    public List<LogEntry> getLogsByFilters(String operation, String tableName, String modificationDate) {
         StringBuilder sqlBuilder = new StringBuilder(
-                "SELECT ID_LOGU, OPERACE, NAZEVTABULKY, DATUMMODIFIKACE, OLDVALUES, NEWVALUES FROM LOG WHERE 1=1"
+                "SELECT " + LogEntry.COLUMNS + " FROM LOG WHERE 1=1"
         );
 
         List<Object> params = new ArrayList<>();
@@ -52,6 +89,6 @@ public class LogService {
             params.add(modificationDate);
         }
 
-        return jdbcTemplate.queryForList(sqlBuilder.toString(), params.toArray());
+        return jdbcTemplate.query(sqlBuilder.toString(), LogEntry.ROW_MAPPER, params.toArray());
     }
 }
@@ -0,0 +1,309 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.OrderProduct.OrderStatusEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Рассылка событий изменения заказов по Server-Sent Events вместо опроса /api/orders/user.
+ * События публикуются через ApplicationEventPublisher и доставляются только после коммита транзакции.
+ * Поток рассылки только раскладывает события по ограниченным очередям подписчиков, а блокирующий
+ * SseEmitter.send выполняется отдельно для каждого подписчика: клиент с заполненным TCP буфером
+ * задерживает только себя, а при переполнении своей очереди отключается.
+ * Пользователь получает события своих заказов (по ID заказчика), сотрудники и администраторы — все.
+ * Последние события хранятся в буфере, и переподключившийся клиент дочитывает их по Last-Event-ID.
+ */
+@Service
+public class OrderEventStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventStreamService.class);
+
+    private static final String EVENT_NAME = "order-status";
+
+    /**
+     * Достигнут предел одновременных подписчиков.
+     */
+    public static class SubscriberLimitException extends RuntimeException {
+        public SubscriberLimitException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String owner;
+        private final Long customerId;
+        private final boolean staff;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        // Очередь подписчика разбирает не больше одного потока отправки одновременно
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, String owner, Long customerId, boolean staff, int queueCapacity) {
+            this.emitter = emitter;
+            this.owner = owner;
+            this.customerId = customerId;
+            this.staff = staff;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    private record Delivered(long sequence, OrderStatusEvent event) {
+    }
+
+    @Value("${order-events.sse-timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${order-events.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${order-events.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${order-events.replay-size:256}")
+    private int replaySize;
+
+    @Value("${order-events.subscriber-queue-size:64}")
+    private int subscriberQueueSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<Delivered> recent = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private ScheduledExecutorService dispatcher;
+    // Блокирующая отправка; потоков не больше, чем подписчиков с непустой очередью
+    private ExecutorService sender;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "order-events-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Новый подписчик.
+     *
+     * @param owner       email пользователя (для логов и статистики)
+     * @param customerId  ID заказчика пользователя; игнорируется для staff
+     * @param staff       сотрудник или администратор — получает события всех заказов
+     * @param lastEventId значение заголовка Last-Event-ID при переподключении или null
+     * @throws SubscriberLimitException при превышении order-events.max-subscribers
+     */
+    public SseEmitter subscribe(String owner, Long customerId, boolean staff, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new SubscriberLimitException("Слишком много подписчиков на события заказов.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        // Место под дочитку буфера (и комментарий "connected") плюс собственная очередь подписчика
+        Subscriber subscriber = new Subscriber(emitter, owner, customerId, staff, subscriberQueueSize + replaySize + 1);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Выполняется в потоке рассылки: между дочиткой буфера и подпиской не теряется ни одно событие
+        dispatcher.execute(() -> {
+            if (!enqueue(subscriber, SseEmitter.event().comment("connected"))) {
+                return;
+            }
+            for (Delivered entry : replayAfter(lastEventId)) {
+                if (matches(subscriber, entry.event()) && !enqueue(subscriber, toSse(entry))) {
+                    return;
+                }
+            }
+            subscribers.add(subscriber);
+            // Отправка дочитанных событий могла уже завершиться ошибкой
+            if (subscriber.closed.get()) {
+                subscribers.remove(subscriber);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Прием события после коммита (или сразу, если транзакции нет).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusEvent(OrderStatusEvent event) {
+        published.increment();
+        dispatcher.execute(() -> dispatch(event));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("staffSubscribers", subscribers.stream().filter(subscriber -> subscriber.staff).count());
+        stats.put("queuedEvents", subscribers.stream().mapToInt(subscriber -> subscriber.queue.size()).sum());
+        stats.put("subscriberQueueSize", subscriberQueueSize);
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("lastEventId", sequence.get());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("overflows", overflows.sum());
+        return stats;
+    }
+
+    private void dispatch(OrderStatusEvent event) {
+        OrderStatusEvent resolved = event;
+        // ID заказчика нужен только для подписчиков-пользователей
+        if (resolved.customerId() == null && resolved.orderId() != null
+                && subscribers.stream().anyMatch(subscriber -> !subscriber.staff)) {
+            List<Long> customerIds = jdbcTemplate.queryForList(
+                    "SELECT ZAKAZNIK_ID_ZAKAZNIKU FROM OBJEDNAVKA WHERE ID_OBJEDNAVKY = ?", Long.class, resolved.orderId());
+            if (!customerIds.isEmpty()) {
+                resolved = resolved.withCustomerId(customerIds.get(0));
+            }
+        }
+
+        Delivered entry = new Delivered(sequence.incrementAndGet(), resolved);
+        synchronized (recent) {
+            recent.addLast(entry);
+            while (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (matches(subscriber, resolved)) {
+                enqueue(subscriber, toSse(entry));
+            }
+        }
+    }
+
+    // Комментарий раз в heartbeat-seconds: прокси не закрывают соединение, а оборванные клиенты отсеиваются
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    /**
+     * Постановка события в очередь подписчика без блокировки потока рассылки.
+     * Очередь заполнена — клиент не успевает читать поток, он отключается (и может переподключиться с Last-Event-ID).
+     *
+     * @return false, если подписчик отключен
+     */
+    private boolean enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return false;
+        }
+        if (!subscriber.queue.offer(event)) {
+            overflows.increment();
+            drop(subscriber, new IllegalStateException("очередь событий подписчика переполнена"));
+            return false;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+        return true;
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                    delivered.increment();
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscriber, e);
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+            // Событие могло попасть в очередь после poll, но до сброса флага
+            if (subscriber.queue.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        dropped.increment();
+        logger.debug("Подписчик {} отключен: {}", subscriber.owner, e.getMessage());
+        try {
+            subscriber.emitter.completeWithError(e);
+        } catch (IllegalStateException ignored) {
+            // emitter уже завершен
+        }
+    }
+
+    private List<Delivered> replayAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return Collections.emptyList();
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return Collections.emptyList();
+        }
+        List<Delivered> missed = new ArrayList<>();
+        synchronized (recent) {
+            for (Delivered entry : recent) {
+                if (entry.sequence() > after) {
+                    missed.add(entry);
+                }
+            }
+        }
+        return missed;
+    }
+
+    private static boolean matches(Subscriber subscriber, OrderStatusEvent event) {
+        return subscriber.staff
+                || (subscriber.customerId != null && subscriber.customerId.equals(event.customerId()));
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(Delivered entry) {
+        return SseEmitter.event()
+                .id(Long.toString(entry.sequence()))
+                .name(EVENT_NAME)
+                .data(entry.event());
+    }
+}
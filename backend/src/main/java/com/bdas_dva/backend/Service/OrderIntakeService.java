@@ -0,0 +1,480 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.OrderProduct.CheckoutResult;
+import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронный прием заказов при пиковой нагрузке.
+ * Проверенные заказы попадают в ограниченную очередь и разбираются пулом воркеров пачками:
+ * пачка записывается в одной транзакции (один commit), а при ошибке каждый заказ пачки
+ * повторяется в отдельной транзакции, чтобы один плохой заказ не откатывал остальные.
+ * Переполненная очередь отклоняет заказ сразу, а не занимает соединения пула.
+ * <p>
+ * Опциональный журнал (order.intake.journal-path) — файл JSON строк: SUBMIT при приеме и DONE после обработки.
+ * Строка SUBMIT сбрасывается на диск (fsync) до ответа 202, поэтому принятый заказ переживает падение ОС.
+ * При старте необработанные заказы из журнала снова ставятся в очередь. Доставка at-least-once:
+ * заказ, записанный в БД перед аварийной остановкой, но без строки DONE, будет создан повторно.
+ */
+@Service
+public class OrderIntakeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeService.class);
+
+    public enum State {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    /**
+     * Заявка на создание заказа — ее состояние отдается по status URL.
+     */
+    public static class Ticket {
+        private final String id;
+        private final String owner;
+        private final long submittedAt;
+        private volatile State state = State.QUEUED;
+        private volatile Long orderId;
+        private volatile Long paymentId;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        Ticket(String id, String owner, long submittedAt) {
+            this.id = id;
+            this.owner = owner;
+            this.submittedAt = submittedAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public Long getPaymentId() {
+            return paymentId;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Очередь заполнена — клиенту нужно повторить запрос позже.
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+
+    private record Job(Ticket ticket, OrderRequest request) {
+    }
+
+    @Value("${order.intake.async-enabled:false}")
+    private boolean enabled;
+
+    @Value("${order.intake.capacity:1000}")
+    private int capacity;
+
+    @Value("${order.intake.workers:4}")
+    private int workers;
+
+    @Value("${order.intake.batch-size:20}")
+    private int batchSize;
+
+    @Value("${order.intake.retention-seconds:3600}")
+    private long retentionSeconds;
+
+    @Value("${order.intake.journal-path:}")
+    private String journalPath;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<Job> queue;
+    private ExecutorService workerPool;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Object journalLock = new Object();
+    private FileChannel journal;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchFallbacks = new LongAdder();
+    // Завершенные заказы по секундам за последнюю минуту (индекс = секунда % 60) — для drain rate
+    private final AtomicLongArray drainBuckets = new AtomicLongArray(60);
+    private final AtomicLongArray drainBucketSeconds = new AtomicLongArray(60);
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (journalPath != null && !journalPath.isBlank()) {
+            recoverJournal(Paths.get(journalPath));
+        }
+
+        running = true;
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + UUID.randomUUID().toString().substring(0, 8));
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::drainLoop);
+        }
+        registerMetrics();
+        logger.info("Асинхронный прием заказов включен: capacity={}, workers={}, batchSize={}, journal={}",
+                capacity, workers, batchSize, journal != null);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.warn("Не удалось закрыть журнал заказов: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Постановка проверенного заказа в очередь.
+     *
+     * @param owner email пользователя — только он (или сотрудник) видит состояние заявки
+     * @throws QueueFullException очередь заполнена
+     */
+    public Ticket submit(OrderRequest orderRequest, String owner) {
+        purgeFinished();
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), owner, System.currentTimeMillis());
+        journalSubmit(ticket, orderRequest);
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(new Job(ticket, orderRequest))) {
+            tickets.remove(ticket.getId());
+            journalDone(ticket);
+            rejected.increment();
+            throw new QueueFullException("Очередь заказов заполнена, повторите попытку позже.");
+        }
+        submitted.increment();
+        return ticket;
+    }
+
+    // Метрики очереди для /actuator/prometheus; значения читаются при сборе, без отдельного учета
+    private void registerMetrics() {
+        Gauge.builder("order.intake.queue.depth", this, OrderIntakeService::getQueueDepth)
+                .description("Заказы в очереди приема")
+                .register(meterRegistry);
+        Gauge.builder("order.intake.queue.capacity", this, service -> service.capacity)
+                .description("Емкость очереди приема")
+                .register(meterRegistry);
+        Gauge.builder("order.intake.drain.rate", this, OrderIntakeService::getDrainRatePerSecond)
+                .description("Обработанные заказы в секунду за последнюю минуту")
+                .register(meterRegistry);
+        FunctionCounter.builder("order.intake.rejected", rejected, LongAdder::sum)
+                .description("Заказы, отклоненные из-за заполненной очереди")
+                .register(meterRegistry);
+    }
+
+    public Ticket getTicket(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("capacity", capacity);
+        stats.put("workers", workers);
+        stats.put("batchSize", batchSize);
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("batchFallbacks", batchFallbacks.sum());
+        stats.put("drainRatePerSecond", getDrainRatePerSecond());
+        stats.put("trackedTickets", tickets.size());
+        return stats;
+    }
+
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Среднее число обработанных заказов в секунду за последнюю минуту.
+     */
+    public double getDrainRatePerSecond() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < 60; i++) {
+            if (nowSecond - drainBucketSeconds.get(i) < 60) {
+                total += drainBuckets.get(i);
+            }
+        }
+        return total / 60.0;
+    }
+
+    private void drainLoop() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Job first = queue.take();
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Ошибка воркера приема заказов: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void processBatch(List<Job> batch) {
+        for (Job job : batch) {
+            job.ticket().state = State.PROCESSING;
+        }
+        batches.increment();
+
+        if (batch.size() > 1) {
+            try {
+                List<CheckoutResult> results = transactionTemplate.execute(status -> {
+                    List<CheckoutResult> created = new ArrayList<>(batch.size());
+                    for (Job job : batch) {
+                        try {
+                            created.add(orderService.createOrder(job.request()));
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e.getMessage(), e);
+                        }
+                    }
+                    return created;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    complete(batch.get(i).ticket(), results.get(i));
+                }
+                return;
+            } catch (Exception e) {
+                // Пачка откатилась целиком — обрабатываем заказы по одному
+                batchFallbacks.increment();
+                logger.warn("Пачка из {} заказов откатилась ({}), повтор по одному.", batch.size(), e.getMessage());
+            }
+        }
+
+        for (Job job : batch) {
+            try {
+                complete(job.ticket(), orderService.createOrder(job.request()));
+            } catch (Exception e) {
+                fail(job.ticket(), e);
+            }
+        }
+    }
+
+    private void complete(Ticket ticket, CheckoutResult result) {
+        ticket.orderId = result.orderId();
+        ticket.paymentId = result.paymentId();
+        ticket.finishedAt = System.currentTimeMillis();
+        ticket.state = State.COMPLETED;
+        completed.increment();
+        recordDrain();
+        journalDone(ticket);
+    }
+
+    private void fail(Ticket ticket, Exception e) {
+        logger.error("Заказ из очереди {} не создан: {}", ticket.getId(), e.getMessage());
+        ticket.error = e.getMessage();
+        ticket.finishedAt = System.currentTimeMillis();
+        ticket.state = State.FAILED;
+        failed.increment();
+        recordDrain();
+        journalDone(ticket);
+    }
+
+    private void recordDrain() {
+        long second = System.currentTimeMillis() / 1000;
+        int index = (int) (second % 60);
+        if (drainBucketSeconds.get(index) != second) {
+            // Новая секунда в этой ячейке: сбрасываем счетчик, который остался от прошлой минуты
+            drainBucketSeconds.set(index, second);
+            drainBuckets.set(index, 0);
+        }
+        drainBuckets.incrementAndGet(index);
+    }
+
+    private void purgeFinished() {
+        long cutoff = System.currentTimeMillis() - retentionSeconds * 1000;
+        tickets.values().removeIf(ticket -> ticket.finishedAt != 0 && ticket.finishedAt < cutoff);
+    }
+
+    // ----- Журнал -----
+
+    private void recoverJournal(Path path) throws IOException {
+        Map<String, JsonNode> pending = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonNode record = objectMapper.readTree(line);
+                    String ticketId = record.path("ticket").asText();
+                    if ("SUBMIT".equals(record.path("op").asText())) {
+                        pending.put(ticketId, record);
+                    } else {
+                        pending.remove(ticketId);
+                    }
+                } catch (IOException e) {
+                    // Оборванная последняя строка после аварийной остановки
+                    logger.warn("Пропущена поврежденная строка журнала заказов: {}", e.getMessage());
+                }
+            }
+        }
+
+        // Компактный журнал: остаются только необработанные заказы
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel writer = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (JsonNode record : pending.values()) {
+                writeLine(writer, record);
+            }
+            writer.force(false);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        for (JsonNode record : pending.values()) {
+            Ticket ticket = new Ticket(record.path("ticket").asText(), record.path("owner").asText(null),
+                    record.path("submittedAt").asLong());
+            OrderRequest request = objectMapper.treeToValue(record.path("request"), OrderRequest.class);
+            tickets.put(ticket.getId(), ticket);
+            if (!queue.offer(new Job(ticket, request))) {
+                logger.error("Очередь заполнена при восстановлении, заказ {} остается в журнале.", ticket.getId());
+                tickets.remove(ticket.getId());
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Из журнала восстановлено необработанных заказов: {}", pending.size());
+        }
+    }
+
+    private void journalSubmit(Ticket ticket, OrderRequest request) {
+        if (journal == null) {
+            return;
+        }
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "SUBMIT");
+        record.put("ticket", ticket.getId());
+        record.put("owner", ticket.getOwner());
+        record.put("submittedAt", ticket.getSubmittedAt());
+        record.set("request", objectMapper.valueToTree(request));
+        appendJournal(record, true);
+    }
+
+    private void journalDone(Ticket ticket) {
+        if (journal == null) {
+            return;
+        }
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "DONE");
+        record.put("ticket", ticket.getId());
+        // Без fsync: потерянная строка DONE означает только повтор заказа (at-least-once)
+        appendJournal(record, false);
+    }
+
+    private void appendJournal(ObjectNode record, boolean durable) {
+        synchronized (journalLock) {
+            try {
+                writeLine(journal, record);
+                if (durable) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Не удалось записать журнал заказов: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void writeLine(FileChannel channel, JsonNode record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((objectMapper.writeValueAsString(record) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -3,13 +3,16 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.OrderProduct;
+import com.bdas_dva.backend.Util.KeysetPagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -72,6 +75,30 @@ public class OrderProductService {
         return jdbcTemplate.query(query, (rs, rowNum) -> mapRowToOrderProduct(rs));
     }
 
+    // Страница связей заказ-продукт (keyset-пагинация по составному ключу)
+    @Transactional(readOnly = true, rollbackFor = Exception.class)
+    public KeysetPage<OrderProduct> getOrderProductsPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 2);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder(
+                "SELECT objednavka_id_objednavky, produkt_id_produktu, quantity FROM objednavka_produkt");
+        if (after != null) {
+            query.append(" WHERE objednavka_id_objednavky > ?" +
+                    " OR (objednavka_id_objednavky = ? AND produkt_id_produktu > ?)");
+            params.add(after[0]);
+            params.add(after[0]);
+            params.add(after[1]);
+        }
+        query.append(" ORDER BY objednavka_id_objednavky, produkt_id_produktu FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<OrderProduct> rows = jdbcTemplate.query(query.toString(), (rs, rowNum) -> mapRowToOrderProduct(rs), params.toArray());
+        return KeysetPagination.page(rows, pageSize,
+                op -> new long[]{op.getOrderId(), op.getProductId()});
+    }
+
     // Получение связи заказ-продукт по составному ключу (Read)
     @Transactional(readOnly = true, rollbackFor = Exception.class)
     public OrderProduct getOrderProductByIds(Long objednavkaIdObjednavky, Long produktIdProduktu) throws ResourceNotFoundException {
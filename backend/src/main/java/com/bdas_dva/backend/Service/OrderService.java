@@ -1,30 +1,49 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Model.*;
+import com.bdas_dva.backend.Model.OrderProduct.BasketQuote;
+import com.bdas_dva.backend.Model.OrderProduct.CheckoutResult;
 import com.bdas_dva.backend.Model.OrderProduct.Order;
 import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
+import com.bdas_dva.backend.Model.OrderProduct.OrderStatusEvent;
 import com.bdas_dva.backend.Model.OrderProduct.Platba.Payment;
 import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.bdas_dva.backend.Model.Rows.OrderSummaryRow;
+import com.bdas_dva.backend.Util.KeysetPagination;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import com.bdas_dva.backend.Util.ResultSetExporter;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.*;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.dao.DataAccessException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.sql.Timestamp;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Služba pro zpracování objednávek a plateb.
@@ -35,22 +54,125 @@ public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    /**
+     * Anonymní PL/SQL blok pro vytvoření objednávky i platby jedním voláním.
+     * Procedury se volají s pojmenovanými parametry, takže nezáleží na jejich pořadí v deklaraci.
+     */
+    private static final String CHECKOUT_BLOCK_HEAD =
+            "DECLARE\n" +
+            "  v_order_id NUMBER;\n" +
+            "  v_payment_id NUMBER;\n" +
+            "BEGIN\n" +
+            "  proc_process_order(p_customer_id => ?, p_first_name => ?, p_last_name => ?, p_email => ?,\n" +
+            "      p_new_phone => ?, p_new_street => ?, p_new_street_number => ?, p_new_post_code => ?,\n" +
+            "      p_new_city => ?, p_products_json => ?, p_order_id => v_order_id);\n" +
+            "  proc_platba_cud(p_action => 'INSERT', p_id_platby => v_payment_id, p_suma => ?, p_datum => ?,\n" +
+            "      p_typ => ?, p_objednavka_id_objednavky => v_order_id);\n";
+    private static final String CHECKOUT_BLOCK_TAIL =
+            "  ? := v_order_id;\n" +
+            "  ? := v_payment_id;\n" +
+            "END;";
+    // Typ platby -> kompletní blok s voláním procedury pro detail platby
+    private static final Map<String, String> CHECKOUT_BLOCKS = Map.of(
+            "cash", CHECKOUT_BLOCK_HEAD
+                    + "  proc_hotovost_cud(p_action => 'INSERT', p_id_platby => v_payment_id, p_prijato => ?, p_vraceno => ?);\n"
+                    + CHECKOUT_BLOCK_TAIL,
+            "card", CHECKOUT_BLOCK_HEAD
+                    + "  proc_karta_cud(p_action => 'INSERT', p_id_platby => v_payment_id, p_cislo_karty => ?);\n"
+                    + CHECKOUT_BLOCK_TAIL,
+            "invoice", CHECKOUT_BLOCK_HEAD
+                    + "  proc_faktura_cud(p_action => 'INSERT', p_id_platby => v_payment_id, p_cislo_uctu => ?, p_datum_splatnosti => ?);\n"
+                    + CHECKOUT_BLOCK_TAIL);
+
+    // Oracle omezuje IN seznam na 1000 výrazů
+    private static final int MAX_IN_LIST = 1000;
+
+    private static final String ORDER_LINES_QUERY = "SELECT " +
+            "OP.OBJEDNAVKA_ID_OBJEDNAVKY AS orderId, " +
+            "P.ID_PRODUKTU AS id, " +
+            "P.NAZEV AS name, " +
+            "P.CENA AS price, " +
+            "P.POPIS AS description, " +
+            "P.KAT_PROD_ID_KATEGORIE AS categoryId, " +
+            "P.SKLAD_ID_SKLADU AS skladId, " +
+            "(SELECT NAZEV FROM OBRAZEK WHERE PRODUKT_ID_PRODUKTU = P.ID_PRODUKTU AND ROWNUM = 1) AS image, " +
+            "OP.QUANTITY AS quantity " +
+            "FROM OBJEDNAVKA_PRODUKT OP " +
+            "JOIN PRODUKT P ON OP.PRODUKT_ID_PRODUKTU = P.ID_PRODUKTU " +
+            "WHERE OP.OBJEDNAVKA_ID_OBJEDNAVKY IN (";
+
+    /**
+     * Hlavičky historie objednávek jednoho zákazníka: zákazník a adresa z USER_VIEW, platba z PLATBA.
+     * Filtr zákazníka, keyset podmínka a řazení se doplňují v getOrderHistory.
+     */
+    private static final String ORDER_HISTORY_QUERY = "SELECT " +
+            "o.ID_OBJEDNAVKY, o.DATUM, o.STATUS_ID, o.ZAKAZNIK_ID_ZAKAZNIKU, " +
+            "uv.JMENO, uv.PRIJMENI, uv.TELEFON, uv.ID_ADRESY, uv.ULICE, uv.CISLOPOPISNE, uv.PSC, uv.MESTO, " +
+            "p.TYP, p.SUMA " +
+            "FROM OBJEDNAVKA o " +
+            "LEFT JOIN USER_VIEW uv ON uv.ID_ZAKAZNIKU = o.ZAKAZNIK_ID_ZAKAZNIKU " +
+            "LEFT JOIN PLATBA p ON p.OBJEDNAVKA_ID_OBJEDNAVKY = o.ID_OBJEDNAVKY ";
+
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    // Předpřipravené reader/writer: typ a serializéry se vyhledají jednou, ne při každém řádku
+    private final ObjectReader productReader;
+    private final ObjectWriter productItemsWriter;
 
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private ResultSetExporter resultSetExporter;
+
+    @Autowired
+    private PriceService priceService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    // true — objednávka i platba se vytvoří jedním anonymním PL/SQL blokem (jeden round trip)
+    @Value("${checkout.single-round-trip:true}")
+    private boolean singleRoundTripCheckout;
+
+    private final ProcedureCallRegistry.ProcedureCall procListUserOrders;
+    private final ProcedureCallRegistry.ProcedureCall procProcessOrder;
+    private final ProcedureCallRegistry.ProcedureCall procPlatbaCud;
+    private final ProcedureCallRegistry.ProcedureCall procHotovostCud;
+    private final ProcedureCallRegistry.ProcedureCall procKartaCud;
+    private final ProcedureCallRegistry.ProcedureCall procFakturaCud;
+
     /**
      * Konstruktor pro injektování závislostí.
      *
      * @param jdbcTemplate  JdbcTemplate pro přístup k databázi.
      * @param objectMapper  ObjectMapper pro serializaci objektů do JSON.
+     * @param procedures    Registr předkompilovaných volání uložených procedur.
      */
     @Autowired
-    public OrderService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    public OrderService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, ProcedureCallRegistry procedures) {
         this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.productItemsWriter = objectMapper.writerFor(new TypeReference<List<OrderRequest.ProductItem>>() {});
+        this.procListUserOrders = procedures.registerWithMetaData("proc_list_user_orders_explicit",
+                new SqlParameter("p_user_id", Types.NUMERIC),
+                new SqlParameter("p_zakaznik_id", Types.NUMERIC),
+                new SqlOutParameter("p_orders", Types.REF_CURSOR, this::mapUserOrder));
+        this.procProcessOrder = procedures.get("proc_process_order");
+        this.procPlatbaCud = procedures.get("proc_platba_cud");
+        this.procHotovostCud = procedures.get("proc_hotovost_cud");
+        this.procKartaCud = procedures.get("proc_karta_cud");
+        this.procFakturaCud = procedures.get("proc_faktura_cud");
     }
 
 
@@ -86,6 +208,17 @@ public class OrderService {
 
             response.put("message", operation + " operation completed successfully.");
             response.put("id_objednavky", orderData.get("idObjednavky"));
+
+            if ("INSERT".equalsIgnoreCase(operation)) {
+                orderSummaryService.refreshNewOrders();
+            } else if (orderData.get("ID_OBJEDNAVKY") != null) {
+                Long orderId = toLong(orderData.get("ID_OBJEDNAVKY"));
+                orderSummaryService.refreshOrder(orderId);
+                OrderStatusEvent.Type type = "DELETE".equalsIgnoreCase(operation)
+                        ? OrderStatusEvent.Type.DELETED : OrderStatusEvent.Type.UPDATED;
+                eventPublisher.publishEvent(new OrderStatusEvent(type, orderId, toLong(orderData.get("STATUS_ID")),
+                        toLong(orderData.get("ZAKAZNIK_ID_ZAKAZNIKU")), Instant.now()));
+            }
         } catch (DataAccessException e) {
             response.put("message", "Error executing CUD operation: " + e.getMessage());
             e.printStackTrace();
@@ -93,6 +226,14 @@ public class OrderService {
         return response;
     }
 
+    // Hodnoty z JSON mapy přicházejí jako čísla i řetězce
+    private static Long toLong(Object value) {
+        if (value == null || value.toString().isEmpty()) {
+            return null;
+        }
+        return value instanceof Number number ? number.longValue() : Long.valueOf(value.toString());
+    }
+
 
     /**
      * Получить всех пользователей из USER_VIEW.
@@ -102,8 +243,56 @@ public class OrderService {
         return jdbcTemplate.queryForList(query);
     }
 
+    /**
+     * Streamovaný export všech objednávek (vzestupně podle ID_OBJEDNAVKY).
+     *
+     * @param format Formát exportu (NDJSON nebo CSV).
+     * @param out    Výstupní proud odpovědi.
+     * @return Počet exportovaných řádků.
+     */
+    public long exportObjednavky(ResultSetExporter.Format format, OutputStream out) {
+        return resultSetExporter.export("SELECT * FROM OBJEDNAVKA ORDER BY ID_OBJEDNAVKY", format, out);
+    }
+
+    /**
+     * Stránka objednávek (keyset stránkování podle ID_OBJEDNAVKY).
+     *
+     * @param cursor Kurzor z předchozí stránky nebo null pro první stránku.
+     * @param limit  Velikost stránky (omezena na KeysetPagination.MAX_LIMIT).
+     * @return Stránka objednávek s kurzorem další stránky.
+     */
+    public KeysetPage<Map<String, Object>> getObjednavkyPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 1);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder("SELECT * FROM OBJEDNAVKA");
+        if (after != null) {
+            query.append(" WHERE ID_OBJEDNAVKY > ?");
+            params.add(after[0]);
+        }
+        query.append(" ORDER BY ID_OBJEDNAVKY FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(query.toString(), params.toArray());
+        return KeysetPagination.page(rows, pageSize,
+                row -> new long[]{KeysetPagination.longValue(row.get("ID_OBJEDNAVKY"))});
+    }
+
+
+    /**
+     * Filtr objednávek pro administraci nad projekcí ORDER_DETAILS_VIEW v paměti
+     * (při order-summary.enabled=false přímo nad pohledem v DB).
+     *
+     * @param maskPhone Maskovat telefon zákazníka při serializaci.
+     * @return Řádky pohledu s klíči sloupců velkými písmeny.
+     */
+    public List<OrderSummaryRow> filterOrders(String name, String phone, String email, Long statusId,
+                                              boolean maskPhone) throws Exception {
+        if (orderSummaryService.isEnabled()) {
+            return orderSummaryService.filter(name, phone, email, statusId, maskPhone);
+        }
 
-    public List<Map<String, Object>> filterOrders(String name, String phone, String email, Long statusId) throws Exception {
         String query = "SELECT * FROM ORDER_DETAILS_VIEW WHERE " +
                 "(:name IS NULL OR UPPER(CUSTOMER_NAME) LIKE UPPER('%' || :name || '%')) AND " +
                 "(:phone IS NULL OR CUSTOMER_PHONE = :phone) AND " +
@@ -117,91 +306,223 @@ public class OrderService {
                 .addValue("statusId", statusId);
 
         // Используем NamedParameterJdbcTemplate для выполнения запроса и возврата результата в виде списка карт
-        return new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(query, params);
+        List<OrderSummaryRow> rows = new ArrayList<>();
+        for (Map<String, Object> row : new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(query, params)) {
+            rows.add(new OrderSummaryRow(row, maskPhone));
+        }
+        return rows;
     }
 
 
     public List<Order> getUserOrders(Long userId, Long zakaznikId) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_list_user_orders_explicit")
-                .returningResultSet("p_orders", (rs, rowNum) -> {
-                    Order order = new Order();
-                    order.setIdObjednavky(rs.getLong("ID_OBJEDNAVKY"));
-                    order.setDatum(rs.getDate("DATUM"));
-                    order.setStav(rs.getString("STAV"));
-                    order.setMnozstviProduktu(rs.getInt("TOTAL_COST"));
-                    order.setZakaznikId(rs.getLong("ZAKAZNIK_ID_ZAKAZNIKU"));
-
-                    Address address = new Address();
-                    address.setIdAdresy(rs.getLong("ADRESA_ID_ADRESY"));
-                    address.setUlice(rs.getString("ULICE"));
-                    address.setCisloPopisne(rs.getString("CISLOPOPISNE"));
-                    address.setPsc(rs.getString("PSC"));
-                    address.setMesto(rs.getString("MESTO"));
-                    order.setAddress(address);
-
-                    Customer customer = new Customer();
-                    customer.setJmeno(rs.getString("JMENO"));
-                    customer.setPrijmeni(rs.getString("PRIJMENI"));
-                    customer.setTelefon(rs.getLong("TELEFON"));
-                    order.setCustomer(customer);
-
-                    Payment payment = new Payment();
-                    payment.setTyp(rs.getString("TYP"));
-                    payment.setSuma(rs.getDouble("TOTAL_COST"));
-                    payment.setDatum(rs.getDate("DATUM"));
-                    order.setPayment(payment);
-
-                    String productsJson = rs.getString("PRODUCTS");
-                    if (productsJson != null) {
-                        ObjectMapper objectMapper = new ObjectMapper();
-                        List<Product> products = null;
-                        try {
-                            products = objectMapper.readValue(
-                                    productsJson,
-                                    new TypeReference<List<Product>>() {}
-                            );
-                        } catch (JsonProcessingException e) {
-                            throw new RuntimeException(e);
-                        }
-                        order.setProducts(products);
-                    }
-
-                    return order;
-                });
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_user_id", userId)
                 .addValue("p_zakaznik_id", zakaznikId);
 
-        Map<String, Object> result = jdbcCall.execute(inParams);
+        long start = System.nanoTime();
+        Map<String, Object> result = procListUserOrders.execute(inParams);
 
         List<Order> orders = (List<Order>) result.get("p_orders");
-        return orders != null ? orders : Collections.emptyList();
+        if (orders == null) {
+            return Collections.emptyList();
+        }
+        logger.debug("Historie objednávek: {} řádků za {} ms", orders.size(), (System.nanoTime() - start) / 1_000_000);
+        return orders;
+    }
+
+    /**
+     * Stránka historie objednávek zákazníka (od nejnovější) se všemi položkami.
+     * Stránka se vybírá v DB (ID_OBJEDNAVKY < kurzor, FETCH FIRST), takže čtení nezávisí na délce historie;
+     * položky všech objednávek stránky se načtou jedním množinovým dotazem.
+     *
+     * @param userId     ID uživatele, jehož zákazníkovi objednávky patří (použije se, pokud chybí zakaznikId).
+     * @param zakaznikId ID zákazníka nebo null.
+     * @param cursor     Kurzor z předchozí stránky (vrací objednávky se starším ID) nebo null.
+     * @param limit      Velikost stránky (omezena na KeysetPagination.MAX_LIMIT).
+     * @return Stránka objednávek s produkty a kurzorem další stránky.
+     */
+    public KeysetPage<Order> getOrderHistory(Long userId, Long zakaznikId, String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] before = KeysetPagination.decode(cursor, 1);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder(ORDER_HISTORY_QUERY);
+        if (zakaznikId != null) {
+            query.append("WHERE o.ZAKAZNIK_ID_ZAKAZNIKU = ?");
+            params.add(zakaznikId);
+        } else {
+            query.append("WHERE o.ZAKAZNIK_ID_ZAKAZNIKU = (SELECT ZAKAZNIK_ID_ZAKAZNIKU FROM \"USER\" WHERE ID_USER = ?)");
+            params.add(userId);
+        }
+        if (before != null) {
+            query.append(" AND o.ID_OBJEDNAVKY < ?");
+            params.add(before[0]);
+        }
+        query.append(" ORDER BY o.ID_OBJEDNAVKY DESC FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        Map<Long, String> statusNames = statusNames();
+        List<Order> rows = jdbcTemplate.query(query.toString(),
+                (rs, rowNum) -> mapOrderHistoryHeader(rs, statusNames), params.toArray());
+        KeysetPage<Order> page = KeysetPagination.page(rows, pageSize,
+                order -> new long[]{order.getIdObjednavky()});
+
+        Map<Long, List<Product>> lines = getProductsByOrderIds(
+                page.getItems().stream().map(Order::getIdObjednavky).toList());
+        for (Order order : page.getItems()) {
+            order.setProducts(lines.getOrDefault(order.getIdObjednavky(), new ArrayList<>()));
+        }
+        return page;
+    }
+
+    // Názvy stavů z cache číselníků (ID_STATUS -> NAZEV)
+    private Map<Long, String> statusNames() {
+        List<Map<String, Object>> statuses = referenceData.get(ReferenceDataCache.Dataset.ORDER_STATUSES);
+        Map<Long, String> names = new HashMap<>();
+        for (Map<String, Object> status : statuses) {
+            names.put(toLong(status.get("ID_STATUS")), (String) status.get("NAZEV"));
+        }
+        return names;
+    }
+
+    /**
+     * Mapování řádku ORDER_HISTORY_QUERY na objekt Order (bez produktů), stejně jako mapUserOrderHeader.
+     */
+    private Order mapOrderHistoryHeader(ResultSet rs, Map<Long, String> statusNames) throws SQLException {
+        Order order = new Order();
+        order.setIdObjednavky(rs.getLong("ID_OBJEDNAVKY"));
+        order.setDatum(rs.getDate("DATUM"));
+        order.setStav(statusNames.get(rs.getLong("STATUS_ID")));
+        order.setMnozstviProduktu(rs.getInt("SUMA"));
+        order.setZakaznikId(rs.getLong("ZAKAZNIK_ID_ZAKAZNIKU"));
+
+        Address address = new Address();
+        address.setIdAdresy(rs.getLong("ID_ADRESY"));
+        address.setUlice(rs.getString("ULICE"));
+        address.setCisloPopisne(rs.getString("CISLOPOPISNE"));
+        address.setPsc(rs.getString("PSC"));
+        address.setMesto(rs.getString("MESTO"));
+        order.setAddress(address);
+
+        Customer customer = new Customer();
+        customer.setJmeno(rs.getString("JMENO"));
+        customer.setPrijmeni(rs.getString("PRIJMENI"));
+        customer.setTelefon(rs.getLong("TELEFON"));
+        order.setCustomer(customer);
+
+        Payment payment = new Payment();
+        payment.setTyp(rs.getString("TYP"));
+        payment.setSuma(rs.getDouble("SUMA"));
+        payment.setDatum(rs.getDate("DATUM"));
+        order.setPayment(payment);
+
+        return order;
+    }
+
+    /**
+     * Mapování řádku kurzoru `proc_list_user_orders_explicit` na objekt Order včetně produktů.
+     * JSON pole produktů se čte proudově přímo ze sloupce (i CLOB) a prvky se mapují
+     * na Product jeden po druhém, bez mezilehlého String ani stromu JsonNode.
+     */
+    private Order mapUserOrder(ResultSet rs, int rowNum) throws SQLException {
+        Order order = mapUserOrderHeader(rs, rowNum);
+
+        try (Reader productsJson = rs.getCharacterStream("PRODUCTS")) {
+            if (productsJson != null) {
+                List<Product> products = new ArrayList<>();
+                try (MappingIterator<Product> iterator = productReader.readValues(productsJson)) {
+                    while (iterator.hasNextValue()) {
+                        products.add(iterator.nextValue());
+                    }
+                }
+                order.setProducts(products);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return order;
+    }
+
+    /**
+     * Mapování řádku kurzoru `proc_list_user_orders_explicit` na objekt Order (bez produktů).
+     */
+    private Order mapUserOrderHeader(ResultSet rs, int rowNum) throws SQLException {
+        Order order = new Order();
+        order.setIdObjednavky(rs.getLong("ID_OBJEDNAVKY"));
+        order.setDatum(rs.getDate("DATUM"));
+        order.setStav(rs.getString("STAV"));
+        order.setMnozstviProduktu(rs.getInt("TOTAL_COST"));
+        order.setZakaznikId(rs.getLong("ZAKAZNIK_ID_ZAKAZNIKU"));
+
+        Address address = new Address();
+        address.setIdAdresy(rs.getLong("ADRESA_ID_ADRESY"));
+        address.setUlice(rs.getString("ULICE"));
+        address.setCisloPopisne(rs.getString("CISLOPOPISNE"));
+        address.setPsc(rs.getString("PSC"));
+        address.setMesto(rs.getString("MESTO"));
+        order.setAddress(address);
+
+        Customer customer = new Customer();
+        customer.setJmeno(rs.getString("JMENO"));
+        customer.setPrijmeni(rs.getString("PRIJMENI"));
+        customer.setTelefon(rs.getLong("TELEFON"));
+        order.setCustomer(customer);
+
+        Payment payment = new Payment();
+        payment.setTyp(rs.getString("TYP"));
+        payment.setSuma(rs.getDouble("TOTAL_COST"));
+        payment.setDatum(rs.getDate("DATUM"));
+        order.setPayment(payment);
+
+        return order;
     }
 
 
     /**
      * Vytvoří objednávku a zpracuje platbu.
      * Celý proces je transakční - v případě chyby se všechny změny vrátí zpět.
+     * Košík a údaje platby se nejdřív ověří přes {@link #validateOrderRequest} (v obou režimech checkoutu).
      *
      * @param orderRequest Data objednávky.
+     * @return ID vytvořené objednávky a platby.
      * @throws Exception V případě chyby při vytváření objednávky nebo zpracování platby.
      */
     @Transactional(rollbackFor = Exception.class)
-    public void createOrder(OrderRequest orderRequest) throws Exception {
+    public CheckoutResult createOrder(OrderRequest orderRequest) throws Exception {
+        long start = System.nanoTime();
+        String paymentType = paymentTypeTag(orderRequest.getPaymentType());
+        String outcome = "error";
         try {
+            // Košík a údaje platby se kontrolují v obou režimech: neznámé produkty ani neplatné množství
+            // se nesmí dostat do JSON pro proceduru, když je výpočet částky platby vynechá
+            validateOrderRequest(orderRequest);
+            // Ceny od klienta se nahradí serverovými, aby JSON pro proceduru i platba odpovídaly ceníku
+            priceService.applyServerPrices(orderRequest.getProducts());
             // Převod seznamu produktů do JSON formátu
-            String productsJson = objectMapper.writeValueAsString(orderRequest.getProducts());
+            String productsJson = timeStage("serialize_products", paymentType,
+                    () -> productItemsWriter.writeValueAsString(orderRequest.getProducts()));
             logger.info("Produkty v JSON formátu: {}", productsJson);
 
-            // Krok 1: Zpracování objednávky a aktualizace dat zákazníka
-            Long orderId = processOrder(orderRequest, productsJson);
-
-            // Krok 2: Zpracování platby
-            processPayment(orderRequest, orderId);
-
-            logger.info("Objednávka úspěšně vytvořena. ID objednávky: {}", orderId);
+            CheckoutResult result;
+            if (singleRoundTripCheckout) {
+                result = timeStage("checkout_block", paymentType, () -> checkoutInSingleCall(orderRequest, productsJson));
+            } else {
+                // Krok 1: Zpracování objednávky a aktualizace dat zákazníka
+                Long orderId = processOrder(orderRequest, productsJson);
+
+                // Krok 2: Zpracování platby
+                Long paymentId = processPayment(orderRequest, orderId);
+                result = new CheckoutResult(orderId, paymentId);
+            }
+
+            logger.info("Objednávka úspěšně vytvořena. ID objednávky: {}, ID platby: {}, jedno volání: {}, doba: {} ms",
+                    result.orderId(), result.paymentId(), singleRoundTripCheckout, (System.nanoTime() - start) / 1_000_000);
+            orderSummaryService.refreshOrder(result.orderId());
+            eventPublisher.publishEvent(new OrderStatusEvent(OrderStatusEvent.Type.CREATED, result.orderId(),
+                    null, orderRequest.getCustomerId(), Instant.now()));
+            outcome = "success";
+            return result;
         } catch (DataAccessException dae) {
             // Logování chyby spojené s přístupem k datům a přehazování výjimky pro rollback transakce
             logger.error("DataAccessException při vytváření objednávky: {}", dae.getMessage(), dae);
@@ -210,9 +531,188 @@ public class OrderService {
             // Logování obecné chyby a přehazování výjimky pro rollback transakce
             logger.error("Exception při vytváření objednávky: {}", e.getMessage(), e);
             throw e;
+        } finally {
+            Timer.builder("checkout.total")
+                    .description("Doba vytvoření objednávky včetně platby")
+                    .tag("payment_type", paymentType)
+                    .tag("mode", singleRoundTripCheckout ? "single_call" : "multi_call")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    /**
+     * Změří jednu fázi checkoutu do timeru `checkout.stage` (tagy stage, payment_type, outcome).
+     */
+    private <T> T timeStage(String stage, String paymentType, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T value = call.call();
+            outcome = "success";
+            return value;
+        } finally {
+            Timer.builder("checkout.stage")
+                    .description("Doba jedné fáze vytvoření objednávky")
+                    .tag("stage", stage)
+                    .tag("payment_type", paymentType)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Hodnota tagu z omezené množiny, aby neznámé typy platby nevytvářely nové časové řady
+    private static String paymentTypeTag(String paymentType) {
+        String type = paymentType != null ? paymentType.toLowerCase() : "";
+        return CHECKOUT_BLOCKS.containsKey(type) ? type : "unknown";
+    }
+
+    /**
+     * Kalkulace košíku podle serverových cen (bez vytvoření objednávky).
+     *
+     * @param items Položky košíku.
+     * @return Celková částka, položky a seznam problémů s dostupností.
+     */
+    public BasketQuote quoteBasket(List<OrderRequest.ProductItem> items) {
+        return priceService.quote(items);
+    }
+
+    /**
+     * Zkontroluje objednávku bez volání procedur: produkty podle ceníku v paměti, typ platby a údaje potřebné pro daný typ.
+     *
+     * @param orderRequest Data objednávky.
+     * @throws Exception Pokud objednávka nemůže být zpracována.
+     */
+    public void validateOrderRequest(OrderRequest orderRequest) throws Exception {
+        if (orderRequest.getProducts() == null || orderRequest.getProducts().isEmpty()) {
+            logger.error("Objednávka neobsahuje žádné produkty.");
+            throw new Exception("Objednávka neobsahuje žádné produkty.");
+        }
+        BasketQuote quote = priceService.quote(orderRequest.getProducts());
+        if (!quote.isValid()) {
+            logger.error("Neplatný košík: neexistující produkty {}, neplatné množství {}, nedostupné produkty {}",
+                    quote.unknownProductIds(), quote.invalidQuantityProductIds(), quote.unavailableProductIds());
+            throw new Exception("Neplatný košík: neexistující produkty " + quote.unknownProductIds()
+                    + ", neplatné množství " + quote.invalidQuantityProductIds()
+                    + ", nedostupné produkty " + quote.unavailableProductIds() + ".");
+        }
+        String paymentType = orderRequest.getPaymentType() != null
+                ? orderRequest.getPaymentType().toLowerCase() : null;
+        if (paymentType == null || !CHECKOUT_BLOCKS.containsKey(paymentType)) {
+            logger.error("Neznámý typ platby: {}", orderRequest.getPaymentType());
+            throw new Exception("Neznámý typ platby: " + orderRequest.getPaymentType());
+        }
+
+        switch (paymentType) {
+            case "cash": {
+                Double cashReceived = orderRequest.getCashAmount();
+                if (cashReceived == null) {
+                    logger.error("Částka přijatých hotovosti nemůže být null.");
+                    throw new Exception("Částka přijatých hotovosti nemůže být null.");
+                }
+                double totalAmount = quote.total();
+                if (cashReceived - totalAmount < 0) {
+                    logger.error("Přijatá částka je menší než celková částka objednávky. Přijato: {}, Celkem: {}", cashReceived, totalAmount);
+                    throw new Exception("Přijatá částka je menší než celková částka objednávky.");
+                }
+                break;
+            }
+            case "card": {
+                String cardNumber = orderRequest.getCardNumber();
+                if (cardNumber == null || cardNumber.trim().isEmpty()) {
+                    logger.error("Číslo karty nemůže být prázdné.");
+                    throw new Exception("Číslo karty nemůže být prázdné.");
+                }
+                break;
+            }
+            default: {
+                String bankAccountNumber = orderRequest.getBankAccountNumber();
+                if (bankAccountNumber == null || bankAccountNumber.trim().isEmpty()) {
+                    logger.error("Číslo bankovního účtu nemůže být prázdné.");
+                    throw new Exception("Číslo bankovního účtu nemůže být prázdné.");
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Vytvoří objednávku, platbu a detail platby jedním anonymním PL/SQL blokem.
+     * Vstupní údaje platby zkontroloval createOrder, takže chybný požadavek do databáze vůbec neodejde.
+     *
+     * @param orderRequest Data objednávky.
+     * @param productsJson JSON reprezentace seznamu produktů.
+     * @return ID vytvořené objednávky a platby.
+     * @throws Exception V případě neplatných údajů platby nebo chyby při vykonání bloku.
+     */
+    private CheckoutResult checkoutInSingleCall(OrderRequest orderRequest, String productsJson) throws Exception {
+        String paymentType = orderRequest.getPaymentType().toLowerCase();
+        String block = CHECKOUT_BLOCKS.get(paymentType);
+
+        Double totalAmount = calculateTotalAmount(orderRequest);
+        Object[] detailArgs;
+        int[] detailTypes;
+        switch (paymentType) {
+            case "cash":
+                detailArgs = new Object[]{orderRequest.getCashAmount(), orderRequest.getCashAmount() - totalAmount};
+                detailTypes = new int[]{Types.NUMERIC, Types.NUMERIC};
+                break;
+            case "card":
+                detailArgs = new Object[]{orderRequest.getCardNumber()};
+                detailTypes = new int[]{Types.VARCHAR};
+                break;
+            default:
+                detailArgs = new Object[]{orderRequest.getBankAccountNumber(), calculateDueDate()};
+                detailTypes = new int[]{Types.VARCHAR, Types.TIMESTAMP};
+                break;
+        }
+
+        Object[] args = {
+                orderRequest.getCustomerId(), orderRequest.getFirstName(), orderRequest.getLastName(),
+                orderRequest.getEmail(), orderRequest.getPhone(), orderRequest.getStreet(),
+                orderRequest.getStreetNumber(), orderRequest.getPostCode(), orderRequest.getCity(), productsJson,
+                totalAmount, new Timestamp(System.currentTimeMillis() - 1000), getPaymentTypeCode(paymentType)
+        };
+        int[] argTypes = {
+                Types.NUMERIC, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.NUMERIC, Types.TIMESTAMP, Types.VARCHAR
+        };
+
+        logger.info("Volání checkout bloku: customerId={}, typ platby={}, suma={}",
+                orderRequest.getCustomerId(), paymentType, totalAmount);
+
+        return jdbcTemplate.execute(block, (CallableStatementCallback<CheckoutResult>) cs -> {
+            int index = 1;
+            for (int i = 0; i < args.length; i++) {
+                cs.setObject(index++, args[i], argTypes[i]);
+            }
+            for (int i = 0; i < detailArgs.length; i++) {
+                cs.setObject(index++, detailArgs[i], detailTypes[i]);
+            }
+            int orderIdIndex = index++;
+            int paymentIdIndex = index;
+            cs.registerOutParameter(orderIdIndex, Types.NUMERIC);
+            cs.registerOutParameter(paymentIdIndex, Types.NUMERIC);
+            cs.execute();
+
+            long orderId = cs.getLong(orderIdIndex);
+            if (cs.wasNull()) {
+                throw new SQLException("Nepodařilo se získat ID objednávky po volání checkout bloku.");
+            }
+            long paymentId = cs.getLong(paymentIdIndex);
+            if (cs.wasNull()) {
+                throw new SQLException("Nepodařilo se získat ID platby po volání checkout bloku.");
+            }
+            return new CheckoutResult(orderId, paymentId);
+        });
+    }
+
     /**
      * Zpracuje vytvoření objednávky voláním uložené procedury `proc_process_order`.
      *
@@ -222,23 +722,6 @@ public class OrderService {
      * @throws Exception V případě chyby při volání procedury.
      */
     private Long processOrder(OrderRequest orderRequest, String productsJson) throws Exception {
-        // Konfigurace volání uložené procedury `proc_process_order`
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_process_order")
-                .declareParameters(
-                        new SqlParameter("p_customer_id", Types.NUMERIC),
-                        new SqlParameter("p_first_name", Types.VARCHAR),
-                        new SqlParameter("p_last_name", Types.VARCHAR),
-                        new SqlParameter("p_email", Types.VARCHAR),
-                        new SqlParameter("p_new_phone", Types.VARCHAR),
-                        new SqlParameter("p_new_street", Types.VARCHAR),
-                        new SqlParameter("p_new_street_number", Types.VARCHAR),
-                        new SqlParameter("p_new_post_code", Types.VARCHAR),
-                        new SqlParameter("p_new_city", Types.VARCHAR),
-                        new SqlParameter("p_products_json", Types.CLOB),
-                        new SqlOutParameter("p_order_id", Types.NUMERIC)
-                );
-
         // Příprava vstupních parametrů pro proceduru
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_customer_id", orderRequest.getCustomerId())
@@ -266,7 +749,8 @@ public class OrderService {
         );
 
         // Volání procedury
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = timeStage("proc_process_order", paymentTypeTag(orderRequest.getPaymentType()),
+                () -> procProcessOrder.execute(inParams));
 
         // Extrakce ID objednávky z výstupních parametrů
         Number orderIdNumber = (Number) out.get("p_order_id");
@@ -285,9 +769,10 @@ public class OrderService {
      *
      * @param orderRequest Data objednávky.
      * @param orderId      ID vytvořené objednávky.
+     * @return ID vytvořené platby.
      * @throws Exception V případě chyby při zpracování platby.
      */
-    private void processPayment(OrderRequest orderRequest, Long orderId) throws Exception {
+    private Long processPayment(OrderRequest orderRequest, Long orderId) throws Exception {
         // Výpočet celkové částky objednávky
         Double totalAmount = calculateTotalAmount(orderRequest);
         logger.info("Celková částka pro objednávku ID {}: {}", orderId, totalAmount);
@@ -312,6 +797,7 @@ public class OrderService {
         }
 
         logger.info("Zpracování platby dokončeno úspěšně pro platbu ID: {}", paymentId);
+        return paymentId;
     }
 
     /**
@@ -325,22 +811,6 @@ public class OrderService {
      * @throws Exception V případě chyby při volání procedury.
      */
     private Long insertPayment(String action, Double totalAmount, Long orderId, String paymentType) throws Exception {
-        ZonedDateTime currentTime = ZonedDateTime.now();
-        System.out.println("Aktuální čas backendu: " + currentTime);
-
-        ZoneId currentZone = ZoneId.systemDefault();
-        System.out.println("Časové pásmo backendu: " + currentZone);
-        SimpleJdbcCall paymentCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_platba_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlInOutParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_suma", Types.NUMERIC),
-                        new SqlParameter("p_datum", Types.TIMESTAMP),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC)
-                );
-
         // Použití aktuálního data a času
         Timestamp currentTimestamp = new Timestamp(System.currentTimeMillis() - 1000);
 
@@ -357,7 +827,8 @@ public class OrderService {
                 action, totalAmount, currentTimestamp, getPaymentTypeCode(paymentType), orderId);
 
         // Volání procedury
-        Map<String, Object> out = paymentCall.execute(inParams);
+        Map<String, Object> out = timeStage("proc_platba_cud", paymentTypeTag(paymentType),
+                () -> procPlatbaCud.execute(inParams));
 
         // Extrakce ID platby z výstupních parametrů
         Number paymentIdNumber = (Number) out.get("p_id_platby");
@@ -380,16 +851,6 @@ public class OrderService {
      * @throws Exception V případě chyby při volání procedury.
      */
     private void insertCashPayment(Long paymentId, OrderRequest orderRequest, Double totalAmount) throws Exception {
-        // Konfigurace volání uložené procedury `proc_hotovost_cud`
-        SimpleJdbcCall cashCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_hotovost_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_prijato", Types.NUMERIC),
-                        new SqlParameter("p_vraceno", Types.NUMERIC)
-                );
-
         // Získání částky přijatých peněz
         Double cashReceived = orderRequest.getCashAmount();
         if (cashReceived == null) {
@@ -415,7 +876,7 @@ public class OrderService {
                 paymentId, cashReceived, change);
 
         // Volání procedury
-        cashCall.execute(inParams);
+        timeStage("proc_hotovost_cud", "cash", () -> procHotovostCud.execute(inParams));
 
         logger.info("Platba v hotovosti úspěšně přidána pro platbu ID: {}", paymentId);
     }
@@ -428,15 +889,6 @@ public class OrderService {
      * @throws Exception V případě chyby při volání procedury.
      */
     private void insertCardPayment(Long paymentId, OrderRequest orderRequest) throws Exception {
-        // Konfigurace volání uložené procedury `proc_karta_cud`
-        SimpleJdbcCall cardCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_karta_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_cislo_karty", Types.VARCHAR)
-                );
-
         // Získání čísla karty
         String cardNumber = orderRequest.getCardNumber();
         if (cardNumber == null || cardNumber.trim().isEmpty()) {
@@ -454,7 +906,7 @@ public class OrderService {
                 paymentId, cardNumber);
 
         // Volání procedury
-        cardCall.execute(inParams);
+        timeStage("proc_karta_cud", "card", () -> procKartaCud.execute(inParams));
 
         logger.info("Platba kartou úspěšně přidána pro platbu ID: {}", paymentId);
     }
@@ -478,16 +930,6 @@ public class OrderService {
         Timestamp dueDate = calculateDueDate();
         logger.info("Vypočítané datum splatnosti faktury: {}", dueDate);
 
-        // Konfigurace volání uložené procedury `proc_faktura_cud`
-        SimpleJdbcCall invoiceCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_faktura_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_cislo_uctu", Types.VARCHAR),
-                        new SqlParameter("p_datum_splatnosti", Types.TIMESTAMP)
-                );
-
         // Příprava vstupních parametrů
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_action", "INSERT")
@@ -499,7 +941,7 @@ public class OrderService {
                 paymentId, bankAccountNumber, dueDate);
 
         // Volání procedury
-        invoiceCall.execute(inParams);
+        timeStage("proc_faktura_cud", "invoice", () -> procFakturaCud.execute(inParams));
 
         logger.info("Platba fakturou úspěšně přidána pro platbu ID: {}", paymentId);
     }
@@ -542,43 +984,46 @@ public class OrderService {
     }
 
     /**
-     * Vypočítá celkovou částku objednávky na základě seznamu produktů.
+     * Vypočítá celkovou částku objednávky podle serverového ceníku (ceny od klienta se ignorují).
      *
      * @param orderRequest Data objednávky.
      * @return Celková částka objednávky.
      */
     private Double calculateTotalAmount(OrderRequest orderRequest) {
-        Double total = orderRequest.getProducts().stream()
-                .mapToDouble(p -> p.getPrice() * p.getQuantity())
-                .sum();
-        logger.info("Vypočítaná celková částka: {}", total);
-        return total;
+        BasketQuote quote = priceService.quote(orderRequest.getProducts());
+        logger.info("Vypočítaná celková částka: {} (verze ceníku {})", quote.total(), quote.priceVersion());
+        return quote.total();
     }
 
     public List<Product> getProductsByOrderId(Long orderId) {
-        String query = "SELECT " +
-                "P.ID_PRODUKTU AS id, " +
-                "P.NAZEV AS name, " +
-                "P.CENA AS price, " +
-                "P.POPIS AS description, " +
-                "P.KAT_PROD_ID_KATEGORIE AS categoryId, " +
-                "P.SKLAD_ID_SKLADU AS skladId, " +
-                "(SELECT NAZEV FROM OBRAZEK WHERE PRODUKT_ID_PRODUKTU = P.ID_PRODUKTU AND ROWNUM = 1) AS image, " +
-                "OP.QUANTITY AS quantity " +
-                "FROM OBJEDNAVKA_PRODUKT OP " +
-                "JOIN PRODUKT P ON OP.PRODUKT_ID_PRODUKTU = P.ID_PRODUKTU " +
-                "WHERE OP.OBJEDNAVKA_ID_OBJEDNAVKY = ?";
-
-        return jdbcTemplate.query(query, new Object[]{orderId}, (rs, rowNum) -> {
-            Product product = new Product();
-            product.setId(rs.getLong("id"));
-            product.setName(rs.getString("name"));
-            product.setPrice(rs.getDouble("price"));
-            product.setCategoryId(rs.getLong("categoryId"));
-            product.setSkladId(rs.getLong("skladId"));
-            product.setImage(rs.getString("image"));
-            product.setQuantity(rs.getInt("quantity"));
-            return product;
-        });
+        return getProductsByOrderIds(List.of(orderId)).getOrDefault(orderId, new ArrayList<>());
+    }
+
+    /**
+     * Položky více objednávek množinovým dotazem (IN seznam po MAX_IN_LIST ID na dotaz).
+     *
+     * @param orderIds ID objednávek.
+     * @return Produkty podle ID objednávky; objednávky bez položek v mapě chybí.
+     */
+    public Map<Long, List<Product>> getProductsByOrderIds(Collection<Long> orderIds) {
+        Map<Long, List<Product>> linesByOrder = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            String query = ORDER_LINES_QUERY + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+                Product product = new Product();
+                product.setId(rs.getLong("id"));
+                product.setName(rs.getString("name"));
+                product.setPrice(rs.getDouble("price"));
+                product.setCategoryId(rs.getLong("categoryId"));
+                product.setSkladId(rs.getLong("skladId"));
+                product.setImage(rs.getString("image"));
+                product.setQuantity(rs.getInt("quantity"));
+                linesByOrder.computeIfAbsent(rs.getLong("orderId"), id -> new ArrayList<>()).add(product);
+            }, chunk.toArray());
+        }
+        return linesByOrder;
     }
 }
@@ -1,21 +1,79 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.OrderProduct.BulkStatusResult;
+import com.bdas_dva.backend.Model.OrderProduct.OrderStatusEvent;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import com.bdas_dva.backend.Util.ResultSetValues;
+import jakarta.annotation.PostConstruct;
+import oracle.jdbc.OracleConnection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Array;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Instant;
 import java.util.*;
 
 @Service
 public class OrderStatusService {
 
+    /**
+     * Анонимный PL/SQL блок: ID части передаются одним массивом SYS.ODCINUMBERLIST,
+     * UpdateOrderStatus вызывается в цикле на стороне БД — вся часть за один round trip.
+     */
+    private static final String STATUS_BATCH_BLOCK =
+            "DECLARE\n" +
+            "  v_ids SYS.ODCINUMBERLIST := ?;\n" +
+            "  v_status_id NUMBER := ?;\n" +
+            "BEGIN\n" +
+            "  FOR i IN 1 .. v_ids.COUNT LOOP\n" +
+            "    UpdateOrderStatus(v_ids(i), v_status_id);\n" +
+            "  END LOOP;\n" +
+            "END;";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    // Заказов в одном PL/SQL блоке (одна транзакция и один round trip), не больше 32767 — размер ODCINUMBERLIST
+    @Value("${order-status.bulk-chunk-size:200}")
+    private int bulkChunkSize;
+
+    @Value("${order-status.bulk-max-ids:5000}")
+    private int bulkMaxIds;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        referenceData.register(ReferenceDataCache.Dataset.ORDER_STATUSES, this::loadAllStatuses);
+    }
+
     /**
      * Выполнение процедуры для операций CREATE, UPDATE, DELETE.
      */
@@ -39,6 +97,9 @@ public class OrderStatusService {
             callableStatement.execute();
             return null;
         });
+        // Название статуса входит в ORDER_STATUS проекции заказов
+        orderSummaryService.refreshStatus(idStatus);
+        referenceData.refresh(ReferenceDataCache.Dataset.ORDER_STATUSES);
     }
 
     /**
@@ -66,9 +127,13 @@ public class OrderStatusService {
     }
 
     /**
-     * Выполнение процедуры для чтения всех статусов.
+     * Все статусы (из снимка справочников, загружается процедурой proc_status_objednavky_r).
      */
     public List<Map<String, Object>> executeReadAll() {
+        return referenceData.get(ReferenceDataCache.Dataset.ORDER_STATUSES);
+    }
+
+    private List<Map<String, Object>> loadAllStatuses() {
         return jdbcTemplate.execute((Connection connection) -> {
             CallableStatement callableStatement = connection.prepareCall("{call proc_status_objednavky_r(?, ?)}");
             callableStatement.setNull(1, java.sql.Types.NUMERIC);
@@ -94,6 +159,110 @@ public class OrderStatusService {
      * Метод для изменения статуса заказа.
      */
     public void updateOrderStatus(Long orderId, Long newStatusId) {
+        callUpdateOrderStatus(orderId, newStatusId);
+        orderSummaryService.refreshOrder(orderId);
+        eventPublisher.publishEvent(new OrderStatusEvent(
+                OrderStatusEvent.Type.STATUS_CHANGED, orderId, newStatusId, null, Instant.now()));
+    }
+
+    /**
+     * Массовое изменение статуса заказов. ID обрабатываются частями по order-status.bulk-chunk-size:
+     * один запрос проверки существования и один анонимный PL/SQL блок с массивом ID на часть.
+     * Блок выполняется в транзакции; если он падает, часть откатывается и повторяется поштучно,
+     * чтобы ошибка одного заказа не помешала остальным и попала в результат именно этого ID.
+     *
+     * @throws IllegalArgumentException пустой список, слишком много ID или неизвестный статус
+     */
+    public BulkStatusResult updateOrderStatuses(List<Long> orderIds, Long newStatusId) {
+        if (newStatusId == null) {
+            throw new IllegalArgumentException("Новый статус обязателен.");
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("Список заказов пуст.");
+        }
+        if (orderIds.size() > bulkMaxIds) {
+            throw new IllegalArgumentException("Не более " + bulkMaxIds + " заказов за один запрос.");
+        }
+        try {
+            executeRead(newStatusId);
+        } catch (DataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Статус с ID " + newStatusId + " не найден.");
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        ids.removeIf(Objects::isNull);
+        Map<Long, BulkStatusResult.Item> outcomes = new HashMap<>();
+        // ID заказчика каждого найденного заказа — для событий, чтобы поток рассылки не читал его по одному
+        Map<Long, Long> customers = new HashMap<>();
+        List<Long> updated = new ArrayList<>();
+        int roundTrips = 1;
+
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            Map<Long, Long> existing = findExistingOrders(chunk);
+            customers.putAll(existing);
+            roundTrips++;
+
+            List<Long> present = new ArrayList<>();
+            for (Long orderId : chunk) {
+                if (existing.containsKey(orderId)) {
+                    present.add(orderId);
+                } else {
+                    outcomes.put(orderId, new BulkStatusResult.Item(orderId, BulkStatusResult.Outcome.NOT_FOUND,
+                            "Заказ не найден."));
+                }
+            }
+            if (present.isEmpty()) {
+                continue;
+            }
+
+            try {
+                roundTrips++;
+                transactionTemplate.executeWithoutResult(status -> executeStatusBatch(present, newStatusId));
+                for (Long orderId : present) {
+                    outcomes.put(orderId, new BulkStatusResult.Item(orderId, BulkStatusResult.Outcome.UPDATED, null));
+                }
+                updated.addAll(present);
+            } catch (DataAccessException batchError) {
+                for (Long orderId : present) {
+                    roundTrips++;
+                    try {
+                        callUpdateOrderStatus(orderId, newStatusId);
+                        outcomes.put(orderId, new BulkStatusResult.Item(orderId, BulkStatusResult.Outcome.UPDATED, null));
+                        updated.add(orderId);
+                    } catch (DataAccessException e) {
+                        outcomes.put(orderId, new BulkStatusResult.Item(orderId, BulkStatusResult.Outcome.FAILED,
+                                e.getMostSpecificCause().getMessage()));
+                    }
+                }
+            }
+        }
+
+        orderSummaryService.refreshOrders(updated);
+        Instant now = Instant.now();
+        for (Long orderId : updated) {
+            eventPublisher.publishEvent(new OrderStatusEvent(
+                    OrderStatusEvent.Type.STATUS_CHANGED, orderId, newStatusId, customers.get(orderId), now));
+        }
+
+        List<BulkStatusResult.Item> results = new ArrayList<>(ids.size());
+        int notFound = 0;
+        int failed = 0;
+        for (Long orderId : ids) {
+            BulkStatusResult.Item item = outcomes.get(orderId);
+            results.add(item);
+            if (item.outcome() == BulkStatusResult.Outcome.NOT_FOUND) {
+                notFound++;
+            } else if (item.outcome() == BulkStatusResult.Outcome.FAILED) {
+                failed++;
+            }
+        }
+        return new BulkStatusResult(newStatusId, ids.size(), updated.size(), notFound, failed, roundTrips, results);
+    }
+
+    private void callUpdateOrderStatus(Long orderId, Long newStatusId) {
         jdbcTemplate.execute((Connection connection) -> {
             CallableStatement callableStatement = connection.prepareCall("{call UpdateOrderStatus(?, ?)}");
             callableStatement.setLong(1, orderId);
@@ -102,4 +271,36 @@ public class OrderStatusService {
             return null;
         });
     }
+
+    private void executeStatusBatch(List<Long> orderIds, Long newStatusId) {
+        jdbcTemplate.execute((Connection connection) -> {
+            Array ids = connection.unwrap(OracleConnection.class)
+                    .createOracleArray("SYS.ODCINUMBERLIST", orderIds.toArray(new Long[0]));
+            try (CallableStatement callableStatement = connection.prepareCall(STATUS_BATCH_BLOCK)) {
+                callableStatement.setArray(1, ids);
+                callableStatement.setLong(2, newStatusId);
+                callableStatement.execute();
+            } finally {
+                ids.free();
+            }
+            return null;
+        });
+    }
+
+    // Найденные заказы: ID заказа -> ID заказчика (может быть null)
+    private Map<Long, Long> findExistingOrders(List<Long> orderIds) {
+        String sql = "SELECT ID_OBJEDNAVKY, ZAKAZNIK_ID_ZAKAZNIKU FROM OBJEDNAVKA WHERE ID_OBJEDNAVKY IN ("
+                + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")";
+        Map<Long, Long> existing = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                existing.put(rs.getLong(1), ResultSetValues.getLong(rs, 2)), orderIds.toArray());
+        return existing;
+    }
+
+    /**
+     * Состояние заявки асинхронного приема заказа (или null, если заявка неизвестна или уже удалена).
+     */
+    public OrderIntakeService.Ticket getIntakeStatus(String ticketId) {
+        return orderIntakeService.getTicket(ticketId);
+    }
 }
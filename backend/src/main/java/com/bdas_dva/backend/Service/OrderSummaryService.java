@@ -0,0 +1,376 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.Rows.OrderSummaryRow;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Проекция ORDER_DETAILS_VIEW в памяти для фильтра заказов администратора.
+ * Подстрочный поиск по имени и email (как UPPER(...) LIKE '%x%') идет по индексу триграмм,
+ * телефон и статус — по точным хеш-индексам, поэтому фильтр не сканирует представление в БД.
+ * Проекция загружается целиком при первом обращении и по истечении order-summary.refresh-seconds,
+ * а изменения заказов, статусов и платежей точечно перечитывают затронутые строки после коммита.
+ */
+@Service
+public class OrderSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSummaryService.class);
+
+    private static final String VIEW_QUERY = "SELECT * FROM ORDER_DETAILS_VIEW";
+    private static final int GRAM = 3;
+    // Oracle ограничивает IN список 1000 выражениями
+    private static final int MAX_IN_LIST = 1000;
+
+    @Value("${order-summary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order-summary.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Полная загрузка и точечные обновления проекции выполняются под одним монитором
+    private final Object loadMonitor = new Object();
+
+    // Индексы, защищенные lock
+    private final TreeMap<Long, Map<String, Object>> rows = new TreeMap<>();
+    private final Map<String, Set<Long>> nameGrams = new HashMap<>();
+    private final Map<String, Set<Long>> emailGrams = new HashMap<>();
+    private final Map<String, Set<Long>> byPhone = new HashMap<>();
+    private final Map<Long, Set<Long>> byStatus = new HashMap<>();
+    private volatile boolean loaded;
+    private volatile long loadedAtNanos;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Фильтр заказов. Пустые и null параметры не ограничивают выборку, как в исходном SQL.
+     *
+     * @param maskPhone маскировать телефон клиента при сериализации (для роли EMPLOYEE)
+     * @return строки, упорядоченные по ORDER_ID
+     */
+    public List<OrderSummaryRow> filter(String name, String phone, String email, Long statusId, boolean maskPhone) {
+        ensureLoaded();
+        long start = System.nanoTime();
+        String nameQuery = fold(name);
+        String emailQuery = fold(email);
+        String phoneQuery = normalizePhone(phone);
+
+        List<OrderSummaryRow> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Set<Long>> constraints = new ArrayList<>();
+            if (statusId != null) {
+                constraints.add(byStatus.getOrDefault(statusId, Collections.emptySet()));
+            }
+            if (phoneQuery != null) {
+                constraints.add(byPhone.getOrDefault(phoneQuery, Collections.emptySet()));
+            }
+            addGramConstraints(constraints, nameGrams, nameQuery);
+            addGramConstraints(constraints, emailGrams, emailQuery);
+
+            Collection<Long> candidates = intersect(constraints);
+            for (Long orderId : candidates) {
+                Map<String, Object> row = rows.get(orderId);
+                // Триграммы дают кандидатов, точное совпадение подстроки проверяется по самой строке
+                if (row != null
+                        && contains(row.get("CUSTOMER_NAME"), nameQuery)
+                        && contains(row.get("CUSTOMER_EMAIL"), emailQuery)) {
+                    result.add(new OrderSummaryRow(row, maskPhone));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        queries.increment();
+        queryNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Перечитать строку заказа (после INSERT / UPDATE / DELETE заказа или его платежа).
+     */
+    public void refreshOrder(Long orderId) {
+        if (orderId != null) {
+            reloadAfterCommit(" WHERE ORDER_ID = ?", new Object[]{orderId}, Set.of(orderId));
+        }
+    }
+
+    /**
+     * Перечитать несколько заказов (IN список по MAX_IN_LIST ID на запрос).
+     */
+    public void refreshOrders(Collection<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            String where = " WHERE ORDER_ID IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            reloadAfterCommit(where, chunk.toArray(), new HashSet<>(chunk));
+        }
+    }
+
+    /**
+     * Дочитать заказы, созданные после последней загрузки (ID заказа неизвестен вызывающему).
+     */
+    public void refreshNewOrders() {
+        TransactionCallbacks.afterCommit(() -> {
+            if (!loaded) {
+                return;
+            }
+            long maxId;
+            lock.readLock().lock();
+            try {
+                maxId = rows.isEmpty() ? 0L : rows.lastKey();
+            } finally {
+                lock.readLock().unlock();
+            }
+            reload(" WHERE ORDER_ID > ?", new Object[]{maxId}, Collections.emptySet());
+        });
+    }
+
+    /**
+     * Перечитать заказы со статусом (переименование статуса меняет ORDER_STATUS у всех его заказов).
+     */
+    public void refreshStatus(Long statusId) {
+        if (statusId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            Set<Long> affected;
+            lock.readLock().lock();
+            try {
+                affected = new HashSet<>(byStatus.getOrDefault(statusId, Collections.emptySet()));
+            } finally {
+                lock.readLock().unlock();
+            }
+            reload(" WHERE STATUS_ID = ?", new Object[]{statusId}, affected);
+        });
+    }
+
+    /**
+     * Сброс проекции — следующий запрос загрузит ее заново.
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        lock.readLock().lock();
+        try {
+            stats.put("orders", rows.size());
+            stats.put("nameGrams", nameGrams.size());
+            stats.put("emailGrams", emailGrams.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("refreshSeconds", refreshSeconds);
+        long count = queries.sum();
+        stats.put("queries", count);
+        stats.put("avgQueryMicros", count > 0 ? queryNanos.sum() / count / 1_000.0 : 0.0);
+        stats.put("loads", loads.sum());
+        stats.put("refreshes", refreshes.sum());
+        return stats;
+    }
+
+    private void ensureLoaded() {
+        if (loaded && System.nanoTime() - loadedAtNanos < refreshSeconds * 1_000_000_000L) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            if (loaded && System.nanoTime() - loadedAtNanos < refreshSeconds * 1_000_000_000L) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<Map<String, Object>> all = jdbcTemplate.queryForList(VIEW_QUERY);
+            lock.writeLock().lock();
+            try {
+                rows.clear();
+                nameGrams.clear();
+                emailGrams.clear();
+                byPhone.clear();
+                byStatus.clear();
+                for (Map<String, Object> row : all) {
+                    add(row);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loadedAtNanos = System.nanoTime();
+            loaded = true;
+            loads.increment();
+            logger.info("Проекция заказов загружена: {} строк за {} ms", all.size(), (loadedAtNanos - start) / 1_000_000);
+        }
+    }
+
+    private void reloadAfterCommit(String where, Object[] params, Set<Long> affected) {
+        TransactionCallbacks.afterCommit(() -> reload(where, params, affected));
+    }
+
+    // Заменяет строки affected и строки, найденные по условию where
+    private void reload(String where, Object[] params, Set<Long> affected) {
+        if (!loaded) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            List<Map<String, Object>> fresh = jdbcTemplate.queryForList(VIEW_QUERY + where, params);
+            lock.writeLock().lock();
+            try {
+                for (Long orderId : affected) {
+                    remove(orderId);
+                }
+                for (Map<String, Object> row : fresh) {
+                    remove(orderId(row));
+                    add(row);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            refreshes.increment();
+        }
+    }
+
+    private void add(Map<String, Object> row) {
+        Long orderId = orderId(row);
+        if (orderId == null) {
+            return;
+        }
+        rows.put(orderId, Collections.unmodifiableMap(row));
+        for (String gram : grams(fold(row.get("CUSTOMER_NAME")))) {
+            nameGrams.computeIfAbsent(gram, k -> new HashSet<>()).add(orderId);
+        }
+        for (String gram : grams(fold(row.get("CUSTOMER_EMAIL")))) {
+            emailGrams.computeIfAbsent(gram, k -> new HashSet<>()).add(orderId);
+        }
+        String phone = normalizePhone(row.get("CUSTOMER_PHONE"));
+        if (phone != null) {
+            byPhone.computeIfAbsent(phone, k -> new HashSet<>()).add(orderId);
+        }
+        Long statusId = toLong(row.get("STATUS_ID"));
+        if (statusId != null) {
+            byStatus.computeIfAbsent(statusId, k -> new HashSet<>()).add(orderId);
+        }
+    }
+
+    private void remove(Long orderId) {
+        Map<String, Object> row = rows.remove(orderId);
+        if (row == null) {
+            return;
+        }
+        removePostings(nameGrams, grams(fold(row.get("CUSTOMER_NAME"))), orderId);
+        removePostings(emailGrams, grams(fold(row.get("CUSTOMER_EMAIL"))), orderId);
+        String phone = normalizePhone(row.get("CUSTOMER_PHONE"));
+        if (phone != null) {
+            removePostings(byPhone, Set.of(phone), orderId);
+        }
+        Long statusId = toLong(row.get("STATUS_ID"));
+        if (statusId != null) {
+            removePostings(byStatus, Set.of(statusId), orderId);
+        }
+    }
+
+    private static <K> void removePostings(Map<K, Set<Long>> index, Collection<K> keys, Long orderId) {
+        for (K key : keys) {
+            Set<Long> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(orderId);
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    private static void addGramConstraints(List<Set<Long>> constraints, Map<String, Set<Long>> index, String query) {
+        // Запросы короче триграммы индексом не сужаются и проверяются по строкам
+        for (String gram : grams(query)) {
+            constraints.add(index.getOrDefault(gram, Collections.emptySet()));
+        }
+    }
+
+    // Пересечение начиная с самого короткого множества; без ограничений — все заказы
+    private Collection<Long> intersect(List<Set<Long>> constraints) {
+        if (constraints.isEmpty()) {
+            return rows.keySet();
+        }
+        constraints.sort(Comparator.comparingInt(Set::size));
+        TreeSet<Long> result = new TreeSet<>(constraints.get(0));
+        for (int i = 1; i < constraints.size() && !result.isEmpty(); i++) {
+            result.retainAll(constraints.get(i));
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        if (text == null || text.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean contains(Object value, String query) {
+        if (query == null) {
+            return true;
+        }
+        String folded = fold(value);
+        return folded != null && folded.contains(query);
+    }
+
+    // Как UPPER в Oracle; пустая строка в Oracle — NULL, то есть условие не задано
+    private static String fold(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        return text.isEmpty() ? null : text.toUpperCase(Locale.ROOT);
+    }
+
+    // CUSTOMER_PHONE — число, поэтому '0777...' и 777... считаются одним номером, как при сравнении в БД
+    private static String normalizePhone(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return text;
+        }
+    }
+
+    private static Long orderId(Map<String, Object> row) {
+        return toLong(row.get("ORDER_ID"));
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
@@ -1,13 +1,17 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.Platba.Payment;
+import com.bdas_dva.backend.Model.Rows.PaymentRow;
+import com.bdas_dva.backend.Util.KeysetPagination;
+import com.bdas_dva.backend.Util.ResultSetExporter;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.*;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Types;
+import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
@@ -18,39 +22,71 @@ public class PaymentService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    @Autowired
+    private ResultSetExporter exporter;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    private ProcedureCallRegistry.ProcedureCall procPlatbaCud;
+
+    @Autowired
+    public void setUp() {
+        this.procPlatbaCud = procedures.get("proc_platba_cud");
+    }
+
     // Получение всех платежей
     @Transactional(readOnly = true)
     public List<Payment> getAllPayments() {
         String sql = "SELECT id_platby, suma, datum, typ, objednavka_id_objednavky FROM platba";
 
-        return jdbcTemplate.query(sql, new RowMapper<Payment>() {
-            @Override
-            public Payment mapRow(ResultSet rs, int rowNum) throws SQLException {
-                Payment payment = new Payment();
-                payment.setId(rs.getLong("id_platby"));
-                payment.setSuma(rs.getDouble("suma"));
-                payment.setDatum(rs.getDate("datum"));
-                payment.setTyp(rs.getString("typ"));
-                payment.setObjednavkaId(rs.getLong("objednavka_id_objednavky"));
-                return payment;
-            }
-        });
+        return jdbcTemplate.query(sql, paymentRowMapper);
     }
 
+    // Страница платежей (keyset-пагинация по id_platby)
+    @Transactional(readOnly = true)
+    public KeysetPage<Payment> getPaymentsPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 1);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sqlBuilder = new StringBuilder("SELECT id_platby, suma, datum, typ, objednavka_id_objednavky FROM platba");
+        if (after != null) {
+            sqlBuilder.append(" WHERE id_platby > ?");
+            params.add(after[0]);
+        }
+        sqlBuilder.append(" ORDER BY id_platby FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<Payment> rows = jdbcTemplate.query(sqlBuilder.toString(), paymentRowMapper, params.toArray());
+        return KeysetPagination.page(rows, pageSize, payment -> new long[]{payment.getId()});
+    }
+
+    // Потоковый экспорт всех платежей (по возрастанию id_platby)
+    public long exportPayments(ResultSetExporter.Format format, OutputStream out) {
+        String sql = "SELECT id_platby, suma, datum, typ, objednavka_id_objednavky FROM platba ORDER BY id_platby";
+        return exporter.export(sql, format, out);
+    }
+
+    private final RowMapper<Payment> paymentRowMapper = new RowMapper<Payment>() {
+        @Override
+        public Payment mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Payment payment = new Payment();
+            payment.setId(rs.getLong("id_platby"));
+            payment.setSuma(rs.getDouble("suma"));
+            payment.setDatum(rs.getDate("datum"));
+            payment.setTyp(rs.getString("typ"));
+            payment.setObjednavkaId(rs.getLong("objednavka_id_objednavky"));
+            return payment;
+        }
+    };
+
     // Добавление нового платежа
     @Transactional(rollbackFor = Exception.class)
     public Long addPayment(Double suma, Date datum, String typ, Long objednavkaId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_platba_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlInOutParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_suma", Types.NUMERIC),
-                        new SqlParameter("p_datum", Types.DATE),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC)
-                );
-
         Map<String, Object> inOutParams = new HashMap<>();
         inOutParams.put("p_action", "INSERT");
         inOutParams.put("p_id_platby", null);
@@ -59,7 +95,8 @@ public class PaymentService {
         inOutParams.put("p_typ", typ);
         inOutParams.put("p_objednavka_id_objednavky", objednavkaId);
 
-        Map<String, Object> result = jdbcCall.execute(inOutParams);
+        Map<String, Object> result = procPlatbaCud.execute(inOutParams);
+        orderSummaryService.refreshOrder(objednavkaId);
         Number generatedId = (Number) result.get("p_id_platby");
         return generatedId != null ? generatedId.longValue() : null;
     }
@@ -67,17 +104,6 @@ public class PaymentService {
     // Обновление платежа
     @Transactional(rollbackFor = Exception.class)
     public void updatePayment(Long Id, Double suma, Date datum, String typ, Long objednavkaId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_platba_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_suma", Types.NUMERIC),
-                        new SqlParameter("p_datum", Types.DATE),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_platby", Id);
@@ -86,22 +112,16 @@ public class PaymentService {
         inParams.put("p_typ", typ);
         inParams.put("p_objednavka_id_objednavky", objednavkaId);
 
-        jdbcCall.execute(inParams);
+        procPlatbaCud.execute(inParams);
+        orderSummaryService.refreshOrder(objednavkaId);
     }
 
     // Удаление платежа
     @Transactional(rollbackFor = Exception.class)
     public void deletePayment(Long Id) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_platba_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_platby", Types.NUMERIC),
-                        new SqlParameter("p_suma", Types.NUMERIC),
-                        new SqlParameter("p_datum", Types.DATE),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC)
-                );
+        // Заказ платежа нужен для обновления проекции заказов после удаления
+        List<Long> orderIds = jdbcTemplate.queryForList(
+                "SELECT objednavka_id_objednavky FROM platba WHERE id_platby = ?", Long.class, Id);
 
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
@@ -111,15 +131,16 @@ public class PaymentService {
         inParams.put("p_typ", null);
         inParams.put("p_objednavka_id_objednavky", null);
 
-        jdbcCall.execute(inParams);
+        procPlatbaCud.execute(inParams);
+        orderIds.forEach(orderSummaryService::refreshOrder);
     }
 
     /**
      * Фильтрация платежей по типу оплаты, дате и сумме
      */
-    public List<Map<String, Object>> getPaymentsByFilters(String type, String date, Double minAmount, Double maxAmount) {
+    public List<PaymentRow> getPaymentsByFilters(String type, String date, Double minAmount, Double maxAmount) {
         StringBuilder sqlBuilder = new StringBuilder(
-                "SELECT ID_PLATBY, SUMA, DATUM, TYP, OBJEDNAVKA_ID_OBJEDNAVKY FROM PLATBA WHERE 1=1"
+                "SELECT " + PaymentRow.COLUMNS + " FROM PLATBA WHERE 1=1"
         );
 
         List<Object> params = new ArrayList<>();
@@ -140,14 +161,14 @@ public class PaymentService {
             params.add(maxAmount);
         }
 
-        return jdbcTemplate.queryForList(sqlBuilder.toString(), params.toArray());
+        return jdbcTemplate.query(sqlBuilder.toString(), PaymentRow.ROW_MAPPER, params.toArray());
     }
 
     /**
      * Получение платежа по ID
      */
-    public Map<String, Object> getPaymentById(Long paymentId) {
-        String sql = "SELECT ID_PLATBY, SUMA, DATUM, TYP, OBJEDNAVKA_ID_OBJEDNAVKY FROM PLATBA WHERE ID_PLATBY = ?";
-        return jdbcTemplate.queryForMap(sql, paymentId);
+    public PaymentRow getPaymentById(Long paymentId) {
+        String sql = "SELECT " + PaymentRow.COLUMNS + " FROM PLATBA WHERE ID_PLATBY = ?";
+        return jdbcTemplate.queryForObject(sql, PaymentRow.ROW_MAPPER, paymentId);
     }
 }
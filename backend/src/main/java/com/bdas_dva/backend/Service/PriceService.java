@@ -0,0 +1,199 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.OrderProduct.BasketQuote;
+import com.bdas_dva.backend.Model.OrderProduct.OrderRequest;
+import com.bdas_dva.backend.Util.ResultSetValues;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Серверная таблица цен для расчета стоимости корзины.
+ * Цены загружаются одним запросом в неизменяемый снимок с номером версии; чтения идут без блокировок,
+ * а запись proc_produkt_cud после коммита публикует новый снимок (copy-on-write) или сбрасывает таблицу.
+ * Вся корзина считается за один проход по снимку, без запросов к БД на каждую позицию.
+ */
+@Service
+public class PriceService {
+
+    private record PriceEntry(double price, Long skladId) {
+    }
+
+    private record Snapshot(long version, Map<Long, PriceEntry> prices, long loadedAtNanos) {
+    }
+
+    // Допуск сравнения цены клиента с серверной (копейки / haléře)
+    private static final double PRICE_EPSILON = 0.005;
+
+    @Value("${pricing.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Object loadMonitor = new Object();
+    private volatile Snapshot snapshot;
+
+    private final LongAdder quotes = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+
+    /**
+     * Расчет корзины по серверным ценам: итог, позиции, неизвестные товары и проверка наличия.
+     */
+    public BasketQuote quote(List<OrderRequest.ProductItem> items) {
+        Snapshot current = currentSnapshot();
+        quotes.increment();
+
+        List<BasketQuote.Line> lines = new ArrayList<>();
+        List<Long> unknown = new ArrayList<>();
+        List<Long> invalidQuantity = new ArrayList<>();
+        List<Long> unavailable = new ArrayList<>();
+        double total = 0;
+        if (items != null) {
+            for (OrderRequest.ProductItem item : items) {
+                PriceEntry entry = item.getId() != null ? current.prices().get(item.getId()) : null;
+                if (entry == null) {
+                    unknown.add(item.getId());
+                    continue;
+                }
+                if (item.getQuantity() == null || item.getQuantity() < 1) {
+                    invalidQuantity.add(item.getId());
+                    continue;
+                }
+                if (entry.skladId() == null) {
+                    unavailable.add(item.getId());
+                }
+                double lineTotal = entry.price() * item.getQuantity();
+                boolean priceChanged = item.getPrice() != null && Math.abs(item.getPrice() - entry.price()) > PRICE_EPSILON;
+                lines.add(new BasketQuote.Line(item.getId(), item.getQuantity(), entry.price(), lineTotal,
+                        item.getPrice(), priceChanged));
+                total += lineTotal;
+            }
+        }
+        return new BasketQuote(current.version(), total, lines, unknown, invalidQuantity, unavailable);
+    }
+
+    /**
+     * Замена цен, присланных клиентом, на серверные (неизвестные товары не меняются).
+     */
+    public void applyServerPrices(List<OrderRequest.ProductItem> items) {
+        if (items == null) {
+            return;
+        }
+        Map<Long, PriceEntry> prices = currentSnapshot().prices();
+        for (OrderRequest.ProductItem item : items) {
+            PriceEntry entry = item.getId() != null ? prices.get(item.getId()) : null;
+            if (entry != null) {
+                item.setPrice(entry.price());
+            }
+        }
+    }
+
+    /**
+     * Цена после UPDATE через proc_produkt_cud. Снимок публикуется после коммита:
+     * расчет корзины не должен увидеть цену, которой еще нет в PRODUKT или которая будет откачена.
+     */
+    public void updatePrice(Long productId, Double price, Long skladId) {
+        if (price == null) {
+            invalidate();
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> applyPrice(productId, price, skladId));
+    }
+
+    private void applyPrice(Long productId, double price, Long skladId) {
+        synchronized (loadMonitor) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            Map<Long, PriceEntry> prices = new HashMap<>(current.prices());
+            prices.put(productId, new PriceEntry(price, skladId));
+            snapshot = new Snapshot(versions.incrementAndGet(), Collections.unmodifiableMap(prices), current.loadedAtNanos());
+            patches.increment();
+        }
+    }
+
+    /**
+     * Удаление товара после DELETE через proc_produkt_cud (после коммита).
+     */
+    public void removePrice(Long productId) {
+        TransactionCallbacks.afterCommit(() -> applyRemoval(productId));
+    }
+
+    private void applyRemoval(Long productId) {
+        synchronized (loadMonitor) {
+            Snapshot current = snapshot;
+            if (current == null || !current.prices().containsKey(productId)) {
+                return;
+            }
+            Map<Long, PriceEntry> prices = new HashMap<>(current.prices());
+            prices.remove(productId);
+            snapshot = new Snapshot(versions.incrementAndGet(), Collections.unmodifiableMap(prices), current.loadedAtNanos());
+            patches.increment();
+        }
+    }
+
+    /**
+     * Сброс таблицы после коммита (INSERT без возвращаемого ID) — следующий расчет перечитает цены.
+     */
+    public void invalidate() {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (loadMonitor) {
+                snapshot = null;
+            }
+        });
+    }
+
+    public Map<String, Object> getStatistics() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        stats.put("version", current != null ? current.version() : null);
+        stats.put("products", current != null ? current.prices().size() : 0);
+        stats.put("refreshSeconds", refreshSeconds);
+        stats.put("quotes", quotes.sum());
+        stats.put("loads", loads.sum());
+        stats.put("patches", patches.sum());
+        return stats;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && !isStale(current)) {
+            return current;
+        }
+        synchronized (loadMonitor) {
+            current = snapshot;
+            if (current == null || isStale(current)) {
+                current = load();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private boolean isStale(Snapshot current) {
+        return System.nanoTime() - current.loadedAtNanos() > refreshSeconds * 1_000_000_000L;
+    }
+
+    private Snapshot load() {
+        Map<Long, PriceEntry> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT ID_PRODUKTU, CENA, SKLAD_ID_SKLADU FROM PRODUKT", rs -> {
+            Double price = ResultSetValues.getDouble(rs, 2);
+            if (price != null) {
+                prices.put(rs.getLong(1), new PriceEntry(price, ResultSetValues.getLong(rs, 3)));
+            }
+        });
+        loads.increment();
+        return new Snapshot(versions.incrementAndGet(), Collections.unmodifiableMap(prices), System.nanoTime());
+    }
+}
@@ -1,40 +1,93 @@
 // ProductService.java
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.OrderProduct.Product.ImageBlobInfo;
 import com.bdas_dva.backend.Model.OrderProduct.Product.ImageData;
 import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import com.bdas_dva.backend.Model.OrderProduct.Product.Category;
+import com.bdas_dva.backend.Model.OrderProduct.Product.ProductSearchPage;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.bdas_dva.backend.Util.ProductCatalogCache;
+import com.bdas_dva.backend.Util.ProductSearchIndex;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
 import org.hibernate.dialect.OracleTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.*;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.util.*;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    // Размер буфера при потоковой передаче BLOB изображения клиенту
+    private static final int IMAGE_CHUNK_SIZE = 8192;
+
+    private static final int IMAGE_INFO_BATCH_SIZE = 1000;
+
+    // Максимальный размер страницы полнотекстового поиска
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    @Autowired
+    private ProductCatalogCache catalogCache;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private PriceService priceService;
+
+    private ProcedureCallRegistry.ProcedureCall procProductR;
+    private ProcedureCallRegistry.ProcedureCall procProductRefsR;
+    private ProcedureCallRegistry.ProcedureCall procObrazekR;
+    private ProcedureCallRegistry.ProcedureCall procProduktCud;
+    private ProcedureCallRegistry.ProcedureCall procObrazekCud;
+
+    @Autowired
+    public void setUp() {
+        this.procProductR = procedures.register("proc_product_r",
+                new SqlParameter("p_search_query", Types.VARCHAR),
+                new SqlParameter("p_category", Types.VARCHAR),
+                new SqlOutParameter("p_products", OracleTypes.CURSOR, productRowMapper));
+        this.procProductRefsR = procedures.registerVariant("proc_product_r", "refs",
+                new SqlParameter("p_search_query", Types.VARCHAR),
+                new SqlParameter("p_category", Types.VARCHAR),
+                new SqlOutParameter("p_products", OracleTypes.CURSOR, productRefRowMapper));
+        this.procObrazekR = procedures.register("proc_obrazek_r",
+                new SqlParameter("p_produkt_id_produktu", Types.NUMERIC),
+                new SqlOutParameter("p_cursor", OracleTypes.CURSOR, imageRowMapper));
+        this.procProduktCud = procedures.get("proc_produkt_cud");
+        this.procObrazekCud = procedures.get("proc_obrazek_cud");
+    }
+
     @Transactional(rollbackFor = Exception.class)
     public List<Product> getProductsImage(String searchQuery, String category) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_product_r")
-                .declareParameters(
-                        new SqlParameter("p_search_query", Types.VARCHAR),
-                        new SqlParameter("p_category", Types.VARCHAR),
-                        new SqlOutParameter("p_products", OracleTypes.CURSOR)
-                )
-                .returningResultSet("p_products", productRowMapper);
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_search_query", searchQuery != null && !searchQuery.isEmpty() ? searchQuery : null);
         inParams.put("p_category", category != null && !category.isEmpty() ? category : null);
 
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procProductR.execute(inParams);
 
         @SuppressWarnings("unchecked")
         List<Product> products = (List<Product>) out.get("p_products");
@@ -45,6 +98,12 @@ public class ProductService {
     // Получение всех продуктов из таблицы PRODUKT
     @Transactional(rollbackFor = Exception.class)
     public List<Product> getProducts(String searchQuery, String category) {
+        Long categoryId = category != null && !category.equals("all") ? Long.parseLong(category) : null;
+        List<Product> cached = catalogCache.search(searchQuery, categoryId, null, this::loadCatalog);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT ID_PRODUKTU, NAZEV, CENA, POPIS, KAT_PROD_ID_KATEGORIE, SKLAD_ID_SKLADU FROM PRODUKT";
 
         List<Object> params = new ArrayList<>();
@@ -80,18 +139,6 @@ public class ProductService {
     // Adding a new product
     @Transactional(rollbackFor = Exception.class)
     public void addProduct(String name, Double price, String description, Integer categoryId, Integer skladId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_produkt_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_produktu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_cena", Types.NUMERIC),
-                        new SqlParameter("p_popis", Types.CLOB),
-                        new SqlParameter("p_kat_prod_id_kategorie", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "INSERT");
         inParams.put("p_id_produktu", null);
@@ -101,24 +148,16 @@ public class ProductService {
         inParams.put("p_kat_prod_id_kategorie", categoryId);
         inParams.put("p_sklad_id_skladu", skladId);
 
-        jdbcCall.execute(inParams);
+        procProduktCud.execute(inParams);
+        // ID нового продукта процедура не возвращает — каталог перечитается при следующем запросе
+        catalogCache.invalidate();
+        priceService.invalidate();
+        TransactionCallbacks.afterCommit(this::indexNewProducts);
     }
 
     // Updating an existing product
     @Transactional(rollbackFor = Exception.class)
     public void updateProduct(Long productId, String name, Double price, String description, Integer categoryId, Integer skladId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_produkt_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_produktu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_cena", Types.NUMERIC),
-                        new SqlParameter("p_popis", Types.CLOB),
-                        new SqlParameter("p_kat_prod_id_kategorie", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_produktu", productId);
@@ -128,24 +167,23 @@ public class ProductService {
         inParams.put("p_kat_prod_id_kategorie", categoryId);
         inParams.put("p_sklad_id_skladu", skladId);
 
-        jdbcCall.execute(inParams);
+        procProduktCud.execute(inParams);
+
+        Product product = new Product();
+        product.setId(productId);
+        product.setName(name);
+        product.setPrice(price);
+        product.setDescription(description);
+        product.setCategoryId(categoryId != null ? categoryId.longValue() : null);
+        product.setSkladId(skladId != null ? skladId.longValue() : null);
+        catalogCache.updateProduct(product);
+        TransactionCallbacks.afterCommit(() -> searchIndex.put(product));
+        priceService.updatePrice(productId, price, product.getSkladId());
     }
 
     // Deleting a product
     @Transactional(rollbackFor = Exception.class)
     public void deleteProduct(Long productId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_produkt_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_produktu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_cena", Types.NUMERIC),
-                        new SqlParameter("p_popis", Types.CLOB),
-                        new SqlParameter("p_kat_prod_id_kategorie", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
         inParams.put("p_id_produktu", productId);
@@ -155,33 +193,19 @@ public class ProductService {
         inParams.put("p_kat_prod_id_kategorie", null);
         inParams.put("p_sklad_id_skladu", null);
 
-        jdbcCall.execute(inParams);
+        procProduktCud.execute(inParams);
+        catalogCache.removeProduct(productId);
+        TransactionCallbacks.afterCommit(() -> searchIndex.remove(productId));
+        priceService.removePrice(productId);
     }
 
     // Method to retrieve image data for a product
     @Transactional(rollbackFor = Exception.class)
     public ImageData getProductImage(Long productId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_r")
-                .declareParameters(
-                        new SqlParameter("p_produkt_id_produktu", Types.NUMERIC),
-                        new SqlOutParameter("p_cursor", OracleTypes.CURSOR)
-                )
-                .returningResultSet("p_cursor", (rs, rowNum) -> {
-                    Blob imageBlob = rs.getBlob("OBRAZEK");
-                    ImageData imageData = new ImageData();
-                    if (imageBlob != null) {
-                        byte[] imageBytes = imageBlob.getBytes(1, (int) imageBlob.length());
-                        String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
-                        imageData.setImage(base64Image);
-                    }
-                    return imageData;
-                });
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_produkt_id_produktu", productId);
 
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procObrazekR.execute(inParams);
 
         @SuppressWarnings("unchecked")
         List<ImageData> images = (List<ImageData>) out.get("p_cursor");
@@ -193,21 +217,275 @@ public class ProductService {
         }
     }
 
+    /**
+     * Список продуктов без Base64 изображений: BLOB из курсора не читается,
+     * вместо него продукт получает ссылку на /image/raw с версией и ETag изображения.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<Product> getProductsWithImageRefs(String searchQuery, String category) {
+        List<Product> cached = searchQuery != null && !searchQuery.isBlank()
+                ? searchRanked(searchQuery, category)
+                : catalogCache.search(null, null, category, this::loadCatalog);
+        if (cached != null) {
+            for (Product product : cached) {
+                setImageRef(product, catalogCache.getImage(product.getId()));
+            }
+            return cached;
+        }
+
+        Map<String, Object> inParams = new HashMap<>();
+        inParams.put("p_search_query", searchQuery != null && !searchQuery.isEmpty() ? searchQuery : null);
+        inParams.put("p_category", category != null && !category.isEmpty() ? category : null);
+
+        Map<String, Object> out = procProductRefsR.execute(inParams);
+
+        @SuppressWarnings("unchecked")
+        List<Product> products = (List<Product>) out.get("p_products");
+        if (products == null || products.isEmpty()) {
+            return products;
+        }
+
+        List<Long> productIds = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productIds.add(product.getId());
+        }
+        Map<Long, ImageBlobInfo> images = getProductImageInfos(productIds);
+
+        for (Product product : products) {
+            setImageRef(product, images.get(product.getId()));
+        }
+        return products;
+    }
+
+    private void setImageRef(Product product, ImageBlobInfo info) {
+        if (info != null) {
+            product.setImageUrl("/api/products/" + product.getId() + "/image/raw?v=" + info.getVersion());
+            product.setImageEtag(info.getETag());
+        }
+    }
+
+    /**
+     * Полнотекстовый поиск по названию и описанию с учетом диакритики и префиксов,
+     * результаты упорядочены по релевантности и разбиты на страницы (page с нуля).
+     */
+    public ProductSearchPage searchProducts(String query, Long categoryId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+
+        ensureSearchIndex();
+        List<Long> ids = searchIndex.search(query, categoryId);
+        int from = Math.min(pageNumber * pageSize, ids.size());
+        List<Long> pageIds = ids.subList(from, Math.min(from + pageSize, ids.size()));
+
+        List<Product> products = catalogCache.getByIds(pageIds, this::loadCatalog);
+        if (products != null) {
+            for (Product product : products) {
+                setImageRef(product, catalogCache.getImage(product.getId()));
+            }
+        } else {
+            products = loadProductsByIds(pageIds);
+            Map<Long, ImageBlobInfo> images = getProductImageInfos(pageIds);
+            for (Product product : products) {
+                setImageRef(product, images.get(product.getId()));
+            }
+        }
+        return new ProductSearchPage(products, ids.size(), pageNumber, pageSize);
+    }
+
+    /**
+     * Поиск для списка продуктов через индекс: все совпадения по релевантности.
+     * Возвращает null, если кеш каталога не используется (запрос уйдет в proc_product_r).
+     */
+    private List<Product> searchRanked(String query, String category) {
+        Long categoryId = null;
+        if (category != null && !category.isEmpty() && !"all".equals(category)) {
+            categoryId = catalogCache.resolveCategoryId(category, this::loadCatalog);
+            if (categoryId == null) {
+                return null;
+            }
+        }
+        ensureSearchIndex();
+        return catalogCache.getByIds(searchIndex.search(query, categoryId), this::loadCatalog);
+    }
+
+    /**
+     * Построение поискового индекса при старте приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        try {
+            ensureSearchIndex();
+        } catch (Exception e) {
+            // Индекс будет построен при первом поисковом запросе
+            logger.error("Не удалось построить поисковый индекс продуктов: {}", e.getMessage());
+        }
+    }
+
+    private void ensureSearchIndex() {
+        if (searchIndex.isBuilt()) {
+            return;
+        }
+        synchronized (searchIndex) {
+            // Продукт, измененный во время чтения, мог попасть в выборку до коммита — чтение повторяется
+            while (!searchIndex.isBuilt()) {
+                long generation = searchIndex.getGeneration();
+                List<Product> products = loadProducts("", new Object[0]);
+                if (searchIndex.rebuild(products, generation)) {
+                    logger.info("Поисковый индекс продуктов построен: {} продуктов.", products.size());
+                }
+            }
+        }
+    }
+
+    // Догрузка в индекс продуктов, добавленных после его построения (вызывается после коммита INSERT)
+    private void indexNewProducts() {
+        if (!searchIndex.isBuilt()) {
+            return;
+        }
+        for (Product product : loadProducts(" WHERE ID_PRODUKTU > ?", new Object[]{searchIndex.getMaxProductId()})) {
+            searchIndex.put(product);
+        }
+    }
+
+    /**
+     * Загрузка всего каталога для ProductCatalogCache: продукты, названия категорий и метаданные изображений.
+     */
+    private ProductCatalogCache.CatalogData loadCatalog() {
+        List<Product> products = loadProducts("", new Object[0]);
+
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Category category : categoryService.getCategories()) {
+            if (category.getId() != null) {
+                categoryNames.put(category.getId(), category.getLabel());
+            }
+        }
+        for (Product product : products) {
+            product.setCategory(categoryNames.get(product.getCategoryId()));
+        }
+
+        List<Long> productIds = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productIds.add(product.getId());
+        }
+        return new ProductCatalogCache.CatalogData(products, categoryNames, getProductImageInfos(productIds));
+    }
+
+    // Продукты в порядке переданных ID (для страницы поиска без кеша каталога)
+    private List<Product> loadProductsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : loadProducts(" WHERE ID_PRODUKTU IN (" + placeholders + ")", ids.toArray())) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (byId.containsKey(id)) {
+                result.add(byId.get(id));
+            }
+        }
+        return result;
+    }
+
+    private List<Product> loadProducts(String where, Object[] args) {
+        String sql = "SELECT ID_PRODUKTU, NAZEV, CENA, POPIS, KAT_PROD_ID_KATEGORIE, SKLAD_ID_SKLADU FROM PRODUKT" + where;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Product product = new Product();
+            product.setId(rs.getLong("ID_PRODUKTU"));
+            product.setName(rs.getString("NAZEV"));
+            product.setPrice(rs.getDouble("CENA"));
+            Clob clob = rs.getClob("POPIS");
+            product.setDescription(clob != null ? clob.getSubString(1, (int) clob.length()) : null);
+            product.setCategoryId(rs.getLong("KAT_PROD_ID_KATEGORIE"));
+            product.setSkladId(rs.getLong("SKLAD_ID_SKLADU"));
+            return product;
+        }, args);
+    }
+
+    // Метаданные первого изображения продукта (размер, формат, дата) без чтения самого BLOB
+    public ImageBlobInfo getProductImageInfo(Long productId) {
+        return getProductImageInfos(List.of(productId)).get(productId);
+    }
+
+    /**
+     * Метаданные первого изображения для каждого продукта из списка.
+     * Запрос выполняется пачками по IMAGE_INFO_BATCH_SIZE ID (ограничение Oracle на IN-список — 1000).
+     */
+    public Map<Long, ImageBlobInfo> getProductImageInfos(List<Long> productIds) {
+        Map<Long, ImageBlobInfo> result = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += IMAGE_INFO_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + IMAGE_INFO_BATCH_SIZE, productIds.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            String sql = "SELECT ID_OBRAZKU, PRODUKT_ID_PRODUKTU, DELKA, ZMENENO, ROZIRENI FROM (" +
+                    "SELECT o.ID_OBRAZKU, o.PRODUKT_ID_PRODUKTU, DBMS_LOB.GETLENGTH(o.OBRAZEK) AS DELKA, " +
+                    "NVL(o.DATUMMODIFIKACE, o.DATUMNAHRANI) AS ZMENENO, f.ROZIRENI, " +
+                    "ROW_NUMBER() OVER (PARTITION BY o.PRODUKT_ID_PRODUKTU ORDER BY o.ID_OBRAZKU) AS RN " +
+                    "FROM OBRAZEK o LEFT JOIN FORMAT_OBRAZKU f ON f.ID_FORMATU = o.FORMAT_ID_FORMATU " +
+                    "WHERE o.OBRAZEK IS NOT NULL AND o.PRODUKT_ID_PRODUKTU IN (" + placeholders + ")" +
+                    ") WHERE RN = 1";
+
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                ImageBlobInfo info = new ImageBlobInfo();
+                info.setImageId(rs.getLong("ID_OBRAZKU"));
+                info.setProductId(rs.getLong("PRODUKT_ID_PRODUKTU"));
+                info.setLength(rs.getLong("DELKA"));
+                info.setModified(rs.getTimestamp("ZMENENO"));
+                info.setExtension(rs.getString("ROZIRENI"));
+                result.put(info.getProductId(), info);
+            }, batch.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * Потоковая передача части BLOB изображения в out блоками по IMAGE_CHUNK_SIZE байт.
+     * Изображение целиком в память не загружается — расход heap постоянный при любом размере.
+     * Размер и дата изменения читаются тем же запросом, что и BLOB: если изображение заменили или удалили
+     * после чтения метаданных (ETag и Content-Length уже выбраны), ничего не пишется и возвращается false.
+     *
+     * @param expected метаданные, по которым построены заголовки ответа
+     * @param offset   смещение первого байта (с нуля)
+     * @param length   количество байт, должно быть больше нуля
+     * @return true, если данные записаны; false, если версия изображения изменилась
+     */
+    public boolean streamProductImage(ImageBlobInfo expected, long offset, long length, OutputStream out) {
+        String sql = "SELECT OBRAZEK, DBMS_LOB.GETLENGTH(OBRAZEK) AS DELKA, " +
+                "NVL(DATUMMODIFIKACE, DATUMNAHRANI) AS ZMENENO FROM OBRAZEK WHERE ID_OBRAZKU = ?";
+        boolean[] written = {false};
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            ImageBlobInfo current = new ImageBlobInfo();
+            current.setImageId(expected.getImageId());
+            current.setLength(rs.getLong("DELKA"));
+            current.setModified(rs.getTimestamp("ZMENENO"));
+            if (!current.getVersion().equals(expected.getVersion())) {
+                return;
+            }
+            Blob blob = rs.getBlob("OBRAZEK");
+            if (blob == null) {
+                return;
+            }
+            try (InputStream in = blob.getBinaryStream(offset + 1, length)) {
+                byte[] buffer = new byte[IMAGE_CHUNK_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                out.flush();
+                written[0] = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                blob.free();
+            }
+        }, expected.getImageId());
+        return written[0];
+    }
+
     // Adding a new image
     @Transactional(rollbackFor = Exception.class)
     public void addProductImage(Long productId, byte[] imageBytes, String name, String type, Integer formatId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.NUMERIC),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.NUMERIC),
-                        new SqlParameter("p_produkt_id_produktu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "CREATE");
         inParams.put("p_obrazek", imageBytes);
@@ -216,24 +494,13 @@ public class ProductService {
         inParams.put("p_format_id_formatu", formatId);
         inParams.put("p_produkt_id_produktu", productId);
 
-        jdbcCall.execute(inParams);
+        procObrazekCud.execute(inParams);
+        catalogCache.updateImage(productId, getProductImageInfo(productId));
     }
 
     // Updating an existing image
     @Transactional(rollbackFor = Exception.class)
     public void updateProductImage(Long productId, byte[] imageBytes, String name, String type, Integer formatId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.NUMERIC),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.NUMERIC),
-                        new SqlParameter("p_produkt_id_produktu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_obrazek", imageBytes);
@@ -242,31 +509,48 @@ public class ProductService {
         inParams.put("p_format_id_formatu", formatId);
         inParams.put("p_produkt_id_produktu", productId);
 
-        jdbcCall.execute(inParams);
+        procObrazekCud.execute(inParams);
+        catalogCache.updateImage(productId, getProductImageInfo(productId));
     }
 
     // Deleting an image
     @Transactional(rollbackFor = Exception.class)
     public void deleteProductImage(Long productId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_obrazek_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_obrazku", Types.NUMERIC),
-                        new SqlParameter("p_obrazek", Types.BLOB),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_typ", Types.VARCHAR),
-                        new SqlParameter("p_format_id_formatu", Types.NUMERIC),
-                        new SqlParameter("p_produkt_id_produktu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
+        inParams.put("p_obrazek", null);
+        inParams.put("p_nazev", null);
+        inParams.put("p_typ", null);
+        inParams.put("p_format_id_formatu", null);
         inParams.put("p_produkt_id_produktu", productId);
 
-        jdbcCall.execute(inParams);
+        procObrazekCud.execute(inParams);
+        catalogCache.updateImage(productId, getProductImageInfo(productId));
     }
 
+    private final RowMapper<ImageData> imageRowMapper = (rs, rowNum) -> {
+        Blob imageBlob = rs.getBlob("OBRAZEK");
+        ImageData imageData = new ImageData();
+        if (imageBlob != null) {
+            byte[] imageBytes = imageBlob.getBytes(1, (int) imageBlob.length());
+            String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
+            imageData.setImage(base64Image);
+        }
+        return imageData;
+    };
+
+    // Тот же курсор proc_product_r, но столбец image (BLOB) не читается
+    private final RowMapper<Product> productRefRowMapper = (rs, rowNum) -> {
+        Product product = new Product();
+        product.setId(rs.getLong("id"));
+        product.setName(rs.getString("name"));
+        product.setPrice(rs.getDouble("price"));
+        product.setCategory(rs.getString("category"));
+        Clob clob = rs.getClob("description");
+        product.setDescription(clob != null ? clob.getSubString(1, (int) clob.length()) : null);
+        return product;
+    };
+
     private final RowMapper<Product> productRowMapper = (rs, rowNum) -> {
         Product product = new Product();
         product.setId(rs.getLong("id"));
@@ -276,7 +560,6 @@ public class ProductService {
         Clob clob = rs.getClob("description");
         String description = clob != null ? clob.getSubString(1, (int) clob.length()) : null;
         product.setDescription(description);
-        System.out.println("rs.getClob(\"description\") = " + rs.getClob("description"));
 
         // Handling the image
         Blob imageBlob = rs.getBlob("image");
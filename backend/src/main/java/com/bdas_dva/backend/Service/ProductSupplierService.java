@@ -3,13 +3,16 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.KeysetPage;
 import com.bdas_dva.backend.Model.OrderProduct.Product.ProductSupplier;
+import com.bdas_dva.backend.Util.KeysetPagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -75,6 +78,30 @@ public class ProductSupplierService {
         return jdbcTemplate.query(query, (rs, rowNum) -> mapRowToProductSupplier(rs));
     }
 
+    // Страница связей продукт-поставщик (keyset-пагинация по составному ключу)
+    @Transactional(readOnly = true, rollbackFor = Exception.class)
+    public KeysetPage<ProductSupplier> getProductSuppliersPage(String cursor, Integer limit) {
+        int pageSize = KeysetPagination.clampLimit(limit);
+        long[] after = KeysetPagination.decode(cursor, 2);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder(
+                "SELECT DODAVATEL_ID_DODAVATELU, PRODUKT_ID_PRODUKTU FROM produkt_dodavatel");
+        if (after != null) {
+            query.append(" WHERE PRODUKT_ID_PRODUKTU > ?" +
+                    " OR (PRODUKT_ID_PRODUKTU = ? AND DODAVATEL_ID_DODAVATELU > ?)");
+            params.add(after[0]);
+            params.add(after[0]);
+            params.add(after[1]);
+        }
+        query.append(" ORDER BY PRODUKT_ID_PRODUKTU, DODAVATEL_ID_DODAVATELU FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize + 1);
+
+        List<ProductSupplier> rows = jdbcTemplate.query(query.toString(), (rs, rowNum) -> mapRowToProductSupplier(rs), params.toArray());
+        return KeysetPagination.page(rows, pageSize,
+                ps -> new long[]{ps.getProduktIdProduktu(), ps.getDodavatelIdDodavatelyu()});
+    }
+
     // Получение связи продукт-поставщик по составному ключу (Read)
     @Transactional(readOnly = true, rollbackFor = Exception.class)
     public ProductSupplier getProductSupplierByIds(Long produktIdProduktu, Long dodavatelIdDodavatelyu) throws ResourceNotFoundException {
@@ -0,0 +1,439 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Util.EmployeeDirectoryCache;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import oracle.jdbc.OracleConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Индексация зарплат фоновыми заданиями вместо одного вызова proc_apply_salary_indexation из HTTP потока.
+ * Сотрудники делятся на партиции по супермаркету / складу, партиция — на чанки по salary-indexation.chunk-size.
+ * Каждый чанк — один вызов proc_apply_salary_indexation_ids в своей транзакции, поэтому блокировки строк
+ * держатся недолго, а партиции обрабатываются параллельно (строки разных партиций не пересекаются).
+ * <p>
+ * Правило повышения применяет процедура в БД, вариант proc_apply_salary_indexation для списка ID
+ * (SYS.ODCINUMBERLIST). Процедура записывает ID задания в обновленные строки и пропускает строки,
+ * где он уже записан, поэтому упавшее задание можно продолжить: закоммиченные чанки пропускаются,
+ * а повтор уже записанной строки ничего не меняет.
+ */
+@Service
+public class SalaryIndexationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalaryIndexationService.class);
+
+    private static final String PLAN_QUERY = "SELECT ID_ZAMNESTNANCE, SUPERMARKET_ID_SUPERMARKETU, SKLAD_ID_SKLADU "
+            + "FROM ZAMNESTNANEC WHERE MZDA IS NOT NULL "
+            + "ORDER BY SUPERMARKET_ID_SUPERMARKETU, SKLAD_ID_SKLADU, ID_ZAMNESTNANCE";
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Другое задание индексации еще выполняется.
+     */
+    public static class JobRunningException extends RuntimeException {
+        public JobRunningException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Задание нельзя продолжить (не найдено или не завершилось ошибкой).
+     */
+    public static class JobStateException extends RuntimeException {
+        public JobStateException(String message) {
+            super(message);
+        }
+    }
+
+    private record Plan(Map<String, List<Chunk>> partitions, int totalEmployees) {
+    }
+
+    private static final class Chunk {
+        private final String partition;
+        private final Long[] ids;
+        private volatile State state = State.PENDING;
+        private volatile String error;
+
+        private Chunk(String partition, Long[] ids) {
+            this.partition = partition;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Задание индексации — его прогресс отдается по status URL.
+     */
+    public static class Job {
+        private final String id;
+        private final String owner;
+        private final double minPercentage;
+        private final double maxPercentage;
+        private final long createdAt;
+        private final Map<String, List<Chunk>> partitions;
+        private final int totalEmployees;
+        private volatile State state = State.PENDING;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final LongAdder updated = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        // Обработано до последнего продолжения — не учитывается в throughput
+        private volatile long processedBefore;
+
+        Job(String id, String owner, double minPercentage, double maxPercentage, Plan plan) {
+            this.id = id;
+            this.owner = owner;
+            this.minPercentage = minPercentage;
+            this.maxPercentage = maxPercentage;
+            this.createdAt = System.currentTimeMillis();
+            this.partitions = plan.partitions();
+            this.totalEmployees = plan.totalEmployees();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public double getMinPercentage() {
+            return minPercentage;
+        }
+
+        public double getMaxPercentage() {
+            return maxPercentage;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        public int getAttempts() {
+            return attempts.get();
+        }
+
+        public int getPartitions() {
+            return partitions.size();
+        }
+
+        public int getTotalChunks() {
+            return partitions.values().stream().mapToInt(List::size).sum();
+        }
+
+        public int getCompletedChunks() {
+            return completedChunks.get();
+        }
+
+        public int getFailedChunks() {
+            return (int) chunks().filter(chunk -> chunk.state == State.FAILED).count();
+        }
+
+        public int getTotalEmployees() {
+            return totalEmployees;
+        }
+
+        public long getUpdatedEmployees() {
+            return updated.sum();
+        }
+
+        /**
+         * Сотрудники, которых процедура не обновила: уже проиндексированы этим заданием до продолжения
+         * или удалены после планирования.
+         */
+        public long getSkippedEmployees() {
+            return skipped.sum();
+        }
+
+        public double getProgressPercent() {
+            int total = getTotalChunks();
+            return total > 0 ? completedChunks.get() * 100.0 / total : 100.0;
+        }
+
+        /**
+         * Обработанных сотрудников в секунду с начала задания или его последнего продолжения.
+         */
+        public double getThroughputPerSecond() {
+            if (startedAt == 0) {
+                return 0.0;
+            }
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            long elapsed = Math.max(1, end - startedAt);
+            return (updated.sum() + skipped.sum() - processedBefore) * 1000.0 / elapsed;
+        }
+
+        public List<String> getErrors() {
+            return chunks().filter(chunk -> chunk.error != null)
+                    .map(chunk -> chunk.partition + ": " + chunk.error)
+                    .limit(20)
+                    .toList();
+        }
+
+        private Stream<Chunk> chunks() {
+            return partitions.values().stream().flatMap(List::stream);
+        }
+    }
+
+    @Value("${salary-indexation.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${salary-indexation.workers:4}")
+    private int workers;
+
+    @Value("${salary-indexation.retained-jobs:20}")
+    private int retainedJobs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmployeeHierarchyService hierarchy;
+
+    @Autowired
+    private EmployeeDirectoryCache directory;
+
+    private ExecutorService workerPool;
+    private TransactionTemplate transactionTemplate;
+    private ProcedureCallRegistry.ProcedureCall procApplyIndexationIds;
+
+    // Задания в порядке создания; запуск и продолжение сериализуются на самой карте
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        procApplyIndexationIds = procedures.get("proc_apply_salary_indexation_ids");
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "salary-indexation-" + UUID.randomUUID().toString().substring(0, 8));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Запланировать и запустить индексацию. План (ID и текущие MZDA) читается сразу, чанки выполняются в фоне.
+     *
+     * @throws IllegalArgumentException при некорректном диапазоне процентов
+     * @throws JobRunningException      если предыдущее задание еще выполняется
+     */
+    public Job startJob(double minPercentage, double maxPercentage, String owner) {
+        if (minPercentage > maxPercentage || minPercentage <= -100) {
+            throw new IllegalArgumentException("Invalid percentage range: " + minPercentage + " - " + maxPercentage);
+        }
+        synchronized (jobs) {
+            ensureNoneRunning();
+            Job job = new Job(UUID.randomUUID().toString(), owner, minPercentage, maxPercentage, plan());
+            jobs.put(job.getId(), job);
+            trimJobs();
+            logger.info("Индексация зарплат {}: {} сотрудников, {} партиций, {} чанков, диапазон {}-{} %",
+                    job.getId(), job.getTotalEmployees(), job.getPartitions(), job.getTotalChunks(),
+                    minPercentage, maxPercentage);
+            run(job);
+            return job;
+        }
+    }
+
+    /**
+     * Продолжить упавшее задание: выполняются только незакоммиченные чанки.
+     *
+     * @throws JobStateException   если задание не найдено или не в состоянии FAILED
+     * @throws JobRunningException если выполняется другое задание
+     */
+    public Job resumeJob(String jobId) {
+        synchronized (jobs) {
+            Job job = jobs.get(jobId);
+            if (job == null) {
+                throw new JobStateException("Salary indexation job not found: " + jobId);
+            }
+            if (job.state != State.FAILED) {
+                throw new JobStateException("Only failed jobs can be resumed, job is " + job.state);
+            }
+            ensureNoneRunning();
+            job.chunks().filter(chunk -> chunk.state == State.FAILED).forEach(chunk -> {
+                chunk.state = State.PENDING;
+                chunk.error = null;
+            });
+            logger.info("Продолжение индексации зарплат {}: осталось {} из {} чанков",
+                    jobId, job.getTotalChunks() - job.getCompletedChunks(), job.getTotalChunks());
+            run(job);
+            return job;
+        }
+    }
+
+    public Job getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    /**
+     * Задания, начиная с последнего.
+     */
+    public List<Job> getJobs() {
+        synchronized (jobs) {
+            List<Job> list = new ArrayList<>(jobs.values());
+            Collections.reverse(list);
+            return list;
+        }
+    }
+
+    private void ensureNoneRunning() {
+        for (Job existing : jobs.values()) {
+            if (existing.state == State.RUNNING) {
+                throw new JobRunningException("Salary indexation job " + existing.getId() + " is still running.");
+            }
+        }
+    }
+
+    // Партиция — супермаркет, иначе склад; сотрудники без места работы образуют отдельную партицию
+    private Plan plan() {
+        Map<String, List<Long>> ids = new LinkedHashMap<>();
+        jdbcTemplate.query(PLAN_QUERY, rs -> {
+            long supermarketId = rs.getLong(2);
+            boolean hasSupermarket = !rs.wasNull();
+            long skladId = rs.getLong(3);
+            boolean hasSklad = !rs.wasNull();
+            String partition = hasSupermarket ? "supermarket:" + supermarketId
+                    : hasSklad ? "sklad:" + skladId : "unassigned";
+            ids.computeIfAbsent(partition, k -> new ArrayList<>()).add(rs.getLong(1));
+        });
+
+        Map<String, List<Chunk>> partitions = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<String, List<Long>> entry : ids.entrySet()) {
+            List<Long> partitionIds = entry.getValue();
+            List<Chunk> chunks = new ArrayList<>();
+            for (int from = 0; from < partitionIds.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, partitionIds.size());
+                chunks.add(new Chunk(entry.getKey(), partitionIds.subList(from, to).toArray(new Long[0])));
+            }
+            partitions.put(entry.getKey(), chunks);
+            total += partitionIds.size();
+        }
+        return new Plan(partitions, total);
+    }
+
+    private void run(Job job) {
+        job.state = State.RUNNING;
+        job.attempts.incrementAndGet();
+        job.startedAt = System.currentTimeMillis();
+        job.finishedAt = 0;
+        job.processedBefore = job.updated.sum() + job.skipped.sum();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (List<Chunk> partition : job.partitions.values()) {
+            tasks.add(CompletableFuture.runAsync(() -> runPartition(job, partition), workerPool));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> finish(job));
+    }
+
+    // Чанки партиции идут последовательно; после первой ошибки остаток партиции ждет продолжения задания
+    private void runPartition(Job job, List<Chunk> partition) {
+        for (Chunk chunk : partition) {
+            if (chunk.state == State.COMPLETED) {
+                continue;
+            }
+            chunk.state = State.RUNNING;
+            try {
+                int applied = transactionTemplate.execute(status -> applyChunk(job, chunk));
+                job.updated.add(applied);
+                job.skipped.add(chunk.ids.length - applied);
+                chunk.state = State.COMPLETED;
+                job.completedChunks.incrementAndGet();
+                hierarchy.invalidate();
+                directory.invalidate();
+            } catch (RuntimeException e) {
+                chunk.state = State.FAILED;
+                chunk.error = e.getMessage();
+                logger.warn("Индексация зарплат {}: чанк партиции {} не записан: {}",
+                        job.getId(), chunk.partition, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Один вызов процедуры на чанк; возвращает число обновленных сотрудников
+    private int applyChunk(Job job, Chunk chunk) {
+        Map<String, Object> result = procApplyIndexationIds.execute(new MapSqlParameterSource()
+                .addValue("p_min_percentage", job.minPercentage)
+                .addValue("p_max_percentage", job.maxPercentage)
+                .addValue("p_employee_ids", new AbstractSqlTypeValue() {
+                    @Override
+                    protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+                            throws SQLException {
+                        return connection.unwrap(OracleConnection.class).createOracleArray(typeName, chunk.ids);
+                    }
+                })
+                .addValue("p_job_id", job.getId()));
+        Number updated = (Number) result.get("p_updated");
+        return updated != null ? updated.intValue() : 0;
+    }
+
+    private void finish(Job job) {
+        // Если пул остановлен посреди задания, непройденные чанки остаются PENDING — задание считается упавшим
+        boolean complete = job.chunks().allMatch(chunk -> chunk.state == State.COMPLETED);
+        job.finishedAt = System.currentTimeMillis();
+        job.state = complete ? State.COMPLETED : State.FAILED;
+        hierarchy.invalidate();
+        logger.info("Индексация зарплат {} завершена: {}, обновлено {}, пропущено {}, {} сотр./с",
+                job.getId(), job.state, job.getUpdatedEmployees(), job.getSkippedEmployees(),
+                String.format("%.1f", job.getThroughputPerSecond()));
+    }
+
+    private void trimJobs() {
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && iterator.hasNext()) {
+            if (iterator.next().state != State.RUNNING) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.Rows.SkladRow;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,22 +18,30 @@ public class SkladService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    private ProcedureCallRegistry.ProcedureCall procSkladCud;
+
+    @Autowired
+    public void setUp() {
+        this.procSkladCud = procedures.get("proc_sklad_cud");
+    }
+
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getAllSklady() {
-        String sql = "SELECT id_skladu, nazev, telefon, email, adresa_id_adresy FROM sklad";
-        return jdbcTemplate.queryForList(sql);
+    public List<SkladRow> getAllSklady() {
+        String sql = "SELECT " + SkladRow.COLUMNS + " FROM sklad";
+        return jdbcTemplate.query(sql, SkladRow.ROW_MAPPER);
     }
 
     @Transactional(readOnly = true)
-    public Map<String, Object> getSkladById(Long skladId) {
-        String sql = "SELECT id_skladu, nazev, telefon, email, adresa_id_adresy FROM sklad WHERE id_skladu = ?";
-        return jdbcTemplate.queryForMap(sql, skladId);
+    public SkladRow getSkladById(Long skladId) {
+        String sql = "SELECT " + SkladRow.COLUMNS + " FROM sklad WHERE id_skladu = ?";
+        return jdbcTemplate.queryForObject(sql, SkladRow.ROW_MAPPER, skladId);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void addSklad(String nazev, Long telefon, String email, Long adresaIdAdresy) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate).withProcedureName("proc_sklad_cud");
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "INSERT");
         inParams.put("p_id_skladu", null);
@@ -43,13 +50,11 @@ public class SkladService {
         inParams.put("p_email", email);
         inParams.put("p_adresa_id_adresy", adresaIdAdresy);
 
-        jdbcCall.execute(inParams);
+        procSkladCud.execute(inParams);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void updateSklad(Long skladId, String nazev, Long telefon, String email, Long adresaIdAdresy) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate).withProcedureName("proc_sklad_cud");
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_skladu", skladId);
@@ -58,17 +63,19 @@ public class SkladService {
         inParams.put("p_email", email);
         inParams.put("p_adresa_id_adresy", adresaIdAdresy);
 
-        jdbcCall.execute(inParams);
+        procSkladCud.execute(inParams);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void deleteSklad(Long skladId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate).withProcedureName("proc_sklad_cud");
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
         inParams.put("p_id_skladu", skladId);
+        inParams.put("p_nazev", null);
+        inParams.put("p_telefon", null);
+        inParams.put("p_email", null);
+        inParams.put("p_adresa_id_adresy", null);
 
-        jdbcCall.execute(inParams);
+        procSkladCud.execute(inParams);
     }
 }
@@ -1,13 +1,12 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.Rows.SupermarketRow;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,41 +18,42 @@ public class SupermarketService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProcedureCallRegistry procedures;
+
+    private ProcedureCallRegistry.ProcedureCall procSupermarketCud;
+
+    @Autowired
+    public void setUp() {
+        this.procSupermarketCud = procedures.get("proc_supermarket_cud");
+    }
+
     /**
      * Получение всех супермаркетов
      */
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getAllSupermarkets() {
-        String sql = "SELECT sm.id_supermarketu, sm.nazev, sm.telefon, sm.email, " +
-                "sm.adresa_id_adresy FROM supermarket sm";
-//                "FROM supermarket sm " +
-//                "LEFT JOIN adresa a ON sm.adresa_id_adresy = a.id_adresy";
-        return jdbcTemplate.queryForList(sql);
+    public List<SupermarketRow> getAllSupermarkets() {
+        String sql = "SELECT " + SupermarketRow.COLUMNS + " FROM supermarket sm";
+        return jdbcTemplate.query(sql, SupermarketRow.ROW_MAPPER);
     }
 
     /**
      * Получение супермаркета по ID
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getSupermarketById(Long supermarketId) {
-        String sql = "SELECT sm.id_supermarketu, sm.nazev, sm.telefon, sm.email, " +
-                "sm.adresa_id_adresy FROM supermarket sm" +
-//                "FROM supermarket sm " +
-//                "LEFT JOIN adresa a ON sm.adresa_id_adresy = a.id_adresy " +
-                "WHERE sm.id_supermarketu = ?";
-        return jdbcTemplate.queryForMap(sql, supermarketId);
+    public SupermarketRow getSupermarketById(Long supermarketId) {
+        String sql = "SELECT " + SupermarketRow.COLUMNS + " FROM supermarket sm WHERE sm.id_supermarketu = ?";
+        return jdbcTemplate.queryForObject(sql, SupermarketRow.ROW_MAPPER, supermarketId);
     }
 
     /**
      * Фильтрация супермаркетов по имени и городу
      */
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getFilteredSupermarkets(String name, String city) {
+    public List<SupermarketRow> getFilteredSupermarkets(String name, String city) {
         StringBuilder sqlBuilder = new StringBuilder(
-                "SELECT sm.id_supermarketu, sm.nazev, sm.telefon, sm.email, " +
-                        "sm.adresa_id_adresy FROM supermarket sm" +
-//                        "FROM supermarket sm " +
-//                        "LEFT JOIN adresa a ON sm.adresa_id_adresy = a.id_adresy" +
+                "SELECT " + SupermarketRow.COLUMNS + " FROM supermarket sm " +
+                        "LEFT JOIN adresa a ON sm.adresa_id_adresy = a.id_adresy " +
                         "WHERE 1=1");
 
         List<Object> params = new ArrayList<>();
@@ -66,27 +66,12 @@ public class SupermarketService {
             params.add("%" + city.toLowerCase() + "%");
         }
 
-        return jdbcTemplate.queryForList(sqlBuilder.toString(), params.toArray());
+        return jdbcTemplate.query(sqlBuilder.toString(), SupermarketRow.ROW_MAPPER, params.toArray());
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void addSupermarket(String name, Long phone, String email, Long addressId,
                                String street, Integer postalCode, String city, Integer buildingNumber) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_supermarket_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_telefon", Types.NUMERIC),
-                        new SqlParameter("p_email", Types.VARCHAR),
-                        new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
-                        new SqlParameter("p_ulice", Types.VARCHAR),
-                        new SqlParameter("p_psc", Types.NUMERIC),
-                        new SqlParameter("p_mesto", Types.VARCHAR),
-                        new SqlParameter("p_cisloPopisne", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "INSERT");
         inParams.put("p_id_supermarketu", null);
@@ -99,27 +84,12 @@ public class SupermarketService {
         inParams.put("p_mesto", city);
         inParams.put("p_cisloPopisne", buildingNumber);
 
-        jdbcCall.execute(inParams);
+        procSupermarketCud.execute(inParams);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void updateSupermarket(Long supermarketId, String name, Long phone, String email, Long addressId,
                                   String street, Integer postalCode, String city, Integer buildingNumber) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_supermarket_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_nazev", Types.VARCHAR),
-                        new SqlParameter("p_telefon", Types.NUMERIC),
-                        new SqlParameter("p_email", Types.VARCHAR),
-                        new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
-                        new SqlParameter("p_ulice", Types.VARCHAR),
-                        new SqlParameter("p_psc", Types.NUMERIC),
-                        new SqlParameter("p_mesto", Types.VARCHAR),
-                        new SqlParameter("p_cisloPopisne", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "UPDATE");
         inParams.put("p_id_supermarketu", supermarketId);
@@ -132,22 +102,23 @@ public class SupermarketService {
         inParams.put("p_mesto", city);
         inParams.put("p_cisloPopisne", buildingNumber);
 
-        jdbcCall.execute(inParams);
+        procSupermarketCud.execute(inParams);
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void deleteSupermarket(Long supermarketId) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_supermarket_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_supermarketu", Types.NUMERIC)
-                );
-
         Map<String, Object> inParams = new HashMap<>();
         inParams.put("p_action", "DELETE");
         inParams.put("p_id_supermarketu", supermarketId);
-
-        jdbcCall.execute(inParams);
+        inParams.put("p_nazev", null);
+        inParams.put("p_telefon", null);
+        inParams.put("p_email", null);
+        inParams.put("p_adresa_id_adresy", null);
+        inParams.put("p_ulice", null);
+        inParams.put("p_psc", null);
+        inParams.put("p_mesto", null);
+        inParams.put("p_cisloPopisne", null);
+
+        procSupermarketCud.execute(inParams);
     }
 }
@@ -3,6 +3,8 @@ package com.bdas_dva.backend.Service;
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
 import com.bdas_dva.backend.Model.Address;
 import com.bdas_dva.backend.Model.User;
+import com.bdas_dva.backend.Security.PrincipalCache;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -21,6 +23,9 @@ public class UserService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     // Создание нового пользователя (Create)
     @Transactional(rollbackFor = Exception.class)
     public void createUserZak(User user) {
@@ -87,6 +92,8 @@ public class UserService {
             cs.setObject(10, user.getZamnestnanecIdZamnestnance());
             return cs;
         });
+        // Сброс после коммита: запрос между сбросом и коммитом закешировал бы старую строку
+        TransactionCallbacks.afterCommit(() -> principalCache.evictUser(user.getIdUser(), user.getEmail()));
     }
 
     // Удаление пользователя (Delete)
@@ -109,6 +116,7 @@ public class UserService {
             cs.setNull(9, Types.NUMERIC); // p_zamnestnanec_id_zamnestnance
             return cs;
         });
+        TransactionCallbacks.afterCommit(() -> principalCache.evictUser(idUser, null));
     }
 
     // Получение пользователя по email
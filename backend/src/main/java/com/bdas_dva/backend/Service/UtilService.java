@@ -3,6 +3,10 @@ package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Model.Log;
 import com.bdas_dva.backend.Model.Zamestnanec.Pozice;
+import com.bdas_dva.backend.Security.PrincipalCache;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
+import com.bdas_dva.backend.Util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -23,6 +27,17 @@ public class UtilService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    @PostConstruct
+    public void setUp() {
+        referenceData.register(ReferenceDataCache.Dataset.ROLES, this::loadRoles);
+    }
+
     /**
      * Получить все объекты для владельца.
      * @param owner Имя владельца.
@@ -41,10 +56,14 @@ public class UtilService {
     }
 
     /**
-     * Получить все роли из таблицы ROLE.
+     * Получить все роли из таблицы ROLE (из снимка справочников).
      * @return Список ролей.
      */
     public List<Map<String, Object>> getAllRoles() {
+        return referenceData.get(ReferenceDataCache.Dataset.ROLES);
+    }
+
+    private List<Map<String, Object>> loadRoles() {
         String query = "SELECT * FROM ROLE";
 
         try {
@@ -79,6 +98,7 @@ public class UtilService {
             callableStatement.execute();
             return null;
         });
+        referenceData.refresh(ReferenceDataCache.Dataset.POSITIONS);
     }
 
 
@@ -106,6 +126,9 @@ public class UtilService {
             callableStatement.execute();
             return null;
         });
+        // Сброс после коммита: запрос между сбросом и коммитом закешировал бы старую роль
+        TransactionCallbacks.afterCommit(principalCache::invalidateAll);
+        referenceData.refresh(ReferenceDataCache.Dataset.ROLES);
     }
 
     /**
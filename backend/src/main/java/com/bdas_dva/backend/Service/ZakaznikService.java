@@ -1,6 +1,7 @@
 package com.bdas_dva.backend.Service;
 
 import com.bdas_dva.backend.Exception.ResourceNotFoundException;
+import com.bdas_dva.backend.Model.Rows.UserViewRow;
 import com.bdas_dva.backend.Model.Zakaznik;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
@@ -13,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class ZakaznikService {
@@ -193,9 +193,9 @@ public class ZakaznikService {
     /**
      * Получить всех пользователей из USER_VIEW.
      */
-    public List<Map<String, Object>> getAllUsers() {
-        String query = "SELECT * FROM USER_VIEW";
-        return jdbcTemplate.queryForList(query);
+    public List<UserViewRow> getAllUsers() {
+        String query = "SELECT " + UserViewRow.COLUMNS + " FROM USER_VIEW";
+        return jdbcTemplate.query(query, UserViewRow.ROW_MAPPER);
     }
 
     // Метод для маппинга строки ResultSet в объект Zakaznik
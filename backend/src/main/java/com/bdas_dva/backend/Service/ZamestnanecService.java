@@ -1,17 +1,21 @@
 package com.bdas_dva.backend.Service;
 
+import com.bdas_dva.backend.Model.Rows.EmployeeSalaryRow;
 import com.bdas_dva.backend.Model.Zamestnanec.Zamestnanec;
 import com.bdas_dva.backend.Model.Zamestnanec.ZamestnanecRequest;
 import com.bdas_dva.backend.Model.Zamestnanec.ZamestnanecResponse;
 import com.bdas_dva.backend.Model.Zamestnanec.ZamestnanecUserLinkRequest;
 import com.bdas_dva.backend.Model.Zamestnanec.ZamestnanecRegisterRequest;
+import com.bdas_dva.backend.Util.EmployeeDirectoryCache;
+import com.bdas_dva.backend.Util.ProcedureCallRegistry;
+import com.bdas_dva.backend.Util.ReferenceDataCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.*;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.sql.Date;
@@ -30,23 +34,69 @@ public class ZamestnanecService {
 
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final EmployeeHierarchyService hierarchy;
+    private final EmployeeDirectoryCache directory;
+    private final ReferenceDataCache referenceData;
+
+    @Value("${employee-hierarchy.salary-check:false}")
+    private boolean salaryCheck;
+
+    private final ProcedureCallRegistry.ProcedureCall procZamestnanecR;
+    private final ProcedureCallRegistry.ProcedureCall procShowHierarchy;
+    private final ProcedureCallRegistry.ProcedureCall procZamestnanecCud;
+    private final ProcedureCallRegistry.ProcedureCall procZamestnanecUserLink;
+    private final ProcedureCallRegistry.ProcedureCall procZamestnanecRegister;
+    private final ProcedureCallRegistry.ProcedureCall procAverageSubordinateSalary;
+    private final ProcedureCallRegistry.ProcedureCall procApplySalaryIndexation;
 
     @Autowired
-    public ZamestnanecService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    public ZamestnanecService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, ProcedureCallRegistry procedures,
+                              EmployeeHierarchyService hierarchy, EmployeeDirectoryCache directory,
+                              ReferenceDataCache referenceData) {
         this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
+        this.hierarchy = hierarchy;
+        this.directory = directory;
+        this.referenceData = referenceData;
+        // Все фильтры необязательны: без параметров процедура возвращает всех сотрудников
+        this.procZamestnanecR = procedures.register("proc_zamnestnanec_r",
+                ProcedureCallRegistry.optional("p_id_zamnestnance", Types.NUMERIC),
+                ProcedureCallRegistry.optional("p_jmeno", Types.VARCHAR),
+                ProcedureCallRegistry.optional("p_prijmeni", Types.VARCHAR),
+                ProcedureCallRegistry.optional("p_supermarket_id_supermarketu", Types.NUMERIC),
+                ProcedureCallRegistry.optional("p_sklad_id_skladu", Types.NUMERIC),
+                ProcedureCallRegistry.optional("p_pozice_id_pozice", Types.NUMERIC),
+                ProcedureCallRegistry.optional("p_manager_flag", Types.NUMERIC),
+                ProcedureCallRegistry.optional("p_limit", Types.NUMERIC),
+                new SqlOutParameter("p_cursor", Types.REF_CURSOR, new ZamestnanecRowMapper()));
+        this.procShowHierarchy = procedures.get("P_SHOW_HIERARCHY_BY_ID");
+        this.procZamestnanecCud = procedures.get("proc_zamnestnanec_cud");
+        this.procZamestnanecUserLink = procedures.get("proc_zamestnanec_user_link");
+        this.procZamestnanecRegister = procedures.get("proc_zamestnanec_register");
+        this.procAverageSubordinateSalary = procedures.get("proc_average_subordinate_salary");
+        this.procApplySalaryIndexation = procedures.get("proc_apply_salary_indexation");
+        referenceData.register(ReferenceDataCache.Dataset.POSITIONS, this::loadAllPozice);
     }
 
+    /**
+     * Vrátí všechny zaměstnance. Při zapnutém employee-directory.enabled z cache adresáře zaměstnanců.
+     *
+     * @return Seznam zaměstnanců.
+     * @throws Exception V případě chyby při volání procedury nebo mapování dat.
+     */
     @Transactional(rollbackFor = Exception.class)
     public List<ZamestnanecResponse> getAllZamestnanci() throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_zamnestnanec_r")
-                .returningResultSet("p_cursor", new ZamestnanecRowMapper());
+        if (directory.isEnabled()) {
+            return directory.getAll(this::loadAllZamestnanci);
+        }
+        return loadAllZamestnanci();
+    }
 
+    private List<ZamestnanecResponse> loadAllZamestnanci() {
         logger.info("Calling procedure proc_zamnestnanec_r to fetch all employees.");
 
-        // Вызов процедуры без входных параметров
-        Map<String, Object> out = jdbcCall.execute();
+        // Вызов процедуры без фильтров - все входные параметры передаются как null
+        Map<String, Object> out = procZamestnanecR.execute();
 
         @SuppressWarnings("unchecked")
         List<ZamestnanecResponse> zamestnanci = (List<ZamestnanecResponse>) out.get("p_cursor");
@@ -60,8 +110,29 @@ public class ZamestnanecService {
         return zamestnanci;
     }
 
+    /**
+     * Vyhledá zaměstnance v adresáři v paměti (cache proc_zamnestnanec_r bez filtrů).
+     * Jméno a příjmení se porovnávají podle začátku bez ohledu na velikost písmen, ostatní filtry přesně;
+     * příznak manažera ani limit se nepoužívají. Výsledek nezávisí na employee-directory.enabled —
+     * bez cache se stejné podmínky vyhodnotí nad výsledkem procedury.
+     *
+     * @return Seznam zaměstnanců v pořadí proc_zamnestnanec_r.
+     * @throws Exception V případě chyby při volání procedury nebo mapování dat.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<ZamestnanecResponse> searchZamestnanci(Long idZamestnance, String jmeno, String prijmeni,
+                                                       Long supermarketId, Long skladId, Long poziceId) throws Exception {
+        if (directory.isEnabled()) {
+            return directory.filter(idZamestnance, jmeno, prijmeni, supermarketId, skladId, poziceId,
+                    this::loadAllZamestnanci);
+        }
+        return EmployeeDirectoryCache.filter(loadAllZamestnanci(), idZamestnance, jmeno, prijmeni,
+                supermarketId, skladId, poziceId);
+    }
+
     /**
      * Získá seznam zaměstnanců s možností filtrování.
+     * Vždy volá proc_zamnestnanec_r: podmínky filtru (včetně příznaku manažera a limitu) určuje procedura.
      *
      * @param request Filtrační parametry.
      * @return Seznam zaměstnanců.
@@ -69,21 +140,6 @@ public class ZamestnanecService {
      */
     @Transactional(rollbackFor = Exception.class)
     public List<ZamestnanecResponse> getZamestnanciFiltered(ZamestnanecRequest request) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_zamnestnanec_r")
-                .returningResultSet("p_cursor", new ZamestnanecRowMapper())
-                .declareParameters(
-                        new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
-                        new SqlParameter("p_jmeno", Types.VARCHAR),
-                        new SqlParameter("p_prijmeni", Types.VARCHAR),
-                        new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
-                        new SqlParameter("p_pozice_id_pozice", Types.NUMERIC),
-                        new SqlParameter("p_manager_flag", Types.NUMERIC),
-                        new SqlParameter("p_limit", Types.NUMERIC),
-                        new SqlOutParameter("p_cursor", Types.REF_CURSOR)
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_id_zamnestnance", request.getIdZamestnance())
                 .addValue("p_jmeno", request.getJmeno())
@@ -103,7 +159,7 @@ public class ZamestnanecService {
 
         logger.info("Calling procedure proc_zamnestnanec_r with parameters: {}", inParams);
 
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procZamestnanecR.execute(inParams);
 
         @SuppressWarnings("unchecked")
         List<ZamestnanecResponse> zamestnanci = (List<ZamestnanecResponse>) out.get("p_cursor");
@@ -149,14 +205,19 @@ public class ZamestnanecService {
         }
     }
 
+    /**
+     * Vrátí zaměstnance a všechny jeho podřízené (úroveň 1 = zadaný zaměstnanec).
+     * Při zapnutém employee-hierarchy.enabled odpovídá graf v paměti, jinak procedura P_SHOW_HIERARCHY_BY_ID.
+     *
+     * @param idEmployee ID zaměstnance.
+     * @return Hierarchie v pořadí průchodu do hloubky, prázdný seznam pokud zaměstnanec neexistuje.
+     * @throws Exception V případě chyby při volání procedury.
+     */
     @Transactional(readOnly = true)
     public List<Zamestnanec> getEmployeeHierarchy(Long idEmployee) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("P_SHOW_HIERARCHY_BY_ID")
-                .declareParameters(
-                        new SqlParameter("P_ID_EMPLOYEE", Types.NUMERIC),
-                        new SqlOutParameter("OUT_CURSOR", Types.REF_CURSOR)
-                );
+        if (hierarchy.isEnabled()) {
+            return hierarchy.getSubtree(idEmployee);
+        }
 
         // Параметры для процедуры
         MapSqlParameterSource inParams = new MapSqlParameterSource()
@@ -165,7 +226,7 @@ public class ZamestnanecService {
         logger.info("Calling procedure P_SHOW_HIERARCHY_BY_ID with parameter: {}", idEmployee);
 
         // Вызов процедуры
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procShowHierarchy.execute(inParams);
 
         // Получаем результат в виде списка карт
         @SuppressWarnings("unchecked")
@@ -183,6 +244,26 @@ public class ZamestnanecService {
         return result;
     }
 
+    /**
+     * Vrátí řetězec nadřízených od vrcholu organizační struktury až po zaměstnance.
+     *
+     * @param idEmployee ID zaměstnance.
+     * @return Nadřízení včetně zaměstnance, prázdný seznam pokud zaměstnanec neexistuje.
+     */
+    public List<Zamestnanec> getManagementChain(Long idEmployee) {
+        return hierarchy.getManagementChain(idEmployee);
+    }
+
+    /**
+     * Vrátí pozici zaměstnance v organizační struktuře (nadřízený, hloubka, počty podřízených).
+     *
+     * @param idEmployee ID zaměstnance.
+     * @return Mapa s údaji nebo null, pokud zaměstnanec neexistuje.
+     */
+    public Map<String, Object> getHierarchyPosition(Long idEmployee) {
+        return hierarchy.getPosition(idEmployee);
+    }
+
     private Zamestnanec mapToZamestnanec(Map<String, Object> row) {
         Zamestnanec zamestnanec = new Zamestnanec();
 
@@ -210,23 +291,6 @@ public class ZamestnanecService {
      */
     @Transactional(rollbackFor = Exception.class)
     public void createZamestnanec(ZamestnanecRequest request) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("PROC_ZAMNESTNANEC_CUD")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
-                        new SqlParameter("p_datumzamestnani", Types.DATE),
-                        new SqlParameter("p_pracovnidoba", Types.NUMERIC),
-                        new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
-                        new SqlParameter("p_zamnestnanec_id_zamnestnance", Types.NUMERIC),
-                        new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
-                        new SqlParameter("p_jmeno", Types.VARCHAR),
-                        new SqlParameter("p_prijmeni", Types.VARCHAR),
-                        new SqlParameter("p_mzda", Types.NUMERIC),
-                        new SqlParameter("p_manager_flag", Types.BOOLEAN)
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_action", "INSERT")
                 .addValue("p_id_zamnestnance", null)
@@ -239,10 +303,12 @@ public class ZamestnanecService {
                 .addValue("p_jmeno", request.getJmeno())
                 .addValue("p_prijmeni", request.getPrijmeni())
                 .addValue("p_mzda", BigDecimal.valueOf(request.getMzda()))
-                .addValue("p_manager_flag", request.getPoziceIdPozice() != null && (request.getPoziceIdPozice() == 2 || request.getPoziceIdPozice() == 3));
+                .addValue("p_manager_flag", request.getPoziceIdPozice() != null && (request.getPoziceIdPozice() == 2 || request.getPoziceIdPozice() == 3) ? 1 : 0);
 
         logger.info("Вызов процедуры PROC_ZAMNESTNANEC_CUD с параметрами: {}", inParams);
-        jdbcCall.execute(inParams);
+        procZamestnanecCud.execute(inParams);
+        hierarchy.refreshNewEmployees();
+        directory.invalidate();
     }
 
     /**
@@ -254,23 +320,6 @@ public class ZamestnanecService {
      */
     @Transactional(rollbackFor = Exception.class)
     public void updateZamestnanec(Long idZamestnance, ZamestnanecRequest request) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_zamnestnanec_cud")
-                .declareParameters(
-                        new SqlParameter("p_action", Types.VARCHAR),
-                        new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
-                        new SqlParameter("p_datumzamestnani", Types.DATE),
-                        new SqlParameter("p_pracovnidoba", Types.NUMERIC),
-                        new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
-                        new SqlParameter("p_zamnestnanec_id_zamnestnance", Types.NUMERIC),
-                        new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
-                        new SqlParameter("p_jmeno", Types.VARCHAR),
-                        new SqlParameter("p_prijmeni", Types.VARCHAR),
-                        new SqlParameter("p_mzda", Types.NUMERIC),
-                        new SqlParameter("p_manager_flag", Types.NUMERIC) // Используем NUMERIC
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_action", "UPDATE")
                 .addValue("p_id_zamnestnance", idZamestnance)
@@ -286,7 +335,9 @@ public class ZamestnanecService {
                 .addValue("p_manager_flag", request.getPoziceIdPozice() != null && (request.getPoziceIdPozice() == 2 || request.getPoziceIdPozice() == 3) ? 1 : 0); // 1 = manager, 0 = not
         logger.info("Volání procedury proc_zamnestnanec_cud pro UPDATE s parametry: {}", inParams);
 
-        jdbcCall.execute(inParams);
+        procZamestnanecCud.execute(inParams);
+        hierarchy.refreshEmployee(idZamestnance);
+        directory.invalidate();
     }
 
     /**
@@ -297,20 +348,14 @@ public class ZamestnanecService {
      */
     @Transactional(rollbackFor = Exception.class)
     public void linkZamestnanecUser(ZamestnanecUserLinkRequest request) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_zamestnanec_user_link")
-                .declareParameters(
-                        new SqlParameter("p_id_zamestnance", Types.NUMERIC),
-                        new SqlParameter("p_id_user", Types.NUMERIC)
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_id_zamestnance", request.getIdZamestnance())
                 .addValue("p_id_user", request.getIdUser());
 
         logger.info("Volání procedury proc_zamestnanec_user_link s parametry: {}", inParams);
 
-        jdbcCall.execute(inParams);
+        procZamestnanecUserLink.execute(inParams);
+        directory.invalidate();
     }
 
     /**
@@ -322,25 +367,6 @@ public class ZamestnanecService {
      */
     @Transactional(rollbackFor = Exception.class)
     public Map<String, Long> registerZamestnanec(ZamestnanecRegisterRequest request) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_zamestnanec_register")
-                .declareParameters(
-                        new SqlParameter("p_jmeno", Types.VARCHAR),
-                        new SqlParameter("p_prijmeni", Types.VARCHAR),
-                        new SqlParameter("p_email", Types.VARCHAR),
-                        new SqlParameter("p_password", Types.VARCHAR),
-                        new SqlParameter("p_role_id", Types.NUMERIC),
-                        new SqlParameter("p_datumzamestnani", Types.DATE),
-                        new SqlParameter("p_pracovnidoba", Types.NUMERIC),
-                        new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
-                        new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
-                        new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
-                        new SqlParameter("p_mzda", Types.NUMERIC),
-                        new SqlParameter("p_pozice_id_pozice", Types.NUMERIC),
-                        new SqlOutParameter("p_id_user", Types.NUMERIC),
-                        new SqlOutParameter("p_id_zamestnance", Types.NUMERIC)
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_jmeno", request.getJmeno())
                 .addValue("p_prijmeni", request.getPrijmeni())
@@ -357,7 +383,7 @@ public class ZamestnanecService {
 
         logger.info("Volání procedury proc_zamestnanec_register s parametry: {}", inParams);
 
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procZamestnanecRegister.execute(inParams);
 
         Number idUserNumber = (Number) out.get("p_id_user");
         Number idZamestnanceNumber = (Number) out.get("p_id_zamestnance");
@@ -368,6 +394,8 @@ public class ZamestnanecService {
 
         Long idUser = idUserNumber.longValue();
         Long idZamestnance = idZamestnanceNumber.longValue();
+        hierarchy.refreshEmployee(idZamestnance);
+        directory.invalidate();
 
         Map<String, Long> result = new HashMap<>();
         result.put("idUser", idUser);
@@ -380,76 +408,130 @@ public class ZamestnanecService {
 
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getAllPozice() {
+        return referenceData.get(ReferenceDataCache.Dataset.POSITIONS);
+    }
+
+    private List<Map<String, Object>> loadAllPozice() {
         String sql = "SELECT ID_POZICE, NAZEV FROM POZICE";
         return jdbcTemplate.queryForList(sql);
     }
     /**
-     * Вызов процедуры для получения средней зарплаты подчиненных.
+     * Средняя зарплата подчиненных.
+     * При включенном графе оргструктуры берется из агрегатов поддерева без вызова процедуры,
+     * а в режиме employee-hierarchy.salary-check дополнительно сверяется с proc_average_subordinate_salary.
      *
      * @param idZamestnance ID сотрудника.
      * @return Средняя зарплата подчиненных.
      * @throws Exception При ошибке выполнения процедуры.
      */
     public Double getAverageSubordinateSalary(Long idZamestnance) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_average_subordinate_salary")
-                .declareParameters(
-                        new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
-                        new SqlOutParameter("p_average_salary", Types.NUMERIC)
-                );
-
-        MapSqlParameterSource inParams = new MapSqlParameterSource()
-                .addValue("p_id_zamnestnance", idZamestnance);
-
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        if (!hierarchy.isEnabled()) {
+            return callAverageSubordinateSalary(idZamestnance);
+        }
 
-        // Получаем результат из параметра OUT
-        Number averageSalary = (Number) out.get("p_average_salary");
-        if (averageSalary != null) {
-            return averageSalary.doubleValue();
-        } else {
-            return null; // Если данных нет, возвращаем null
+        Double averageSalary = hierarchy.getAverageSubordinateSalary(idZamestnance);
+        if (salaryCheck) {
+            Double expected = callAverageSubordinateSalary(idZamestnance);
+            if (!hierarchy.recordSalaryCheck(averageSalary, expected)) {
+                logger.warn("Средняя зарплата подчиненных {} расходится с процедурой: граф {}, процедура {}",
+                        idZamestnance, averageSalary, expected);
+            }
         }
+        return averageSalary;
     }
 
+    /**
+     * Средняя зарплата подчиненных всегда через proc_average_subordinate_salary, минуя граф —
+     * эталон для сверки с {@link #getAverageSubordinateSalary}.
+     */
     @Transactional(readOnly = true)
     public Double getAverageSubordinateSalaryProcedure(Long idZamestnance) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_average_subordinate_salary")
-                .declareParameters(
-                        new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
-                        new SqlOutParameter("p_average_salary", Types.NUMERIC)
-                );
+        return callAverageSubordinateSalary(idZamestnance);
+    }
+
+    /**
+     * Фонд оплаты отдела руководителя (количество, сумма, минимум, максимум и средние MZDA).
+     *
+     * @param idZamestnance ID руководителя.
+     * @return Сводка или null, если сотрудник не найден.
+     */
+    public Map<String, Object> getSalarySummary(Long idZamestnance) {
+        return hierarchy.getSalarySummary(idZamestnance);
+    }
+
+    /**
+     * Сверка средних зарплат подчиненных из графа с proc_average_subordinate_salary по всем руководителям.
+     *
+     * @param limit Максимальное число проверяемых руководителей (null — все).
+     * @return Количество проверок, расхождений и первые расхождения.
+     * @throws Exception При ошибке выполнения процедуры.
+     */
+    public Map<String, Object> verifySubordinateSalaries(Integer limit) throws Exception {
+        List<Long> managers = hierarchy.getManagerIds();
+        if (limit != null && limit >= 0 && managers.size() > limit) {
+            managers = managers.subList(0, limit);
+        }
+
+        long start = System.nanoTime();
+        int mismatches = 0;
+        List<Map<String, Object>> samples = new ArrayList<>();
+        for (Long managerId : managers) {
+            Double cached = hierarchy.getAverageSubordinateSalary(managerId);
+            Double expected = callAverageSubordinateSalary(managerId);
+            if (!hierarchy.recordSalaryCheck(cached, expected)) {
+                mismatches++;
+                if (samples.size() < 50) {
+                    Map<String, Object> sample = new LinkedHashMap<>();
+                    sample.put("idZamestnance", managerId);
+                    sample.put("cached", cached);
+                    sample.put("procedure", expected);
+                    samples.add(sample);
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("checked", managers.size());
+        report.put("mismatches", mismatches);
+        report.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        report.put("samples", samples);
+        return report;
+    }
 
+    private Double callAverageSubordinateSalary(Long idZamestnance) {
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_id_zamnestnance", idZamestnance);
 
-        Map<String, Object> out = jdbcCall.execute(inParams);
+        Map<String, Object> out = procAverageSubordinateSalary.execute(inParams);
 
+        // Получаем результат из параметра OUT
         Number averageSalary = (Number) out.get("p_average_salary");
         return averageSalary != null ? averageSalary.doubleValue() : null;
     }
 
     public String applySalaryIndexationProcedure(Double minPercentage, Double maxPercentage) throws Exception {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
-                .withProcedureName("proc_apply_salary_indexation")
-                .declareParameters(
-                        new SqlParameter("p_min_percentage", Types.NUMERIC),
-                        new SqlParameter("p_max_percentage", Types.NUMERIC)
-                );
-
         MapSqlParameterSource inParams = new MapSqlParameterSource()
                 .addValue("p_min_percentage", minPercentage)
                 .addValue("p_max_percentage", maxPercentage);
 
-        jdbcCall.execute(inParams);
+        procApplySalaryIndexation.execute(inParams);
+        // Индексация меняет MZDA у всех сотрудников — агрегаты графа перечитываются целиком
+        hierarchy.invalidate();
+        directory.invalidate();
         return "Salary indexation applied successfully.";
     }
 
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getAllEmployeesFromView() {
-        String sql = "SELECT * FROM vw_employee_details";
-        return jdbcTemplate.queryForList(sql);
+    public List<EmployeeSalaryRow> getAllEmployeesFromView() {
+        if (directory.isEnabled()) {
+            return directory.getSalaryRows(this::loadEmployeesFromView);
+        }
+        return loadEmployeesFromView();
+    }
+
+    private List<EmployeeSalaryRow> loadEmployeesFromView() {
+        String sql = "SELECT " + EmployeeSalaryRow.COLUMNS + " FROM vw_employee_details";
+        return jdbcTemplate.query(sql, EmployeeSalaryRow.ROW_MAPPER);
     }
 
     @Transactional(readOnly = true)
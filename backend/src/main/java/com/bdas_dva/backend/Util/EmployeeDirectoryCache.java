@@ -0,0 +1,273 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.Rows.EmployeeSalaryRow;
+import com.bdas_dva.backend.Model.Zamestnanec.ZamestnanecResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кеш справочника сотрудников для админских экранов.
+ * Хранит результат proc_zamnestnanec_r без фильтров и строки vw_employee_details,
+ * а поиск (/api/zamestnanci/search) отвечается из вторичных индексов по позиции, супермаркету, складу
+ * и имени / фамилии. Условия поиска свои (префикс имени, без признака руководителя и лимита) —
+ * фильтр /filter с условиями процедуры через кеш не идет.
+ * Снимок неизменяемый и подменяется целиком: запись сотрудника (proc_zamnestnanec_cud, регистрация,
+ * привязка к пользователю, индексация зарплат) сбрасывает его после коммита, следующий запрос загружает заново.
+ */
+@Component
+public class EmployeeDirectoryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeDirectoryCache.class);
+
+    private record Directory(List<ZamestnanecResponse> all,
+                             Map<Long, ZamestnanecResponse> byId,
+                             Map<Long, List<ZamestnanecResponse>> byPozice,
+                             Map<Long, List<ZamestnanecResponse>> bySupermarket,
+                             Map<Long, List<ZamestnanecResponse>> bySklad,
+                             NavigableMap<String, List<ZamestnanecResponse>> byJmeno,
+                             NavigableMap<String, List<ZamestnanecResponse>> byPrijmeni,
+                             long loadedAtNanos) {
+    }
+
+    private record SalaryRows(List<EmployeeSalaryRow> rows, long loadedAtNanos) {
+    }
+
+    @Value("${employee-directory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${employee-directory.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Object loadMonitor = new Object();
+    private volatile Directory directory;
+    private volatile SalaryRows salaryRows;
+    // Увеличивается при сбросе: загрузка, начатая до сброса, не попадает в кеш
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder filters = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Все сотрудники в порядке proc_zamnestnanec_r.
+     *
+     * @param loader вызов процедуры без фильтров при промахе
+     */
+    public List<ZamestnanecResponse> getAll(Supplier<List<ZamestnanecResponse>> loader) {
+        return ensureLoaded(loader).all();
+    }
+
+    /**
+     * Фильтр справочника. null параметры не ограничивают выборку, имя и фамилия сравниваются
+     * по началу строки без учета регистра.
+     *
+     * @return сотрудники в порядке proc_zamnestnanec_r
+     */
+    public List<ZamestnanecResponse> filter(Long idZamestnance, String jmeno, String prijmeni, Long supermarketId,
+                                            Long skladId, Long poziceId, Supplier<List<ZamestnanecResponse>> loader) {
+        Directory current = ensureLoaded(loader);
+        long start = System.nanoTime();
+        String jmenoPrefix = fold(jmeno);
+        String prijmeniPrefix = fold(prijmeni);
+
+        // Кандидаты — самый короткий из списков индексов, остальные условия проверяются по строке
+        Collection<ZamestnanecResponse> candidates = current.all();
+        if (idZamestnance != null) {
+            ZamestnanecResponse employee = current.byId().get(idZamestnance);
+            candidates = employee != null ? List.of(employee) : List.of();
+        }
+        candidates = narrower(candidates, poziceId != null ? current.byPozice().getOrDefault(poziceId, List.of()) : null);
+        candidates = narrower(candidates, supermarketId != null ? current.bySupermarket().getOrDefault(supermarketId, List.of()) : null);
+        candidates = narrower(candidates, skladId != null ? current.bySklad().getOrDefault(skladId, List.of()) : null);
+        candidates = narrower(candidates, prefixMatches(current.byJmeno(), jmenoPrefix));
+        candidates = narrower(candidates, prefixMatches(current.byPrijmeni(), prijmeniPrefix));
+
+        List<ZamestnanecResponse> result = new ArrayList<>();
+        for (ZamestnanecResponse employee : candidates) {
+            if (matches(employee, idZamestnance, jmenoPrefix, prijmeniPrefix, supermarketId, skladId, poziceId)) {
+                result.add(employee);
+            }
+        }
+
+        filters.increment();
+        filterNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Те же условия, что у {@link #filter}, перебором списка — когда кеш выключен.
+     */
+    public static List<ZamestnanecResponse> filter(List<ZamestnanecResponse> employees, Long idZamestnance,
+                                                   String jmeno, String prijmeni, Long supermarketId,
+                                                   Long skladId, Long poziceId) {
+        String jmenoPrefix = fold(jmeno);
+        String prijmeniPrefix = fold(prijmeni);
+        List<ZamestnanecResponse> result = new ArrayList<>();
+        for (ZamestnanecResponse employee : employees) {
+            if (matches(employee, idZamestnance, jmenoPrefix, prijmeniPrefix, supermarketId, skladId, poziceId)) {
+                result.add(employee);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Строки vw_employee_details.
+     *
+     * @param loader SELECT из представления при промахе
+     */
+    public List<EmployeeSalaryRow> getSalaryRows(Supplier<List<EmployeeSalaryRow>> loader) {
+        SalaryRows current = salaryRows;
+        if (current != null && fresh(current.loadedAtNanos())) {
+            hits.increment();
+            return current.rows();
+        }
+        long startGeneration = generation;
+        List<EmployeeSalaryRow> rows = List.copyOf(loader.get());
+        loads.increment();
+        synchronized (loadMonitor) {
+            if (generation == startGeneration) {
+                salaryRows = new SalaryRows(rows, System.nanoTime());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Сброс справочника после коммита текущей транзакции (или сразу, если транзакции нет).
+     */
+    public void invalidate() {
+        TransactionCallbacks.afterCommit(this::invalidateNow);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Directory current = directory;
+        SalaryRows currentSalaryRows = salaryRows;
+        stats.put("enabled", enabled);
+        stats.put("employees", current != null ? current.all().size() : 0);
+        stats.put("positions", current != null ? current.byPozice().size() : 0);
+        stats.put("supermarkets", current != null ? current.bySupermarket().size() : 0);
+        stats.put("warehouses", current != null ? current.bySklad().size() : 0);
+        stats.put("salaryRows", currentSalaryRows != null ? currentSalaryRows.rows().size() : 0);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        long count = filters.sum();
+        stats.put("filters", count);
+        stats.put("avgFilterMicros", count > 0 ? filterNanos.sum() / count / 1_000.0 : 0.0);
+        return stats;
+    }
+
+    private void invalidateNow() {
+        synchronized (loadMonitor) {
+            generation++;
+            directory = null;
+            salaryRows = null;
+        }
+        invalidations.increment();
+    }
+
+    private Directory ensureLoaded(Supplier<List<ZamestnanecResponse>> loader) {
+        Directory current = directory;
+        if (current != null && fresh(current.loadedAtNanos())) {
+            hits.increment();
+            return current;
+        }
+        synchronized (loadMonitor) {
+            current = directory;
+            if (current != null && fresh(current.loadedAtNanos())) {
+                hits.increment();
+                return current;
+            }
+            long start = System.nanoTime();
+            current = index(loader.get());
+            directory = current;
+            loads.increment();
+            logger.info("Справочник сотрудников загружен: {} сотрудников за {} ms",
+                    current.all().size(), (System.nanoTime() - start) / 1_000_000);
+            return current;
+        }
+    }
+
+    private static Directory index(List<ZamestnanecResponse> employees) {
+        List<ZamestnanecResponse> all = employees != null ? List.copyOf(employees) : List.of();
+        Map<Long, ZamestnanecResponse> byId = new HashMap<>();
+        Map<Long, List<ZamestnanecResponse>> byPozice = new HashMap<>();
+        Map<Long, List<ZamestnanecResponse>> bySupermarket = new HashMap<>();
+        Map<Long, List<ZamestnanecResponse>> bySklad = new HashMap<>();
+        NavigableMap<String, List<ZamestnanecResponse>> byJmeno = new TreeMap<>();
+        NavigableMap<String, List<ZamestnanecResponse>> byPrijmeni = new TreeMap<>();
+        for (ZamestnanecResponse employee : all) {
+            byId.put(employee.getIdZamestnance(), employee);
+            addPosting(byPozice, employee.getPoziceIdPozice(), employee);
+            addPosting(bySupermarket, employee.getSupermarketIdSupermarketu(), employee);
+            addPosting(bySklad, employee.getSkladIdSkladu(), employee);
+            addPosting(byJmeno, fold(employee.getJmeno()), employee);
+            addPosting(byPrijmeni, fold(employee.getPrijmeni()), employee);
+        }
+        return new Directory(all, byId, byPozice, bySupermarket, bySklad, byJmeno, byPrijmeni, System.nanoTime());
+    }
+
+    private static <K> void addPosting(Map<K, List<ZamestnanecResponse>> index, K key, ZamestnanecResponse employee) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(employee);
+        }
+    }
+
+    // Все строки индекса, начинающиеся с prefix; null — условие не задано
+    private static List<ZamestnanecResponse> prefixMatches(NavigableMap<String, List<ZamestnanecResponse>> index,
+                                                           String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        List<ZamestnanecResponse> matches = new ArrayList<>();
+        for (List<ZamestnanecResponse> postings : index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            matches.addAll(postings);
+        }
+        return matches;
+    }
+
+    private static Collection<ZamestnanecResponse> narrower(Collection<ZamestnanecResponse> current,
+                                                            Collection<ZamestnanecResponse> candidate) {
+        return candidate != null && candidate.size() < current.size() ? candidate : current;
+    }
+
+    private boolean fresh(long loadedAtNanos) {
+        return System.nanoTime() - loadedAtNanos < ttlSeconds * 1_000_000_000L;
+    }
+
+    private static boolean matches(ZamestnanecResponse employee, Long idZamestnance, String jmenoPrefix,
+                                   String prijmeniPrefix, Long supermarketId, Long skladId, Long poziceId) {
+        return (idZamestnance == null || idZamestnance.equals(employee.getIdZamestnance()))
+                && (poziceId == null || poziceId.equals(employee.getPoziceIdPozice()))
+                && (supermarketId == null || supermarketId.equals(employee.getSupermarketIdSupermarketu()))
+                && (skladId == null || skladId.equals(employee.getSkladIdSkladu()))
+                && startsWith(employee.getJmeno(), jmenoPrefix)
+                && startsWith(employee.getPrijmeni(), prijmeniPrefix);
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return prefix == null || (value != null && value.toLowerCase(Locale.ROOT).startsWith(prefix));
+    }
+
+    private static String fold(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,180 @@
+package com.bdas_dva.backend.Util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Хранилище ключей идемпотентности (заголовок Idempotency-Key) в памяти.
+ * Первый запрос с ключом выполняет операцию, повторы получают сохраненный результат без обращения к БД,
+ * а одновременные дубликаты ждут завершения уже идущего выполнения вместо запуска второго.
+ * Неудачные выполнения не запоминаются — клиент может повторить запрос с тем же ключом.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * Результат выполнения: значение и признак того, что оно взято из хранилища (повтор).
+     */
+    public record Outcome<T>(T value, boolean replayed) {
+    }
+
+    /**
+     * Ключ уже использован для запроса с другим телом.
+     */
+    public static class KeyReuseException extends RuntimeException {
+        public KeyReuseException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Запрос с этим ключом еще выполняется дольше, чем допустимое время ожидания.
+     */
+    public static class InProgressException extends RuntimeException {
+        public InProgressException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAtNanos;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    public IdempotencyStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Выполнение операции не более одного раза для ключа.
+     *
+     * @param key         ключ идемпотентности (вместе с областью видимости, например email пользователя)
+     * @param fingerprint отпечаток тела запроса, см. {@link #fingerprint(Object)}
+     * @throws KeyReuseException   ключ уже использован с другим телом запроса
+     * @throws InProgressException первое выполнение не завершилось за idempotency.wait-seconds
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String key, String fingerprint, Callable<T> operation) throws Exception {
+        while (true) {
+            Entry created = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                return new Outcome<>(run(key, created, operation), false);
+            }
+
+            // Истекший ключ свободен для любого тела запроса, поэтому проверяется до сравнения отпечатков
+            if (isExpired(existing)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                conflicts.increment();
+                throw new KeyReuseException("Idempotency-Key уже использован для другого запроса.");
+            }
+
+            boolean inFlight = !existing.result.isDone();
+            try {
+                T value = (T) existing.result.get(waitSeconds, TimeUnit.SECONDS);
+                (inFlight ? coalesced : replays).increment();
+                return new Outcome<>(value, true);
+            } catch (TimeoutException e) {
+                throw new InProgressException("Запрос с этим Idempotency-Key еще выполняется.");
+            } catch (ExecutionException | CancellationException e) {
+                // Первое выполнение завершилось ошибкой и уже удалено — пробуем выполнить сами
+                entries.remove(key, existing);
+            }
+        }
+    }
+
+    /**
+     * SHA-256 JSON представления тела запроса.
+     */
+    public String fingerprint(Object body) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(objectMapper.writeValueAsBytes(body)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось вычислить отпечаток запроса", e);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", entries.size());
+        stats.put("maxKeys", maxKeys);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("executions", executions.sum());
+        stats.put("replays", replays.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("conflicts", conflicts.sum());
+        return stats;
+    }
+
+    private <T> T run(String key, Entry entry, Callable<T> operation) throws Exception {
+        executions.increment();
+        try {
+            T value = operation.call();
+            entry.completedAtNanos = System.nanoTime();
+            entry.result.complete(value);
+            purgeIfFull();
+            return value;
+        } catch (Exception | Error e) {
+            // Ошибка не запоминается: удаляем ключ до того, как разбудить ожидающие дубликаты
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.result.isDone()
+                && System.nanoTime() - entry.completedAtNanos > ttlSeconds * 1_000_000_000L;
+    }
+
+    // Удаление истекших ключей, а при переполнении — произвольных завершенных
+    private void purgeIfFull() {
+        if (entries.size() <= maxKeys) {
+            return;
+        }
+        entries.values().removeIf(this::isExpired);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxKeys && iterator.hasNext()) {
+            if (iterator.next().result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -1,71 +1,166 @@
 package com.bdas_dva.backend.Util;
 
 import com.bdas_dva.backend.Model.User;
+import com.bdas_dva.backend.Security.CustomUserDetails;
 import io.jsonwebtoken.*;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class JwtUtil {
+
+    /**
+     * Атрибут запроса с проверенными Claims, который выставляет AuthTokenFilter.
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".claims";
+
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
     @Value("${jwt.expirationMs}")
     private long EXPIRATION_TIME;
 
+    @Value("${jwt.verification-cache.max-size:4096}")
+    private int verificationCacheSize;
+
+    private record VerifiedToken(Claims claims, long expiresAtMillis) {
+    }
+
+    // SHA-256 токена -> проверенные claims; сами токены в памяти не хранятся.
+    // access-order LinkedHashMap вытесняет давно не использованные токены.
+    private final LinkedHashMap<String, VerifiedToken> verifiedTokens = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > verificationCacheSize;
+        }
+    };
+
+    private final LongAdder verificationHits = new LongAdder();
+    private final LongAdder verificationMisses = new LongAdder();
+
     // Генерация токена
     public String generateToken(User user) {
         return Jwts.builder()
                 .setSubject(user.getEmail()) // Используем email как subject
-                .claim("role", getRoleNameById(user.getRoleIdRole()))
+                .claim("role", CustomUserDetails.roleAuthority(user.getRoleIdRole()))
+                .claim("uid", user.getIdUser()) // для построения принципала без обращения к БД
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
                 .compact();
     }
 
-    private String getRoleNameById(Long roleId) {
-        switch (roleId.intValue()) {
-            case 1:
-                return "ROLE_USER";
-            case 2:
-                return "ROLE_EMPLOYEE";
-            case 3:
-                return "ROLE_ADMIN";
-            default:
-                return "ROLE_USER"; // По умолчанию
-        }
-    }
-
     // Извлечение информации из токена
     public String getUserNameFromJwtToken(String token) {
-        return parseClaims(token).getSubject();
+        Claims claims = verifyToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    // Все claims проверенного токена (subject, role, uid, iat, exp) или null для недействительного
+    public Claims getClaimsFromJwtToken(String token) {
+        return verifyToken(token);
     }
 
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken) != null;
+    }
+
+    /**
+     * Проверка подписи и срока действия с однократным разбором токена.
+     * Успешно проверенные токены запоминаются до истечения exp, поэтому повторные запросы
+     * с тем же токеном не разбирают JSON и не считают HMAC заново.
+     *
+     * @return проверенные claims или null, если токен недействителен
+     */
+    public Claims verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            logger.error("JWT claims string is empty");
+            return null;
+        }
+
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            VerifiedToken verified = verifiedTokens.get(digest);
+            if (verified != null) {
+                if (verified.expiresAtMillis() > now) {
+                    verificationHits.increment();
+                    return verified.claims();
+                }
+                verifiedTokens.remove(digest);
+            }
+        }
+
+        verificationMisses.increment();
+        Claims claims;
         try {
-            parseClaims(authToken);
-            return true;
+            claims = parseClaims(token);
         } catch (SignatureException e) {
             // Неверная подпись
             logger.error("Invalid JWT signature: {}", e.getMessage());
+            return null;
         } catch (MalformedJwtException e) {
             // Неверный формат токена
             logger.error("Invalid JWT token: {}", e.getMessage());
+            return null;
         } catch (ExpiredJwtException e) {
             // Токен просрочен
             logger.error("JWT token is expired: {}", e.getMessage());
+            return null;
         } catch (UnsupportedJwtException e) {
             // Неподдерживаемый токен
             logger.error("JWT token is unsupported: {}", e.getMessage());
+            return null;
         } catch (IllegalArgumentException e) {
             // Пустой токен
             logger.error("JWT claims string is empty: {}", e.getMessage());
+            return null;
+        }
+
+        if (claims.getExpiration() != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(digest, new VerifiedToken(claims, claims.getExpiration().getTime()));
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Claims текущего запроса, проверенные в AuthTokenFilter, или null если запрос без действительного токена.
+     */
+    public static Claims getRequestClaims(HttpServletRequest request) {
+        Object claims = request.getAttribute(CLAIMS_ATTRIBUTE);
+        return claims instanceof Claims ? (Claims) claims : null;
+    }
+
+    public Map<String, Object> getVerificationStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (verifiedTokens) {
+            stats.put("size", verifiedTokens.size());
         }
+        stats.put("maxSize", verificationCacheSize);
+        stats.put("hits", verificationHits.sum());
+        stats.put("misses", verificationMisses.sum());
+        return stats;
+    }
 
-        return false;
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
     }
 
     private Claims parseClaims(String token) {
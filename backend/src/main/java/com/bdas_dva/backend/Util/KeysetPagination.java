@@ -0,0 +1,93 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.KeysetPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Общий контракт keyset (seek) пагинации для списочных эндпоинтов.
+ * Курсор — Base64url от значений первичного ключа последней строки страницы, например "1042" или "7:15"
+ * для составного ключа. Сервис выбирает limit + 1 строк с ключом больше курсора,
+ * лишняя строка лишь сообщает, что следующая страница существует.
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Размер страницы в пределах 1..MAX_LIMIT (DEFAULT_LIMIT, если не указан).
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Разбор курсора. Возвращает null для первой страницы.
+     *
+     * @throws IllegalArgumentException если курсор поврежден или не соответствует числу столбцов ключа
+     */
+    public static long[] decode(String cursor, int keyColumns) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != keyColumns) {
+                throw new IllegalArgumentException("Неверный курсор пагинации.");
+            }
+            long[] keys = new long[keyColumns];
+            for (int i = 0; i < keyColumns; i++) {
+                keys[i] = Long.parseLong(parts[i]);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException и ошибки Base64 тоже IllegalArgumentException
+            throw new IllegalArgumentException("Неверный курсор пагинации.", e);
+        }
+    }
+
+    public static String encode(long... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(':');
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Сборка страницы из выборки limit + 1 строк.
+     *
+     * @param rows         строки, упорядоченные по ключу (не более limit + 1)
+     * @param keyExtractor значения ключа строки для курсора
+     */
+    public static <T> KeysetPage<T> page(List<T> rows, int limit, Function<T, long[]> keyExtractor) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null, limit);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        String nextCursor = encode(keyExtractor.apply(items.get(limit - 1)));
+        return new KeysetPage<>(items, nextCursor, limit);
+    }
+
+    /**
+     * Числовое значение столбца из строки queryForList (Oracle возвращает NUMBER как BigDecimal).
+     */
+    public static long longValue(Object value) {
+        return ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,374 @@
+package com.bdas_dva.backend.Util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlInOutParameter;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcCall;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Реестр заранее скомпилированных вызовов хранимых процедур.
+ * Каждая процедура компилируется один раз при старте с явным списком параметров,
+ * после чего SimpleJdbcCall потокобезопасно переиспользуется всеми сервисами.
+ */
+@Component
+public class ProcedureCallRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcedureCallRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, ProcedureCall> calls = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProcedureCallRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Объявление общих CUD процедур. Процедуры, возвращающие курсор с RowMapper,
+     * регистрируют их сервисы-владельцы через {@link #register}.
+     */
+    @PostConstruct
+    public void compileAll() {
+        // Продукты и изображения
+        register("proc_produkt_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_produktu", Types.NUMERIC),
+                new SqlParameter("p_nazev", Types.VARCHAR),
+                new SqlParameter("p_cena", Types.NUMERIC),
+                new SqlParameter("p_popis", Types.CLOB),
+                new SqlParameter("p_kat_prod_id_kategorie", Types.NUMERIC),
+                new SqlParameter("p_sklad_id_skladu", Types.NUMERIC));
+
+        // Сигнатура proc_obrazek_cud различается между ProductService и ImageService (p_typ),
+        // поэтому порядок параметров берется из метаданных - но только один раз при компиляции.
+        // ProductService не передает p_id_obrazku, ImageService — p_typ
+        registerWithMetaData("proc_obrazek_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                optional("p_id_obrazku", Types.NUMERIC),
+                new SqlParameter("p_obrazek", Types.BLOB),
+                new SqlParameter("p_nazev", Types.VARCHAR),
+                optional("p_typ", Types.VARCHAR),
+                new SqlParameter("p_format_id_formatu", Types.NUMERIC),
+                new SqlParameter("p_produkt_id_produktu", Types.NUMERIC));
+
+        // Objednávky a platby
+        register("proc_process_order",
+                new SqlParameter("p_customer_id", Types.NUMERIC),
+                new SqlParameter("p_first_name", Types.VARCHAR),
+                new SqlParameter("p_last_name", Types.VARCHAR),
+                new SqlParameter("p_email", Types.VARCHAR),
+                new SqlParameter("p_new_phone", Types.VARCHAR),
+                new SqlParameter("p_new_street", Types.VARCHAR),
+                new SqlParameter("p_new_street_number", Types.VARCHAR),
+                new SqlParameter("p_new_post_code", Types.VARCHAR),
+                new SqlParameter("p_new_city", Types.VARCHAR),
+                new SqlParameter("p_products_json", Types.CLOB),
+                new SqlOutParameter("p_order_id", Types.NUMERIC));
+
+        register("proc_platba_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlInOutParameter("p_id_platby", Types.NUMERIC),
+                new SqlParameter("p_suma", Types.NUMERIC),
+                new SqlParameter("p_datum", Types.TIMESTAMP),
+                new SqlParameter("p_typ", Types.VARCHAR),
+                new SqlParameter("p_objednavka_id_objednavky", Types.NUMERIC));
+
+        register("proc_hotovost_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_platby", Types.NUMERIC),
+                new SqlParameter("p_prijato", Types.NUMERIC),
+                new SqlParameter("p_vraceno", Types.NUMERIC));
+
+        register("proc_karta_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_platby", Types.NUMERIC),
+                new SqlParameter("p_cislo_karty", Types.VARCHAR));
+
+        register("proc_faktura_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_platby", Types.NUMERIC),
+                new SqlParameter("p_cislo_uctu", Types.VARCHAR),
+                new SqlParameter("p_datum_splatnosti", Types.TIMESTAMP));
+
+        // Супермаркеты, склады, поставщики
+        register("proc_supermarket_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_supermarketu", Types.NUMERIC),
+                new SqlParameter("p_nazev", Types.VARCHAR),
+                new SqlParameter("p_telefon", Types.NUMERIC),
+                new SqlParameter("p_email", Types.VARCHAR),
+                new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
+                new SqlParameter("p_ulice", Types.VARCHAR),
+                new SqlParameter("p_psc", Types.NUMERIC),
+                new SqlParameter("p_mesto", Types.VARCHAR),
+                new SqlParameter("p_cisloPopisne", Types.NUMERIC));
+
+        // proc_sklad_cud ранее вызывалась только через метаданные - порядок параметров берем оттуда же
+        registerWithMetaData("proc_sklad_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_skladu", Types.NUMERIC),
+                new SqlParameter("p_nazev", Types.VARCHAR),
+                new SqlParameter("p_telefon", Types.NUMERIC),
+                new SqlParameter("p_email", Types.VARCHAR),
+                new SqlParameter("p_adresa_id_adresy", Types.NUMERIC));
+
+        register("proc_dodavatel_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_dodavatelu", Types.NUMERIC),
+                new SqlParameter("p_nazev", Types.VARCHAR),
+                new SqlParameter("p_kontaktni_osoba", Types.VARCHAR),
+                new SqlParameter("p_telefon", Types.NUMERIC),
+                new SqlParameter("p_email", Types.VARCHAR));
+
+        // Zaměstnanci
+        register("proc_zamnestnanec_cud",
+                new SqlParameter("p_action", Types.VARCHAR),
+                new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
+                new SqlParameter("p_datumzamestnani", Types.DATE),
+                new SqlParameter("p_pracovnidoba", Types.NUMERIC),
+                new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
+                new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
+                new SqlParameter("p_zamnestnanec_id_zamnestnance", Types.NUMERIC),
+                new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
+                new SqlParameter("p_jmeno", Types.VARCHAR),
+                new SqlParameter("p_prijmeni", Types.VARCHAR),
+                new SqlParameter("p_mzda", Types.NUMERIC),
+                new SqlParameter("p_manager_flag", Types.NUMERIC));
+
+        register("proc_zamestnanec_user_link",
+                new SqlParameter("p_id_zamestnance", Types.NUMERIC),
+                new SqlParameter("p_id_user", Types.NUMERIC));
+
+        register("proc_zamestnanec_register",
+                new SqlParameter("p_jmeno", Types.VARCHAR),
+                new SqlParameter("p_prijmeni", Types.VARCHAR),
+                new SqlParameter("p_email", Types.VARCHAR),
+                new SqlParameter("p_password", Types.VARCHAR),
+                new SqlParameter("p_role_id", Types.NUMERIC),
+                new SqlParameter("p_datumzamestnani", Types.DATE),
+                new SqlParameter("p_pracovnidoba", Types.NUMERIC),
+                new SqlParameter("p_supermarket_id_supermarketu", Types.NUMERIC),
+                new SqlParameter("p_sklad_id_skladu", Types.NUMERIC),
+                new SqlParameter("p_adresa_id_adresy", Types.NUMERIC),
+                new SqlParameter("p_mzda", Types.NUMERIC),
+                new SqlParameter("p_pozice_id_pozice", Types.NUMERIC),
+                new SqlOutParameter("p_id_user", Types.NUMERIC),
+                new SqlOutParameter("p_id_zamestnance", Types.NUMERIC));
+
+        register("proc_average_subordinate_salary",
+                new SqlParameter("p_id_zamnestnance", Types.NUMERIC),
+                new SqlOutParameter("p_average_salary", Types.NUMERIC));
+
+        register("proc_apply_salary_indexation",
+                new SqlParameter("p_min_percentage", Types.NUMERIC),
+                new SqlParameter("p_max_percentage", Types.NUMERIC));
+        // Вариант для чанка фонового задания: только перечисленные сотрудники, ID задания записывается в строки
+        register("proc_apply_salary_indexation_ids",
+                new SqlParameter("p_min_percentage", Types.NUMERIC),
+                new SqlParameter("p_max_percentage", Types.NUMERIC),
+                new SqlParameter("p_employee_ids", Types.ARRAY, "SYS.ODCINUMBERLIST"),
+                new SqlParameter("p_job_id", Types.VARCHAR),
+                new SqlOutParameter("p_updated", Types.NUMERIC));
+
+        register("P_SHOW_HIERARCHY_BY_ID",
+                new SqlParameter("P_ID_EMPLOYEE", Types.NUMERIC),
+                new SqlOutParameter("OUT_CURSOR", Types.REF_CURSOR));
+
+        logger.info("Zkompilováno {} volání uložených procedur.", calls.size());
+    }
+
+    /**
+     * Регистрация процедуры с полным явным списком параметров (в порядке сигнатуры)
+     * и отключенным чтением метаданных.
+     * Повторная регистрация под тем же именем возвращает уже скомпилированный вызов.
+     */
+    public ProcedureCall register(String procedureName, SqlParameter... parameters) {
+        return calls.computeIfAbsent(key(procedureName), k -> compile(procedureName, procedureName, false, parameters));
+    }
+
+    /**
+     * Регистрация дополнительного варианта той же процедуры с другими RowMapper курсоров
+     * (например, без чтения BLOB). Вариант хранится как "имя:вариант" и учитывается в статистике отдельно.
+     */
+    public ProcedureCall registerVariant(String procedureName, String variant, SqlParameter... parameters) {
+        String name = procedureName + ":" + variant;
+        return calls.computeIfAbsent(key(name), k -> compile(name, procedureName, false, parameters));
+    }
+
+    /**
+     * Регистрация процедуры, порядок параметров которой берется из метаданных БД.
+     * Метаданные читаются один раз при компиляции, а не при каждом запросе.
+     */
+    public ProcedureCall registerWithMetaData(String procedureName, SqlParameter... parameters) {
+        return calls.computeIfAbsent(key(procedureName), k -> compile(procedureName, procedureName, true, parameters));
+    }
+
+    /**
+     * Необязательный входной параметр: если вызывающий его не передал, подставляется null.
+     * Остальные объявленные входные параметры обязательны.
+     */
+    public static SqlParameter optional(String name, int sqlType) {
+        return new OptionalParameter(name, sqlType);
+    }
+
+    /**
+     * Получение скомпилированного вызова по имени процедуры.
+     */
+    public ProcedureCall get(String procedureName) {
+        ProcedureCall call = calls.get(key(procedureName));
+        if (call == null) {
+            throw new IllegalStateException("Процедура " + procedureName + " не зарегистрирована.");
+        }
+        return call;
+    }
+
+    /**
+     * Статистика вызовов по каждой процедуре.
+     */
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        calls.values().stream()
+                .sorted(Comparator.comparing(ProcedureCall::getProcedureName))
+                .forEach(call -> result.add(call.snapshot()));
+        return result;
+    }
+
+    private ProcedureCall compile(String name, String procedureName, boolean useMetaData, SqlParameter... parameters) {
+        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
+                .withProcedureName(procedureName)
+                .declareParameters(parameters);
+        if (!useMetaData) {
+            jdbcCall.withoutProcedureColumnMetaDataAccess();
+        }
+        jdbcCall.compile();
+        return new ProcedureCall(name, jdbcCall, parameters);
+    }
+
+    private static String key(String procedureName) {
+        return procedureName.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class OptionalParameter extends SqlParameter {
+
+        private OptionalParameter(String name, int sqlType) {
+            super(name, sqlType);
+        }
+    }
+
+    /**
+     * Потокобезопасный дескриптор скомпилированной процедуры со счетчиками вызовов и латентности.
+     */
+    public static final class ProcedureCall {
+
+        private final String procedureName;
+        private final SimpleJdbcCall jdbcCall;
+        // Имя в нижнем регистре -> объявленное имя входного параметра
+        private final Map<String, String> inParameterNames = new LinkedHashMap<>();
+        private final Set<String> optionalParameterNames = new HashSet<>();
+
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+        private ProcedureCall(String procedureName, SimpleJdbcCall jdbcCall, SqlParameter... parameters) {
+            this.procedureName = procedureName;
+            this.jdbcCall = jdbcCall;
+            for (SqlParameter parameter : parameters) {
+                if (!(parameter instanceof SqlOutParameter) || parameter.isInputValueProvided()) {
+                    inParameterNames.put(key(parameter.getName()), parameter.getName());
+                    if (parameter instanceof OptionalParameter) {
+                        optionalParameterNames.add(parameter.getName());
+                    }
+                }
+            }
+        }
+
+        public Map<String, Object> execute() {
+            return execute(Collections.emptyMap());
+        }
+
+        public Map<String, Object> execute(MapSqlParameterSource inParams) {
+            return execute(inParams.getValues());
+        }
+
+        /**
+         * Выполнение процедуры. Имена параметров сопоставляются с объявленными без учета регистра
+         * (как при чтении метаданных в SimpleJdbcCall). Неизвестное имя или не переданный обязательный
+         * параметр — ошибка; null подставляется только для параметров, объявленных через {@link #optional}.
+         */
+        public Map<String, Object> execute(Map<String, ?> inParams) {
+            Map<String, Object> values = bind(inParams);
+
+            long start = System.nanoTime();
+            try {
+                return jdbcCall.execute(values);
+            } catch (RuntimeException e) {
+                failureCount.increment();
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                callCount.increment();
+                totalNanos.add(elapsed);
+                maxNanos.accumulate(elapsed);
+            }
+        }
+
+        public String getProcedureName() {
+            return procedureName;
+        }
+
+        private Map<String, Object> bind(Map<String, ?> inParams) {
+            Map<String, Object> values = new HashMap<>();
+            for (Map.Entry<String, ?> entry : inParams.entrySet()) {
+                String name = inParameterNames.get(key(entry.getKey()));
+                if (name == null) {
+                    throw new InvalidDataAccessApiUsageException("У процедуры " + procedureName
+                            + " нет входного параметра '" + entry.getKey() + "', объявлены: " + inParameterNames.values());
+                }
+                if (values.containsKey(name)) {
+                    throw new InvalidDataAccessApiUsageException("Параметр '" + name + "' процедуры " + procedureName
+                            + " передан несколько раз.");
+                }
+                values.put(name, entry.getValue());
+            }
+            for (String name : inParameterNames.values()) {
+                if (!values.containsKey(name)) {
+                    if (!optionalParameterNames.contains(name)) {
+                        throw new InvalidDataAccessApiUsageException("Не передан обязательный параметр '" + name
+                                + "' процедуры " + procedureName + ".");
+                    }
+                    values.put(name, null);
+                }
+            }
+            return values;
+        }
+
+        private Map<String, Object> snapshot() {
+            long count = callCount.sum();
+            long total = totalNanos.sum();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("procedure", procedureName);
+            row.put("calls", count);
+            row.put("failures", failureCount.sum());
+            row.put("totalMs", total / 1_000_000.0);
+            row.put("avgMs", count > 0 ? total / 1_000_000.0 / count : 0.0);
+            row.put("maxMs", maxNanos.get() / 1_000_000.0);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.OrderProduct.Product.ImageBlobInfo;
+import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кеш каталога продуктов в памяти.
+ * Продукты индексируются по ID, категории и словам названия (в нижнем регистре).
+ * Каталог загружается целиком при первом обращении и по истечении TTL,
+ * а CUD операции над продуктами и категориями точечно обновляют индексы после коммита транзакции.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    // Попытки загрузки, если каталог меняется во время чтения из БД
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    /**
+     * Данные для заполнения кеша: продукты, названия категорий и метаданные изображений.
+     */
+    public record CatalogData(List<Product> products,
+                              Map<Long, String> categoryNames,
+                              Map<Long, ImageBlobInfo> images) {
+    }
+
+    @Value("${catalog.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${catalog.cache.max-products:100000}")
+    private int maxProducts;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadMonitor = new Object();
+
+    // Индексы, защищенные lock
+    private final Map<Long, Product> byId = new TreeMap<>();
+    private final Map<Long, Set<Long>> byCategory = new HashMap<>();
+    private final Map<String, Set<Long>> byToken = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, ImageBlobInfo> images = new HashMap<>();
+    private volatile boolean loaded;
+    private volatile long loadedAtNanos;
+    // Увеличивается при каждом изменении индексов: каталог, загруженный параллельно с изменением, не сохраняется
+    private volatile long generation;
+    // Каталог больше max-products: до истечения TTL запросы сразу уходят в БД без повторной загрузки
+    private volatile boolean bypassed;
+    private volatile long bypassedAtNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    /**
+     * Поиск продуктов в кеше. Условия совпадают с LIKE '%query%' по названию без учета регистра.
+     *
+     * @param query        подстрока названия или null
+     * @param categoryId   ID категории или null
+     * @param categoryName название категории или null ("all" — все категории)
+     * @param loader       загрузка каталога из БД при промахе
+     * @return копии найденных продуктов, упорядоченные по ID, или null если каталог
+     * превышает max-products (или не удалось загрузить согласованный каталог) и запрос нужно выполнить в БД
+     */
+    public List<Product> search(String query, Long categoryId, String categoryName, Supplier<CatalogData> loader) {
+        if (!ensureLoaded(loader)) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Long category = categoryId;
+            if (category == null && categoryName != null && !categoryName.isEmpty() && !"all".equals(categoryName)) {
+                category = findCategoryId(categoryName);
+                if (category == null) {
+                    return new ArrayList<>();
+                }
+            }
+
+            Collection<Long> candidates = category != null
+                    ? byCategory.getOrDefault(category, Collections.emptySet())
+                    : byId.keySet();
+
+            String needle = query != null && !query.isEmpty() ? query.toLowerCase(Locale.ROOT) : null;
+            if (needle != null) {
+                candidates = narrowByTokens(candidates, needle);
+            }
+
+            List<Long> ids = new ArrayList<>(candidates);
+            Collections.sort(ids);
+            List<Product> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Product product = byId.get(id);
+                if (needle == null || product.getName() != null && product.getName().toLowerCase(Locale.ROOT).contains(needle)) {
+                    result.add(copy(product));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Копии продуктов в порядке переданных ID (например, ранжированных поисковым индексом).
+     * ID, которых нет в каталоге, пропускаются. Возвращает null, если кеш не используется.
+     */
+    public List<Product> getByIds(List<Long> ids, Supplier<CatalogData> loader) {
+        if (!ensureLoaded(loader)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            List<Product> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Product product = byId.get(id);
+                if (product != null) {
+                    result.add(copy(product));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID категории по названию (без учета регистра) или null, если категория не найдена или кеш не используется.
+     */
+    public Long resolveCategoryId(String categoryName, Supplier<CatalogData> loader) {
+        if (!ensureLoaded(loader)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return findCategoryId(categoryName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метаданные изображения продукта из кеша (null — у продукта нет изображения).
+     */
+    public ImageBlobInfo getImage(Long productId) {
+        lock.readLock().lock();
+        try {
+            return images.get(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Точечное обновление продукта после UPDATE. Если категория неизвестна кешу, каталог сбрасывается.
+     */
+    public void updateProduct(Product product) {
+        TransactionCallbacks.afterCommit(() -> applyUpdateProduct(product));
+    }
+
+    private void applyUpdateProduct(Product product) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            if (!loaded) {
+                return;
+            }
+            if (product.getCategoryId() != null && !categoryNames.containsKey(product.getCategoryId())) {
+                clear();
+                return;
+            }
+            Product previous = byId.get(product.getId());
+            if (previous == null) {
+                clear();
+                return;
+            }
+            // Метаданные изображения при UPDATE продукта не меняются
+            product.setCategory(categoryNames.get(product.getCategoryId()));
+            unindex(previous);
+            index(product);
+            patches.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление продукта из кеша после DELETE.
+     */
+    public void removeProduct(Long productId) {
+        TransactionCallbacks.afterCommit(() -> applyRemoveProduct(productId));
+    }
+
+    private void applyRemoveProduct(Long productId) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            Product previous = byId.get(productId);
+            if (previous != null) {
+                unindex(previous);
+                images.remove(productId);
+                patches.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Обновление метаданных изображения продукта после CUD изображения.
+     */
+    public void updateImage(Long productId, ImageBlobInfo info) {
+        TransactionCallbacks.afterCommit(() -> applyUpdateImage(productId, info));
+    }
+
+    private void applyUpdateImage(Long productId, ImageBlobInfo info) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            if (!loaded) {
+                return;
+            }
+            if (info != null) {
+                images.put(productId, info);
+            } else {
+                images.remove(productId);
+            }
+            patches.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Переименование категории: меняется только название у продуктов этой категории.
+     */
+    public void renameCategory(Long categoryId, String name) {
+        TransactionCallbacks.afterCommit(() -> applyRenameCategory(categoryId, name));
+    }
+
+    private void applyRenameCategory(Long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            if (!loaded) {
+                return;
+            }
+            categoryNames.put(categoryId, name);
+            for (Long productId : byCategory.getOrDefault(categoryId, Collections.emptySet())) {
+                byId.get(productId).setCategory(name);
+            }
+            patches.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление категории. Если в ней есть продукты, каталог сбрасывается целиком.
+     */
+    public void removeCategory(Long categoryId) {
+        TransactionCallbacks.afterCommit(() -> applyRemoveCategory(categoryId));
+    }
+
+    private void applyRemoveCategory(Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            if (!loaded) {
+                return;
+            }
+            if (byCategory.containsKey(categoryId)) {
+                clear();
+            } else {
+                categoryNames.remove(categoryId);
+                patches.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Полный сброс кеша (после коммита текущей транзакции): следующий запрос загрузит каталог заново.
+     */
+    public void invalidate() {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                generation++;
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Статистика кеша: попадания, промахи, вытеснения и текущий размер.
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", loaded);
+            stats.put("products", byId.size());
+            stats.put("categories", categoryNames.size());
+            stats.put("tokens", byToken.size());
+            stats.put("images", images.size());
+            stats.put("ageSeconds", loaded ? (System.nanoTime() - loadedAtNanos) / 1_000_000_000L : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("maxProducts", maxProducts);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("bypassed", bypassed && isBypassFresh());
+        stats.put("bypasses", bypasses.sum());
+        stats.put("patches", patches.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    private boolean ensureLoaded(Supplier<CatalogData> loader) {
+        if (isFresh()) {
+            hits.increment();
+            return true;
+        }
+        if (isBypassFresh()) {
+            bypasses.increment();
+            return false;
+        }
+        synchronized (loadMonitor) {
+            if (isFresh()) {
+                hits.increment();
+                return true;
+            }
+            if (isBypassFresh()) {
+                bypasses.increment();
+                return false;
+            }
+            // Промах: каталог еще не загружен, сброшен или истек TTL (вытеснение учитывает clear)
+            misses.increment();
+
+            for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+                long startGeneration = generation;
+                CatalogData data = loader.get();
+                if (data.products().size() > maxProducts) {
+                    logger.warn("Каталог ({} продуктов) превышает catalog.cache.max-products={}, кеш не используется {} с.",
+                            data.products().size(), maxProducts, ttlSeconds);
+                    lock.writeLock().lock();
+                    try {
+                        clear();
+                        bypassedAtNanos = System.nanoTime();
+                        bypassed = true;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    bypasses.increment();
+                    return false;
+                }
+
+                lock.writeLock().lock();
+                try {
+                    if (generation != startGeneration) {
+                        // Во время загрузки закоммичено изменение продукта или категории — данные могут быть старыми
+                        discardedLoads.increment();
+                        continue;
+                    }
+                    clear();
+                    categoryNames.putAll(data.categoryNames());
+                    images.putAll(data.images());
+                    for (Product product : data.products()) {
+                        index(product);
+                    }
+                    bypassed = false;
+                    loadedAtNanos = System.nanoTime();
+                    loaded = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.info("Каталог продуктов загружен в кеш: {} продуктов.", data.products().size());
+                return true;
+            }
+            // Каталог непрерывно меняется — этот запрос выполняется в БД
+            return false;
+        }
+    }
+
+    private boolean isFresh() {
+        return loaded && System.nanoTime() - loadedAtNanos < ttlSeconds * 1_000_000_000L;
+    }
+
+    private boolean isBypassFresh() {
+        return bypassed && System.nanoTime() - bypassedAtNanos < ttlSeconds * 1_000_000_000L;
+    }
+
+    private void clear() {
+        if (loaded) {
+            evictions.increment();
+        }
+        loaded = false;
+        byId.clear();
+        byCategory.clear();
+        byToken.clear();
+        categoryNames.clear();
+        images.clear();
+    }
+
+    private void index(Product product) {
+        byId.put(product.getId(), product);
+        if (product.getCategoryId() != null) {
+            byCategory.computeIfAbsent(product.getCategoryId(), k -> new HashSet<>()).add(product.getId());
+        }
+        for (String token : tokenize(product.getName())) {
+            byToken.computeIfAbsent(token, k -> new HashSet<>()).add(product.getId());
+        }
+    }
+
+    private void unindex(Product product) {
+        byId.remove(product.getId());
+        removeFromIndex(byCategory, product.getCategoryId(), product.getId());
+        for (String token : tokenize(product.getName())) {
+            removeFromIndex(byToken, token, product.getId());
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<Long>> index, K key, Long productId) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(productId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Сужение кандидатов: каждое слово запроса должно входить хотя бы в одно слово названия.
+     * Окончательная проверка подстроки выполняется в search.
+     */
+    private Collection<Long> narrowByTokens(Collection<Long> candidates, String needle) {
+        Set<Long> result = null;
+        for (String term : tokenize(needle)) {
+            Set<Long> matching = new HashSet<>();
+            for (Map.Entry<String, Set<Long>> entry : byToken.entrySet()) {
+                if (entry.getKey().contains(term)) {
+                    matching.addAll(entry.getValue());
+                }
+            }
+            if (result == null) {
+                result = matching;
+            } else {
+                result.retainAll(matching);
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        if (result == null) {
+            return candidates;
+        }
+        result.retainAll(candidates instanceof Set ? candidates : new HashSet<>(candidates));
+        return result;
+    }
+
+    private Long findCategoryId(String categoryName) {
+        for (Map.Entry<Long, String> entry : categoryNames.entrySet()) {
+            if (categoryName.equalsIgnoreCase(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Product copy(Product source) {
+        Product product = new Product();
+        product.setId(source.getId());
+        product.setName(source.getName());
+        product.setPrice(source.getPrice());
+        product.setCategory(source.getCategory());
+        product.setCategoryId(source.getCategoryId());
+        product.setSkladId(source.getSkladId());
+        product.setDescription(source.getDescription());
+        return product;
+    }
+}
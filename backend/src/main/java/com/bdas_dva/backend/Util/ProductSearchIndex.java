@@ -0,0 +1,251 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс продуктов для полнотекстового поиска по названию и описанию (POPIS).
+ * Термы хранятся без диакритики и в нижнем регистре ("mléko" -> "mleko"),
+ * словарь термов отсортирован, поэтому префиксный запрос — это диапазон в TreeMap.
+ */
+@Component
+public class ProductSearchIndex {
+
+    // Вес вхождения терма в название и в описание
+    private static final int NAME_WEIGHT = 10;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // Точное совпадение терма ценится выше, чем совпадение по префиксу
+    private static final int EXACT_MATCH_FACTOR = 3;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // терм -> (ID продукта -> вес)
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // ID продукта -> термы документа (для удаления и обновления)
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+    // ID продукта -> ID категории (для фильтра по категории)
+    private final Map<Long, Long> categories = new HashMap<>();
+    private volatile boolean built;
+    private volatile long maxProductId;
+    // Увеличивается при каждом put / remove (под lock)
+    private volatile long generation;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+    /**
+     * Полное перестроение индекса.
+     *
+     * @param expectedGeneration значение getGeneration() до чтения продуктов из БД
+     * @return false, если за время чтения индекс изменился — продукты могут быть старыми, индекс не перестроен
+     */
+    public boolean rebuild(Collection<Product> products, long expectedGeneration) {
+        lock.writeLock().lock();
+        try {
+            if (generation != expectedGeneration) {
+                return false;
+            }
+            postings.clear();
+            documents.clear();
+            categories.clear();
+            maxProductId = 0;
+            for (Product product : products) {
+                add(product);
+            }
+            built = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавление или обновление продукта в индексе.
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            remove(product.getId(), false);
+            add(product);
+            updates.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление продукта из индекса.
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            remove(productId, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск продуктов. Каждое слово запроса должно совпасть с термом целиком или как префикс (AND).
+     *
+     * @param categoryId ID категории или null для всех категорий
+     * @return ID найденных продуктов по убыванию релевантности (при равенстве — по ID)
+     */
+    public List<Long> search(String query, Long categoryId) {
+        long start = System.nanoTime();
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Long, Integer> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> entry
+                        : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                    int factor = entry.getKey().equals(term) ? EXACT_MATCH_FACTOR : 1;
+                    for (Map.Entry<Long, Integer> posting : entry.getValue().entrySet()) {
+                        termScores.merge(posting.getKey(), posting.getValue() * factor, Integer::sum);
+                    }
+                }
+                if (categoryId != null) {
+                    termScores.keySet().removeIf(id -> !categoryId.equals(categories.get(id)));
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Integer> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : termScores.entrySet()) {
+                        Integer score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Integer> entry : ranked) {
+            result.add(entry.getKey());
+        }
+
+        queries.increment();
+        queryNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Наибольший ID продукта в индексе — для догрузки новых продуктов после INSERT.
+     */
+    public long getMaxProductId() {
+        return maxProductId;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("built", built);
+            stats.put("documents", documents.size());
+            stats.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = queries.sum();
+        stats.put("queries", count);
+        stats.put("avgQueryMicros", count > 0 ? queryNanos.sum() / count / 1_000.0 : 0.0);
+        stats.put("updates", updates.sum());
+        return stats;
+    }
+
+    /**
+     * Нормализация текста: нижний регистр и удаление диакритики (NFD + удаление combining marks).
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private void add(Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(product.getName())) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(product.getDescription())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(product.getId(), entry.getValue());
+        }
+        documents.put(product.getId(), weights.keySet());
+        if (product.getCategoryId() != null) {
+            categories.put(product.getId(), product.getCategoryId());
+        }
+        maxProductId = Math.max(maxProductId, product.getId());
+    }
+
+    private void remove(Long productId, boolean count) {
+        Set<String> terms = documents.remove(productId);
+        categories.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        if (count) {
+            updates.increment();
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
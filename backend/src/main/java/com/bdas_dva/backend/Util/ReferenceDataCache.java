@@ -0,0 +1,260 @@
+package com.bdas_dva.backend.Util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Снимок маленьких справочников (роли, позиции, статусы заказов, форматы изображений, категории).
+ * Каждый справочник хранится как неизменяемое значение вместе с уже сериализованным JSON и ETag,
+ * поэтому GET отдает готовые байты, а повторный запрос с If-None-Match получает 304 без тела.
+ * Снимок — неизменяемая карта, которая целиком подменяется при перезагрузке справочника.
+ * Загрузчики регистрируют сервисы-владельцы таблиц; при старте все справочники загружаются параллельно,
+ * а CUD операции перечитывают свой справочник после коммита.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    public enum Dataset {
+        ROLES, POSITIONS, ORDER_STATUSES, IMAGE_FORMATS, CATEGORIES
+    }
+
+    /**
+     * Загруженный справочник: значение для сервисов и JSON с ETag для HTTP ответа.
+     */
+    public record Entry(Object value, byte[] json, String etag, long loadedAtNanos) {
+    }
+
+    @Value("${reference-data.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${reference-data.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Dataset, Supplier<?>> loaders = new EnumMap<>(Dataset.class);
+    private final AtomicReference<Map<Dataset, Entry>> snapshot = new AtomicReference<>(Collections.emptyMap());
+    private final Object loadMonitor = new Object();
+    // Загрузки одного справочника сериализуются, разные справочники грузятся параллельно
+    private final Map<Dataset, Object> monitors = new EnumMap<>(Dataset.class);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Регистрация загрузчика справочника. Вызывается сервисом-владельцем таблицы при создании бина.
+     */
+    public void register(Dataset dataset, Supplier<?> loader) {
+        synchronized (loadMonitor) {
+            loaders.put(dataset, loader);
+        }
+    }
+
+    /**
+     * Параллельная загрузка всех справочников после старта приложения.
+     * Ошибка загрузки не мешает старту — справочник загрузится при первом обращении.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        List<Dataset> datasets;
+        synchronized (loadMonitor) {
+            datasets = new ArrayList<>(loaders.keySet());
+        }
+        if (datasets.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(datasets.size(), runnable -> {
+            Thread thread = new Thread(runnable, "reference-data-preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture.allOf(datasets.stream()
+                    .map(dataset -> CompletableFuture.runAsync(() -> {
+                        try {
+                            reload(dataset);
+                        } catch (RuntimeException e) {
+                            logger.warn("Справочник {} не загружен при старте: {}", dataset, e.getMessage());
+                        }
+                    }, pool))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+        logger.info("Справочники загружены: {} за {} ms", snapshot.get().keySet(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Значение справочника (неизменяемое). Загружается при первом обращении и по истечении TTL.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Dataset dataset) {
+        return (T) entry(dataset).value();
+    }
+
+    /**
+     * HTTP ответ справочника: готовый JSON, ETag и Cache-Control.
+     * На GET с совпадающим If-None-Match Spring MVC сам отвечает 304 без тела.
+     */
+    public ResponseEntity<byte[]> response(Dataset dataset) {
+        Entry entry = entry(dataset);
+        CacheControl cacheControl = maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePrivate().mustRevalidate()
+                : CacheControl.noCache().cachePrivate();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entry.etag())
+                .cacheControl(cacheControl)
+                .body(entry.json());
+    }
+
+    /**
+     * Перечитать справочник после коммита текущей транзакции (или сразу, если транзакции нет).
+     */
+    public void refresh(Dataset dataset) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                reload(dataset);
+            } catch (RuntimeException e) {
+                // Старое значение не отдается: следующий запрос попробует загрузить справочник снова
+                logger.warn("Справочник {} не перечитан: {}", dataset, e.getMessage());
+                remove(dataset);
+            }
+        });
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> datasets = new LinkedHashMap<>();
+        for (Map.Entry<Dataset, Entry> entry : snapshot.get().entrySet()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            Object value = entry.getValue().value();
+            info.put("rows", value instanceof Collection<?> collection ? collection.size() : null);
+            info.put("bytes", entry.getValue().json().length);
+            info.put("etag", entry.getValue().etag());
+            info.put("ageSeconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - entry.getValue().loadedAtNanos()));
+            datasets.put(entry.getKey().name(), info);
+        }
+        stats.put("datasets", datasets);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("maxAgeSeconds", maxAgeSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    private Entry entry(Dataset dataset) {
+        Entry entry = snapshot.get().get(dataset);
+        if (entry != null && System.nanoTime() - entry.loadedAtNanos() < ttlSeconds * 1_000_000_000L) {
+            hits.increment();
+            return entry;
+        }
+        return reload(dataset, false);
+    }
+
+    private Entry reload(Dataset dataset) {
+        return reload(dataset, true);
+    }
+
+    private Entry reload(Dataset dataset, boolean force) {
+        Supplier<?> loader;
+        synchronized (loadMonitor) {
+            loader = loaders.get(dataset);
+        }
+        if (loader == null) {
+            throw new IllegalStateException("Reference data loader not registered: " + dataset);
+        }
+        synchronized (monitorFor(dataset)) {
+            Entry existing = snapshot.get().get(dataset);
+            if (!force && existing != null && System.nanoTime() - existing.loadedAtNanos() < ttlSeconds * 1_000_000_000L) {
+                return existing;
+            }
+            Object value;
+            byte[] json;
+            try {
+                value = freeze(loader.get());
+                json = objectMapper.writeValueAsBytes(value);
+            } catch (JsonProcessingException e) {
+                failures.increment();
+                throw new IllegalStateException("Reference data " + dataset + " is not serializable", e);
+            } catch (RuntimeException e) {
+                failures.increment();
+                throw e;
+            }
+            Entry entry = new Entry(value, json, etag(json), System.nanoTime());
+            snapshot.updateAndGet(current -> {
+                Map<Dataset, Entry> next = new EnumMap<>(Dataset.class);
+                next.putAll(current);
+                next.put(dataset, entry);
+                return Collections.unmodifiableMap(next);
+            });
+            loads.increment();
+            return entry;
+        }
+    }
+
+    private void remove(Dataset dataset) {
+        snapshot.updateAndGet(current -> {
+            Map<Dataset, Entry> next = new EnumMap<>(Dataset.class);
+            next.putAll(current);
+            next.remove(dataset);
+            return Collections.unmodifiableMap(next);
+        });
+    }
+
+    private Object monitorFor(Dataset dataset) {
+        synchronized (monitors) {
+            return monitors.computeIfAbsent(dataset, k -> new Object());
+        }
+    }
+
+    // Строки queryForList копируются в неизменяемые карты (ключи остаются без учета регистра)
+    @SuppressWarnings("unchecked")
+    private static Object freeze(Object value) {
+        if (value instanceof List<?> list) {
+            List<Object> frozen = new ArrayList<>(list.size());
+            for (Object item : list) {
+                frozen.add(item instanceof Map<?, ?> map ? Collections.unmodifiableMap((Map<Object, Object>) map) : item);
+            }
+            return Collections.unmodifiableList(frozen);
+        }
+        return value;
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
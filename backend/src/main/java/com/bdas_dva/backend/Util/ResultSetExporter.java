@@ -0,0 +1,195 @@
+package com.bdas_dva.backend.Util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.Locale;
+
+/**
+ * Потоковый экспорт результата SQL запроса в NDJSON или CSV.
+ * Строки читаются forward-only курсором с fetch size FETCH_SIZE и сразу пишутся в поток ответа,
+ * поэтому расход памяти не зависит от числа строк, а первые байты уходят клиенту сразу.
+ * Запись в OutputStream блокирующая — медленный клиент естественно притормаживает чтение из БД.
+ */
+@Component
+public class ResultSetExporter {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    public enum Format {
+        NDJSON("ndjson", new MediaType("application", "x-ndjson", StandardCharsets.UTF_8)),
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * @throws IllegalArgumentException для неподдерживаемого формата
+         */
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Неподдерживаемый формат экспорта: " + value + " (ndjson, csv).");
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ResultSetExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Выполнение запроса и запись всех строк в out.
+     *
+     * @return количество записанных строк
+     */
+    public long export(String sql, Format format, OutputStream out, Object... args) {
+        Long rows = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            return ps;
+        }, (ResultSetExtractor<Long>) rs -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+                return format == Format.CSV ? writeCsv(rs, writer) : writeNdjson(rs, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows != null ? rows : 0L;
+    }
+
+    private long writeNdjson(ResultSet rs, Writer writer) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        String[] labels = labels(meta);
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        while (rs.next()) {
+            generator.writeStartObject();
+            for (int i = 1; i <= columns; i++) {
+                Object value = readValue(rs, i, meta.getColumnType(i));
+                generator.writeFieldName(labels[i - 1]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY_ROWS == 1) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        String[] labels = labels(meta);
+
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(labels[i]));
+        }
+        writer.write("\r\n");
+
+        long count = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = readValue(rs, i, meta.getColumnType(i));
+                if (value != null) {
+                    writer.write(csvEscape(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+            if (++count % FLUSH_EVERY_ROWS == 1) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String[] labels(ResultSetMetaData meta) throws SQLException {
+        String[] labels = new String[meta.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
+    // Значение столбца в виде, пригодном для текстового формата (BLOB не экспортируется)
+    private static Object readValue(ResultSet rs, int column, int sqlType) throws SQLException {
+        switch (sqlType) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return rs.getBigDecimal(column);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                Timestamp timestamp = rs.getTimestamp(column);
+                return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return null;
+            default:
+                // VARCHAR, CHAR, CLOB и прочие читаются как строка
+                return rs.getString(column);
+        }
+    }
+
+    static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
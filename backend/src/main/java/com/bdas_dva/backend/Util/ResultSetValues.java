@@ -0,0 +1,24 @@
+package com.bdas_dva.backend.Util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Чтение nullable числовых столбцов по индексу без упаковки через getObject.
+ * ResultSet.getLong/getDouble возвращают 0 для NULL, поэтому проверяется wasNull().
+ */
+public final class ResultSetValues {
+
+    private ResultSetValues() {
+    }
+
+    public static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bdas_dva.backend.Util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отложенное выполнение действий над кешами и снимками в памяти.
+ * Внутри транзакции действие выполняется только после коммита (при откате не выполняется),
+ * поэтому в кеш не попадают незакоммиченные строки. Вне транзакции действие выполняется сразу.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
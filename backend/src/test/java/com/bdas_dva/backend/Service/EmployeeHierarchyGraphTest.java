@@ -0,0 +1,143 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Service.EmployeeHierarchyService.EmployeeNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeHierarchyGraphTest {
+
+    private static EmployeeNode node(long id, Long managerId, Double mzda) {
+        return new EmployeeNode(id, managerId, "J" + id, "P" + id, null, mzda, null, null, null);
+    }
+
+    // 1 -> {2, 3}, 2 -> {4}; у сотрудника 3 нет MZDA
+    private static EmployeeHierarchyService.Graph sample() {
+        return EmployeeHierarchyService.Graph.build(List.of(
+                node(4, 2L, 30.0),
+                node(2, 1L, 50.0),
+                node(3, 1L, null),
+                node(1, null, 100.0)));
+    }
+
+    private static long[] subtreeIds(EmployeeHierarchyService.Graph graph, long id) {
+        int v = graph.indexOf(id);
+        return Arrays.stream(graph.order, graph.tin[v], graph.tout[v]).mapToLong(i -> graph.ids[i]).toArray();
+    }
+
+    @Test
+    void buildLinksParentsAndChildren() {
+        EmployeeHierarchyService.Graph graph = sample();
+
+        assertArrayEquals(new long[]{1, 2, 3, 4}, graph.ids);
+        assertEquals(-1, graph.parent[graph.indexOf(1)]);
+        assertEquals(graph.indexOf(2), graph.parent[graph.indexOf(4)]);
+        assertEquals(3, graph.subordinates(graph.indexOf(1)));
+        assertEquals(1, graph.subordinates(graph.indexOf(2)));
+        assertEquals(0, graph.subordinates(graph.indexOf(3)));
+        assertEquals(2, graph.depth[graph.indexOf(4)]);
+        assertEquals(-1, graph.indexOf(99));
+        assertEquals(0, graph.brokenCycles);
+    }
+
+    @Test
+    void subtreeIsContiguousPreorderSlice() {
+        EmployeeHierarchyService.Graph graph = sample();
+
+        assertArrayEquals(new long[]{1, 2, 4, 3}, subtreeIds(graph, 1));
+        assertArrayEquals(new long[]{2, 4}, subtreeIds(graph, 2));
+        assertArrayEquals(new long[]{3}, subtreeIds(graph, 3));
+    }
+
+    @Test
+    void aggregatesSkipEmployeesWithoutSalary() {
+        EmployeeHierarchyService.Graph graph = sample();
+        int root = graph.indexOf(1);
+        int withoutSalary = graph.indexOf(3);
+
+        assertEquals(3, graph.salaried[root]);
+        assertEquals(180.0, graph.salarySum[root], 1e-9);
+        assertEquals(30.0, graph.salaryMin[root], 1e-9);
+        assertEquals(100.0, graph.salaryMax[root], 1e-9);
+        assertEquals(0, graph.salaried[withoutSalary]);
+        assertEquals(Double.POSITIVE_INFINITY, graph.salaryMin[withoutSalary]);
+        assertEquals(Double.NEGATIVE_INFINITY, graph.salaryMax[withoutSalary]);
+    }
+
+    @Test
+    void unknownOrSelfManagerMakesRoot() {
+        EmployeeHierarchyService.Graph graph = EmployeeHierarchyService.Graph.build(List.of(
+                node(1, 42L, null),
+                node(2, 2L, null)));
+
+        assertEquals(-1, graph.parent[graph.indexOf(1)]);
+        assertEquals(-1, graph.parent[graph.indexOf(2)]);
+        assertEquals(0, graph.brokenCycles);
+    }
+
+    @Test
+    void cycleIsBrokenAtFirstNode() {
+        // 10 и 11 руководят друг другом, 12 подчинен 11
+        EmployeeHierarchyService.Graph graph = EmployeeHierarchyService.Graph.build(List.of(
+                node(10, 11L, 1.0),
+                node(11, 10L, 2.0),
+                node(12, 11L, 3.0)));
+
+        assertEquals(1, graph.brokenCycles);
+        assertEquals(-1, graph.parent[graph.indexOf(10)]);
+        assertEquals(2, graph.subordinates(graph.indexOf(10)));
+        assertEquals(6.0, graph.salarySum[graph.indexOf(10)], 1e-9);
+        assertEquals(Set.of(10L, 11L, 12L), Set.of(Arrays.stream(graph.order)
+                .mapToObj(i -> graph.ids[i]).toArray(Long[]::new)));
+    }
+
+    @Test
+    void longChainDoesNotOverflowStack() {
+        int n = 100_000;
+        List<EmployeeNode> chain = new ArrayList<>(n);
+        for (long id = 1; id <= n; id++) {
+            chain.add(node(id, id > 1 ? id - 1 : null, 1.0));
+        }
+
+        EmployeeHierarchyService.Graph graph = EmployeeHierarchyService.Graph.build(chain);
+
+        assertEquals(n - 1, graph.subordinates(graph.indexOf(1)));
+        assertEquals(n - 1, graph.depth[graph.indexOf(n)]);
+        assertEquals(n, graph.salarySum[graph.indexOf(1)], 1e-6);
+    }
+
+    @Test
+    void withNodesRecomputesAggregatesUpToRoot() {
+        EmployeeHierarchyService.Graph graph = sample();
+        int changed = graph.indexOf(4);
+        EmployeeNode[] replaced = graph.nodes.clone();
+        replaced[changed] = node(4, 2L, 70.0);
+
+        EmployeeHierarchyService.Graph updated = graph.withNodes(replaced, List.of(changed));
+
+        assertEquals(220.0, updated.salarySum[updated.indexOf(1)], 1e-9);
+        assertEquals(120.0, updated.salarySum[updated.indexOf(2)], 1e-9);
+        assertEquals(50.0, updated.salaryMin[updated.indexOf(1)], 1e-9);
+        assertSame(graph.order, updated.order);
+        // Исходный снимок не изменяется
+        assertEquals(180.0, graph.salarySum[graph.indexOf(1)], 1e-9);
+    }
+
+    @Test
+    void withNodesKeepsAggregatesWhenSalaryUnchanged() {
+        EmployeeHierarchyService.Graph graph = sample();
+        int changed = graph.indexOf(3);
+        EmployeeNode[] replaced = graph.nodes.clone();
+        replaced[changed] = new EmployeeNode(3, 1L, "Nové", "Jméno", null, null, null, null, null);
+
+        EmployeeHierarchyService.Graph updated = graph.withNodes(replaced, List.of(changed));
+
+        assertSame(graph.salarySum, updated.salarySum);
+        assertEquals("Nové", updated.nodes[changed].jmeno());
+    }
+}
@@ -0,0 +1,122 @@
+package com.bdas_dva.backend.Service;
+
+import com.bdas_dva.backend.Model.Rows.OrderSummaryRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Фильтр по триграммам должен давать тот же результат, что и исходный SQL:
+ * (:name IS NULL OR UPPER(CUSTOMER_NAME) LIKE UPPER('%' || :name || '%')).
+ */
+class OrderSummaryServiceTest {
+
+    private final List<Map<String, Object>> view = new ArrayList<>();
+    private OrderSummaryService service;
+
+    private void row(long orderId, String name, String email, Object phone, long statusId) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("ORDER_ID", BigDecimal.valueOf(orderId));
+        row.put("CUSTOMER_NAME", name);
+        row.put("CUSTOMER_EMAIL", email);
+        row.put("CUSTOMER_PHONE", phone);
+        row.put("STATUS_ID", BigDecimal.valueOf(statusId));
+        view.add(row);
+    }
+
+    @BeforeEach
+    void setUp() {
+        row(1, "Jan Novák", "jan.novak@gmail.com", new BigDecimal("777123456"), 1);
+        row(2, "Petra Nováková", "petra@seznam.cz", new BigDecimal("608000111"), 2);
+        row(3, "Ondřej Svoboda", "ondra@gmail.com", null, 1);
+        row(4, null, null, new BigDecimal("777123456"), 3);
+        row(5, "NOVOTNÝ Karel", "karel.novotny@firma.cz", new BigDecimal("111222333"), 2);
+        row(6, "Eva", "eva@x.cz", null, 1);
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList("SELECT * FROM ORDER_DETAILS_VIEW")).thenAnswer(invocation -> {
+            List<Map<String, Object>> copy = new ArrayList<>();
+            for (Map<String, Object> row : view) {
+                copy.add(new LinkedHashMap<>(row));
+            }
+            return copy;
+        });
+        service = new OrderSummaryService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "refreshSeconds", 300L);
+    }
+
+    private List<Long> ids(List<OrderSummaryRow> rows) {
+        return rows.stream().map(row -> ((Number) row.columns().get("ORDER_ID")).longValue()).toList();
+    }
+
+    // UPPER(column) LIKE UPPER('%' || query || '%'); пустая строка в Oracle — NULL
+    private static boolean like(Object column, String query) {
+        if (query == null || query.isEmpty()) {
+            return true;
+        }
+        return column != null && column.toString().toUpperCase(Locale.ROOT).contains(query.toUpperCase(Locale.ROOT));
+    }
+
+    private List<Long> expected(String name, String email, Long statusId) {
+        List<Long> result = new ArrayList<>();
+        for (Map<String, Object> row : view) {
+            if (like(row.get("CUSTOMER_NAME"), name) && like(row.get("CUSTOMER_EMAIL"), email)
+                    && (statusId == null || statusId == ((Number) row.get("STATUS_ID")).longValue())) {
+                result.add(((Number) row.get("ORDER_ID")).longValue());
+            }
+        }
+        return result;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "n", "no", "nov", "NOVÁK", "nováková", "ová", "ovo", "an No", "Ondřej", "xyz", "Eva", "eva "})
+    void nameFilterMatchesLike(String name) {
+        assertEquals(expected(name, null, null), ids(service.filter(name, null, null, null, false)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"@gmail", "GMAIL.COM", "cz", "z", ".", "novak@", "@nowhere"})
+    void emailFilterMatchesLike(String email) {
+        assertEquals(expected(null, email, null), ids(service.filter(null, null, email, null, false)));
+    }
+
+    @Test
+    void combinesNameEmailAndStatus() {
+        assertEquals(expected("nov", "cz", 2L), ids(service.filter("nov", null, "cz", 2L, false)));
+        assertEquals(expected("o", "@gmail", 1L), ids(service.filter("o", null, "@gmail", 1L, false)));
+        assertEquals(List.of(), ids(service.filter("nov", null, null, 3L, false)));
+    }
+
+    @Test
+    void withoutFiltersReturnsAllOrdersById() {
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), ids(service.filter(null, null, null, null, false)));
+    }
+
+    @Test
+    void phoneIsComparedAsNumber() {
+        assertEquals(List.of(1L, 4L), ids(service.filter(null, "777123456", null, null, false)));
+        assertEquals(List.of(1L, 4L), ids(service.filter(null, "0777123456", null, null, false)));
+        assertEquals(List.of(), ids(service.filter(null, "777", null, null, false)));
+    }
+
+    @Test
+    void loadsViewOnce() {
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) ReflectionTestUtils.getField(service, "jdbcTemplate");
+
+        service.filter("nov", null, null, null, false);
+        service.filter(null, null, "cz", null, false);
+
+        verify(jdbcTemplate, times(1)).queryForList("SELECT * FROM ORDER_DETAILS_VIEW");
+    }
+}
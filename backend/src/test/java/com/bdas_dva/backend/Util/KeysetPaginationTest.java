@@ -0,0 +1,72 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.KeysetPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        assertArrayEquals(new long[]{1042}, KeysetPagination.decode(KeysetPagination.encode(1042), 1));
+        assertArrayEquals(new long[]{7, 15}, KeysetPagination.decode(KeysetPagination.encode(7, 15), 2));
+        assertArrayEquals(new long[]{Long.MAX_VALUE}, KeysetPagination.decode(KeysetPagination.encode(Long.MAX_VALUE), 1));
+    }
+
+    @Test
+    void cursorIsUrlSafeWithoutPadding() {
+        String cursor = KeysetPagination.encode(7, 15);
+
+        assertEquals(base64("7:15"), cursor);
+        assertFalse(cursor.contains("="));
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertNull(KeysetPagination.decode(null, 1));
+        assertNull(KeysetPagination.decode("", 1));
+    }
+
+    @Test
+    void rejectsDamagedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.decode("###", 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.decode(base64("abc"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.decode(base64("7:15"), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.decode(base64("7"), 2));
+    }
+
+    @Test
+    void clampsLimit() {
+        assertEquals(KeysetPagination.DEFAULT_LIMIT, KeysetPagination.clampLimit(null));
+        assertEquals(1, KeysetPagination.clampLimit(0));
+        assertEquals(1, KeysetPagination.clampLimit(-5));
+        assertEquals(20, KeysetPagination.clampLimit(20));
+        assertEquals(KeysetPagination.MAX_LIMIT, KeysetPagination.clampLimit(KeysetPagination.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        KeysetPage<Long> page = KeysetPagination.page(List.of(1L, 2L), 2, id -> new long[]{id});
+
+        assertEquals(List.of(1L, 2L), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void extraRowProducesCursorOfLastItem() {
+        KeysetPage<Long> page = KeysetPagination.page(List.of(1L, 2L, 3L), 2, id -> new long[]{id});
+
+        assertEquals(List.of(1L, 2L), page.getItems());
+        assertEquals(2, page.getLimit());
+        assertArrayEquals(new long[]{2}, KeysetPagination.decode(page.getNextCursor(), 1));
+    }
+}
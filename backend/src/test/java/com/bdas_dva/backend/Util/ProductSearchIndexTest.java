@@ -0,0 +1,123 @@
+package com.bdas_dva.backend.Util;
+
+import com.bdas_dva.backend.Model.OrderProduct.Product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private static Product product(long id, String name, String description, Long categoryId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategoryId(categoryId);
+        return product;
+    }
+
+    private static ProductSearchIndex index(Product... products) {
+        ProductSearchIndex index = new ProductSearchIndex();
+        assertTrue(index.rebuild(List.of(products), index.getGeneration()));
+        return index;
+    }
+
+    @Test
+    void foldRemovesDiacriticsAndCase() {
+        assertEquals("mleko zlutoucke", ProductSearchIndex.fold("Mléko ŽLUŤOUČKÉ"));
+        assertEquals("chleb", ProductSearchIndex.fold("chléb"));
+    }
+
+    @Test
+    void queryIsFoldedLikeTerms() {
+        ProductSearchIndex index = index(product(1, "Mléko", null, null));
+
+        assertEquals(List.of(1L), index.search("MLEKO", null));
+        assertEquals(List.of(1L), index.search("mléko", null));
+    }
+
+    @Test
+    void matchesByPrefix() {
+        ProductSearchIndex index = index(
+                product(1, "Čokoláda hořká", null, null),
+                product(2, "Chléb", null, null));
+
+        assertEquals(List.of(1L), index.search("čoko", null));
+        assertEquals(List.of(1L), index.search("hor", null));
+        assertTrue(index.search("okol", null).isEmpty());
+    }
+
+    @Test
+    void allWordsMustMatch() {
+        ProductSearchIndex index = index(
+                product(1, "Mléko plnotučné", null, null),
+                product(2, "Mléko čokoládové", null, null),
+                product(3, "Čokoláda", null, null));
+
+        assertEquals(List.of(2L), index.search("mleko cokol", null));
+        assertTrue(index.search("mleko chleb", null).isEmpty());
+    }
+
+    @Test
+    void ranksNameOverDescriptionAndExactOverPrefix() {
+        ProductSearchIndex index = index(
+                product(1, "Sýr", "výborné mléko", null),
+                product(2, "Mlékový koktejl", null, null),
+                product(3, "Mléko", null, null));
+
+        // Название точно (10 * 3) > название по префиксу (10) > описание точно (1 * 3)
+        assertEquals(List.of(3L, 2L, 1L), index.search("mleko", null));
+    }
+
+    @Test
+    void equalScoresAreOrderedById() {
+        ProductSearchIndex index = index(
+                product(5, "Rohlík", null, null),
+                product(2, "Rohlík", null, null));
+
+        assertEquals(List.of(2L, 5L), index.search("rohlik", null));
+    }
+
+    @Test
+    void filtersByCategory() {
+        ProductSearchIndex index = index(
+                product(1, "Mléko", null, 10L),
+                product(2, "Mléko", null, 20L));
+
+        assertEquals(List.of(2L), index.search("mleko", 20L));
+        assertTrue(index.search("mleko", 30L).isEmpty());
+    }
+
+    @Test
+    void blankQueryFindsNothing() {
+        ProductSearchIndex index = index(product(1, "Mléko", null, null));
+
+        assertTrue(index.search("  ,. ", null).isEmpty());
+        assertTrue(index.search("", null).isEmpty());
+    }
+
+    @Test
+    void putReplacesOldTermsAndRemoveDeletes() {
+        ProductSearchIndex index = index(product(1, "Mléko", null, null));
+
+        index.put(product(1, "Jogurt", null, null));
+        assertTrue(index.search("mleko", null).isEmpty());
+        assertEquals(List.of(1L), index.search("jogurt", null));
+
+        index.remove(1L);
+        assertTrue(index.search("jogurt", null).isEmpty());
+    }
+
+    @Test
+    void rebuildRefusesStaleGeneration() {
+        ProductSearchIndex index = index(product(1, "Mléko", null, null));
+        long generation = index.getGeneration();
+        index.put(product(2, "Jogurt", null, null));
+
+        assertFalse(index.rebuild(List.of(product(1, "Mléko", null, null)), generation));
+        assertEquals(List.of(2L), index.search("jogurt", null));
+        assertEquals(2L, index.getMaxProductId());
+    }
+}
@@ -0,0 +1,27 @@
+package com.bdas_dva.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultSetExporterTest {
+
+    @Test
+    void plainValueIsNotQuoted() {
+        assertEquals("Mléko 1.5 l", ResultSetExporter.csvEscape("Mléko 1.5 l"));
+        assertEquals("", ResultSetExporter.csvEscape(""));
+    }
+
+    @Test
+    void separatorsAreQuoted() {
+        assertEquals("\"a,b\"", ResultSetExporter.csvEscape("a,b"));
+        assertEquals("\"a\nb\"", ResultSetExporter.csvEscape("a\nb"));
+        assertEquals("\"a\r\nb\"", ResultSetExporter.csvEscape("a\r\nb"));
+    }
+
+    @Test
+    void quotesAreDoubled() {
+        assertEquals("\"say \"\"hi\"\"\"", ResultSetExporter.csvEscape("say \"hi\""));
+        assertEquals("\"\"\"\"", ResultSetExporter.csvEscape("\""));
+    }
+}
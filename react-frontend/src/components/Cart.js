@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import {
   Box,
   Button,
@@ -132,6 +132,8 @@ const Cart = () => {
   const [address, setAddress] = useState(null); // Адрес заказчика
 
   const [products, setProducts] = useState([]);
+  // Ключ идемпотентности текущей попытки оформления: повторная отправка не создаст второй заказ
+  const idempotencyKeyRef = useRef(null);
 
   useEffect(() => {
     const fetchUserData = async () => {
@@ -326,8 +328,15 @@ const Cart = () => {
         })),
       };
 
+      if (!idempotencyKeyRef.current) {
+        idempotencyKeyRef.current = window.crypto && window.crypto.randomUUID
+          ? window.crypto.randomUUID()
+          : `${Date.now()}-${Math.random().toString(36).slice(2)}`;
+      }
+
       // Отправляем POST-запрос на бэкенд
-      await api.post('/api/orders', requestBody); // Убедитесь, что эндпоинт /api/orders существует
+      await api.post('/api/orders', requestBody, { 'Idempotency-Key': idempotencyKeyRef.current });
+      idempotencyKeyRef.current = null;
 
       alert('Заказ успешно создан!');
 
@@ -337,6 +346,10 @@ const Cart = () => {
       window.dispatchEvent(new Event('cartUpdated'));
     } catch (error) {
       console.error('Ошибка при создании заказа:', error);
+      if (error.status === 422) {
+        // Корзина изменилась после неудачной попытки — следующая отправка получит новый ключ
+        idempotencyKeyRef.current = null;
+      }
       alert('Произошла ошибка при создании заказа. Попробуйте позже.');
     } finally {
       setLoading(false);
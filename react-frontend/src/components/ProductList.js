@@ -176,7 +176,9 @@ const ProductList = () => {
               <StyledCard>
                 <StyledCardMedia
                   image={
-                    product.image
+                    product.imageUrl
+                      ? api.getFullURL(product.imageUrl)
+                      : product.image
                       ? `data:image/jpeg;base64,${product.image}`
                       : "https://via.placeholder.com/300x200.png?text=No+Image"
                   }